@@ -0,0 +1,118 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ *
+ * Lightweight actor of the actor backend: a bounded mailbox processed by the actor system's work-stealing pool.
+ *
+ * An actor has no thread of its own. Sending it a message schedules it on the pool if it isn't already scheduled,
+ * and it then handles a batch of messages one at a time, so an actor never handles two messages at once and needs no locks.
+ *
+ * Sending to a full mailbox waits for space, telling the pool so it can keep other actors running.
+ * Deadlock is avoided by only letting the carpark, parking bays and timers send to cars, whose mailboxes are sized to hold a reply
+ * from every parking bay, so those senders never wait; only cars wait, on parking bays and the carpark.
+ *
+ */
+
+public abstract class Actor {
+	private static final int BATCH = 64; // messages handled before giving other actors a turn
+
+	protected final ActorSystem system;
+	private final String name;
+	private final LinkedBlockingQueue<ActorMessage> mailbox;
+	private final AtomicBoolean scheduled = new AtomicBoolean(false); // whether the actor is waiting to run or running
+	private final Runnable drain = this::drain;
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param ActorSystem system [The system running the actor]
+	 * @param String name [The name of the actor]
+	 * @param int capacity [The most messages the mailbox holds]
+	 */
+	Actor(ActorSystem system, String name, int capacity) {
+		this.system = system;
+		this.name = name;
+		this.mailbox = new LinkedBlockingQueue<ActorMessage>(capacity);
+	}
+
+	/**
+	 *
+	 * Handle a message, called for one message at a time
+	 *
+	 * @param ActorMessage message [The message]
+	 */
+	protected abstract void receive(ActorMessage message);
+
+	/**
+	 *
+	 * Send the actor a message, waiting if its mailbox is full
+	 *
+	 * @param ActorMessage message [The message]
+	 */
+	public void tell(ActorMessage message) {
+		// Try to add the message straight away, otherwise wait for space without starving the pool
+		if (!mailbox.offer(message)) {
+			try {
+				ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+					private boolean added = false;
+
+					public boolean block() throws InterruptedException {
+						mailbox.put(message);
+						added = true;
+
+						return true;
+					}
+
+					public boolean isReleasable() {
+						return added || (added = mailbox.offer(message));
+					}
+				});
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+
+		// Schedule the actor if it isn't already
+		if (scheduled.compareAndSet(false, true)) {
+			system.execute(drain);
+		}
+	}
+
+	// Handle a batch of messages, then reschedule if more are waiting
+	private void drain() {
+		ActorMessage message;
+		int handled = 0;
+
+		while (handled < BATCH && (message = mailbox.poll()) != null) {
+			// Try to handle the message, so one bad message doesn't stop the actor
+			try {
+				receive(message);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+
+			handled++;
+		}
+
+		scheduled.set(false);
+
+		// More messages arrived while finishing, and no sender has rescheduled the actor
+		if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+			system.execute(drain);
+		}
+	}
+
+	// Return the name of the actor
+	public String getName() {
+		return name;
+	}
+
+	// Return the number of messages waiting in the mailbox
+	public int getMailboxSize() {
+		return mailbox.size();
+	}
+}
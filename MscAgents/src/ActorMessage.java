@@ -0,0 +1,67 @@
+/**
+ *
+ * Immutable message passed between actors of the actor backend.
+ * Mirrors the ACL messages used by the agents, without serialising the car specification.
+ *
+ */
+
+public final class ActorMessage {
+	// Negotiation between cars and parking bays
+	public static final int CFP = 1; // car asks a parking bay for its distance
+	public static final int PROPOSE = 2; // parking bay is free, value: distance from the entrance
+	public static final int REFUSE = 3; // parking bay is occupied
+	public static final int ACCEPT = 4; // car accepts the parking bay's proposal
+	public static final int INFORM = 5; // parking bay confirms the car has parked
+	public static final int FAILURE = 6; // parking bay was taken before the car accepted
+	public static final int FREE = 7; // car leaves the parking bay
+	public static final int FREED = 8; // parking bay confirms the car has left
+
+	// Control of cars by the carpark and timers
+	public static final int TRY = 9; // the car is at the front of the queue and should try to park
+	public static final int PARKED = 10; // the car has parked
+	public static final int NO_SPACE = 11; // the car couldn't find a space
+	public static final int LEAVE = 12; // the car's duration is up
+	public static final int LEFT = 13; // the car has left the carpark
+	public static final int TICK = 14; // the carpark's clock has ticked
+
+	private final int type;
+	private final Actor sender;
+	private final Arrival car;
+	private final int value;
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param int type [The type of message e.g. CFP]
+	 * @param Actor sender [The actor to reply to, or null]
+	 * @param Arrival car [The car the message is about, or null]
+	 * @param int value [The message value e.g. the proposed distance]
+	 */
+	ActorMessage(int type, Actor sender, Arrival car, int value) {
+		this.type = type;
+		this.sender = sender;
+		this.car = car;
+		this.value = value;
+	}
+
+	// Return the type of message
+	public int getType() {
+		return type;
+	}
+
+	// Return the actor to reply to
+	public Actor getSender() {
+		return sender;
+	}
+
+	// Return the car the message is about
+	public Arrival getCar() {
+		return car;
+	}
+
+	// Return the message value
+	public int getValue() {
+		return value;
+	}
+}
@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ *
+ * Runs a simulation on the actor backend instead of JADE, without a user interface.
+ *
+ * Cars and parking bays follow the same protocol as the agents but run as lightweight actors sharing a thread per core,
+ * so carparks and queues far larger than JADE can hold in one process can be simulated in real time.
+ * Options are given as key=value arguments, the same as the agents, including metricsPort to serve metrics while it runs, plus threads - how many threads run actors (default every core), e.g.
+ * java ActorSimulation length=100 width=250 modelSpeed=5 runTime=600
+ *
+ */
+
+public class ActorSimulation {
+	private static final String THREADS = "threads";
+
+	public static void main(String[] args) {
+		Scenario scenario;
+		int threads;
+
+		// Try to read the options
+		try {
+			Properties options = Scenario.toProperties(args);
+
+			threads = Integer.parseInt(options.getProperty(THREADS, Integer.toString(Runtime.getRuntime().availableProcessors())));
+			options.remove(THREADS);
+			scenario = Scenario.fromProperties(options);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+
+		ArrivalSource arrivals;
+
+		// Try to open the source of new cars
+		try {
+			arrivals = ArrivalSource.forScenario(scenario, new Random(scenario.getSeed() + 1));
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		Analytics data = new Analytics(new HeadlessView());
+		data.setJournal(EventJournal.open(scenario.getJournal()));
+
+		ActorSystem system = new ActorSystem(threads);
+		CarparkLayout layout = CarparkLayout.generate(scenario.getWidth(), scenario.getLength(), scenario.getLevels(), scenario.getRampLength(), new Random(scenario.getSeed()));
+		CarparkActor carpark = new CarparkActor(system, scenario, layout, arrivals, data);
+
+		// Start serving metrics if a port was given
+		MetricsServer metrics = MetricsServer.start(scenario.getMetricsPort(), data, carpark::getQueueLength);
+
+		System.out.println("Running " + layout.getCapacity() + " parking bays on " + system.getThreads() + " threads for " + scenario.getRunTime() + " minutes");
+
+		carpark.start();
+
+		// Try to wait out the run time, reporting progress every 10 seconds
+		try {
+			long end = (long) scenario.getRunTime() * ArrivalSource.TICKS_PER_MINUTE;
+
+			while (system.getTick() < end) {
+				Thread.sleep(Math.min(10_000, Math.max(1, end - system.getTick())));
+
+				System.out.println(system.getTick() + " ticks: " + data.getCarsCreated() + " cars created, " + data.getCarsParked() + " parked, "
+						+ carpark.getQueueLength() + " queueing, " + system.getActors() + " actors");
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+
+		system.shutdown();
+		arrivals.close();
+		data.closeJournal();
+
+		// Stop serving metrics
+		if (metrics != null) {
+			metrics.close();
+		}
+
+		// Print analytics to console
+		System.out.println("Peak actors: " + system.getPeakActors() + ", peak queue length: " + carpark.getPeakQueueLength());
+		data.printResults();
+	}
+}
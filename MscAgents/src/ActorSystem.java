@@ -0,0 +1,135 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * Runs the actors of the actor backend on a shared work-stealing pool, with a single timer thread for delayed messages.
+ *
+ * Where every JADE agent has its own thread, any number of actors share a thread per core, so a single process can hold
+ * the hundreds of thousands of cars of a stadium carpark or event-day surge.
+ * The clock matches the agents: 1000 ticks pass every second.
+ *
+ */
+
+public class ActorSystem {
+	private final ForkJoinPool pool;
+	private final ScheduledExecutorService timer;
+	private final long startTime = System.currentTimeMillis(); // tick 0 of the model clock
+	private final AtomicInteger actors = new AtomicInteger(); // live actors
+	private final AtomicInteger peakActors = new AtomicInteger(); // most actors alive at once
+	private volatile boolean stopped = false; // messages sent after shutdown are dropped
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param int threads [The number of threads running actors]
+	 */
+	ActorSystem(int threads) {
+		// Async mode processes scheduled actors in the order they were scheduled, which suits event-style tasks that are never joined
+		pool = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+		timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ActorSystem-timer");
+
+			thread.setDaemon(true);
+
+			return thread;
+		});
+	}
+
+	/**
+	 *
+	 * Run a task on the pool
+	 *
+	 * @param Runnable task [The task]
+	 */
+	void execute(Runnable task) {
+		// Try to run the task, unless the system has been shut down
+		try {
+			if (!stopped) {
+				pool.execute(task);
+			}
+		} catch (RejectedExecutionException e) {
+			// Shut down while the task was being added
+		}
+	}
+
+	/**
+	 *
+	 * Send a message after a delay
+	 *
+	 * @param Actor actor [The actor to send the message to]
+	 * @param ActorMessage message [The message]
+	 * @param long ticks [How long to wait]
+	 */
+	public void schedule(Actor actor, ActorMessage message, long ticks) {
+		// Try to start the timer, unless the system has been shut down
+		try {
+			if (!stopped) {
+				timer.schedule(() -> actor.tell(message), ticks, TimeUnit.MILLISECONDS);
+			}
+		} catch (RejectedExecutionException e) {
+			// Shut down while the timer was being added
+		}
+	}
+
+	/**
+	 *
+	 * Send a message repeatedly
+	 *
+	 * @param Actor actor [The actor to send the message to]
+	 * @param ActorMessage message [The message]
+	 * @param long ticks [How often to send the message]
+	 */
+	public void scheduleEvery(Actor actor, ActorMessage message, long ticks) {
+		// Try to start the timer, unless the system has been shut down
+		try {
+			if (!stopped) {
+				timer.scheduleAtFixedRate(() -> actor.tell(message), ticks, ticks, TimeUnit.MILLISECONDS);
+			}
+		} catch (RejectedExecutionException e) {
+			// Shut down while the timer was being added
+		}
+	}
+
+	// Count an actor that has started
+	public void started() {
+		peakActors.accumulateAndGet(actors.incrementAndGet(), Math::max);
+	}
+
+	// Count an actor that has stopped
+	public void stopped() {
+		actors.decrementAndGet();
+	}
+
+	// Return the current time of the model clock
+	public long getTick() {
+		return System.currentTimeMillis() - startTime;
+	}
+
+	// Return the number of live actors
+	public int getActors() {
+		return actors.get();
+	}
+
+	// Return the most actors alive at once
+	public int getPeakActors() {
+		return peakActors.get();
+	}
+
+	// Return the number of threads running actors
+	public int getThreads() {
+		return pool.getParallelism();
+	}
+
+	// Stop the timer and pool, abandoning any waiting messages
+	public void shutdown() {
+		stopped = true;
+		timer.shutdownNow();
+		pool.shutdownNow();
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * 
+ * The algorithms used to choose between the parking bays offered to a car.
+ * Each algorithm decides whether a car should park as close to, or as far from, the entrance as possible.
+ * 
+ */
+
+public enum AllocationStrategy {
+	// Optimised efficiency - aims to reduce total emissions and fuel usage
+	OPTIMISED_EFFICIENCY(Scenario.OPTIMISED_EFFICIENCY) {
+		public boolean prefersFarthest(String type, double mpg, double carbonEmissions) {
+			// If car is electric or has high fuel economy and low emissions, go for farthest distance, else go for closest
+			return type.equals("E") || (mpg >= 60 && carbonEmissions <= 150);
+		}
+	},
+	
+	// First Come First Served - aims to park all cars as close as possible to entrance in their desired space type
+	FIRST_COME_FIRST_SERVED(Scenario.FIRST_COME_FIRST_SERVED) {
+		public boolean prefersFarthest(String type, double mpg, double carbonEmissions) {
+			return false;
+		}
+	};
+	
+	private final String label; // the name shown in the user interface
+	
+	/**
+	 * 
+	 * Enum Constructor
+	 * 
+	 * @param String label [The name shown in the user interface]
+	 */
+	AllocationStrategy(String label) {
+		this.label = label;
+	}
+	
+	/**
+	 * 
+	 * Whether a car should park as far from the entrance as possible
+	 * 
+	 * @param String type [The type of the car i.e. N, D or E]
+	 * @param double mpg [The miles per gallon of the car]
+	 * @param double carbonEmissions [The carbon emissions produced per kilometre]
+	 * @return boolean [True to park as far away as possible, false to park as close as possible]
+	 */
+	public abstract boolean prefersFarthest(String type, double mpg, double carbonEmissions);
+	
+	/**
+	 * 
+	 * Whether an offered distance is better than the best offer so far
+	 * 
+	 * @param int offered [The distance offered]
+	 * @param int best [The best distance offered so far]
+	 * @param boolean farthest [Whether the car prefers to park as far away as possible]
+	 * @return boolean [True if the offered distance is better]
+	 */
+	public static boolean isBetter(int offered, int best, boolean farthest) {
+		return farthest ? offered > best : offered < best;
+	}
+	
+	// Return the name shown in the user interface
+	public String getLabel() {
+		return label;
+	}
+	
+	/**
+	 * 
+	 * Find the algorithm with the given name
+	 * 
+	 * @param String label [The name shown in the user interface]
+	 * @return AllocationStrategy [The matching algorithm, or null if there isn't one]
+	 */
+	public static AllocationStrategy forLabel(String label) {
+		for (AllocationStrategy strategy : values()) {
+			if (strategy.label.equals(label)) {
+				return strategy;
+			}
+		}
+		
+		return null;
+	}
+}
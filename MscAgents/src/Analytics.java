@@ -1,196 +1,545 @@
-import java.util.ArrayList;
-
-/**
- * 
- * Class to hold all the analytics data.
- * Calculates all the necessary data and graph points.
- *
- */
-
-public class Analytics {
-	
-	private double fuel = 0;
-	private double carbonEmissions = 0;
-	private int carsParked = 0;
-	private double totalCapacity = 0;
-	private double usedCapacity = 0;
-	private double utilisation = 0;
-	private JavaFXGui gui;
-	private int queueTime = 0;
-	private int carsCreated = 0;
-	public int modelTicks = 0;
-	public int systemTicks = 0;
-	
-	/**
-	 * 
-	 * Class Constructor 
-	 * 
-	 * @param JavaFXGui javaFXGui [A reference to user interface]
-	 */
-	Analytics(JavaFXGui javaFXGui) {
-		this.gui = javaFXGui;
-	}
-	
-	/**
-	 * 
-	 * Update the model ticks
-	 * 
-	 * @param int ticks [The number of microseconds the simulation has been running for]
-	 */
-	public void setModelTicks(int ticks) {
-		modelTicks = modelTicks + ticks;
-		gui.updateTicksCount(modelTicks);
-	}
-	
-	/**
-	 * 
-	 * Update the system ticks
-	 * 
-	 * @param int ticks [The number of microseconds the graphs have been running for]
-	 */
-	public void setSystemTicks(int ticks) {
-		systemTicks = systemTicks + ticks;
-	}
-	
-	/**
-	 * 
-	 * Update all the graphs
-	 * 
-	 * @param ArrayList<String> queue [The queue of cars awaiting entry to the carpark]
-	 */
-	public void updateGraphs(ArrayList<String> queue) {
-		gui.updateChart("carpark-utilisation", "" + systemTicks, this.utilisation);
-		gui.updateChart("queue-duration", "" + systemTicks, (queueTime)/carsCreated);
-		gui.updateChart("queue-length", "" + systemTicks, queue.size());
-	}
-	
-	// Increment the number of cars created by the simulation
-	public void updateCarsCreated() {
-		carsCreated++;
-	}
-	
-	/**
-	 * 
-	 * Update the average duration a car spends in the queue
-	 * 
-	 * @param int duration [How long a car spent in the queue in microseconds]
-	 */
-	public void updateQueueDuration(int duration) {
-		queueTime = queueTime + duration;
-	}
-	
-	/**
-	 * 
-	 * Update the total amount of fuel used by the simulation.
-	 * 
-	 * @param double used [The amount of fuel used]
-	 */
-	public void addFuelUsage(double used) {
-		this.fuel = this.fuel + used;
-		gui.updateFuelUsed(this.fuel);
-	}
-	
-	/**
-	 * 
-	 * Update the total amount of carbon emissions produced by the simulation.
-	 * 
-	 * @param double produced [The amount of carbon emissions produced]
-	 */
-	public void addCarbonEmissions(double produced) {
-		this.carbonEmissions = this.carbonEmissions + produced;
-		gui.updateCO2Produced(this.carbonEmissions/1000);
-	}
-	
-	// Increment the number of cars parked by the simulation
-	public void increaseCarsParked() {
-		// Increment cars parked
-		this.carsParked = this.carsParked + 1;
-		
-		// Update the used capacity
-		updateUsedCapacity(false);
-		
-		// Update the user interface
-		gui.updateCarsParkedCount(this.carsParked);
-	}
-	
-	/**
-	 * 
-	 * Set the maximum capacity of the carpark
-	 * 
-	 * @param int x [The width of the carpark]
-	 * @param int y [The length of the carpark]
-	 */
-	public void setTotalCapacity(int x, int y) {
-		this.totalCapacity = x * y;
-	}
-	
-	/**
-	 * 
-	 * Update the number of parking bays currently in use
-	 * 
-	 * @param boolean leaving [Whether or not the update is triggered by a car leaving or entering the carpark]
-	 */
-	public void updateUsedCapacity(boolean leaving) {
-		// If the car is leaving the carpark reduce the used capacity, otherwise increase it
-		if (leaving) {
-			this.usedCapacity = this.usedCapacity - 1;
-		} else {
-			this.usedCapacity = this.usedCapacity + 1;
-		}
-		
-		// Update the current utilisation
-		setUtilisation();
-	}
-	
-	// Update the current utilisation of the carpark as a percentage
-	public void setUtilisation() {
-		this.utilisation = (this.usedCapacity / this.totalCapacity) * 100;
-	}
-	
-	/**
-	 * 
-	 * Calculate the parking cost to park a car in its desired space
-	 * 
-	 * metres into kilometres = (m / 1000)
-	 * km into miles = (km / 1.609)
-	 * 4.546 litres to a gallon of fuel
-	 * 
-	 * @param int distance [The distance the car travelled]
-	 * @param CarSpecification car [The details about the car]
-	 */
-	public void calculateParkingCost(int distance, CarSpecification car) {
-		// Setup placeholders
-		double fuel;
-		double co2;
-		
-		// Workout fuel used
-		// Step.1 - convert metres into kilometres (m / 1000)
-		// Step.2 - convert kilometres into miles (km / 1.609)
-		// Step.3 - convert into % of the car's fuel economy
-		// Step.4 - multiply by 4.546 litres (a gallon of fuel)
-		// Step.5 - multiply by 2 for fuel used to the space and from the space
-		fuel = (((((double)distance / 1000) / 1.609) / car.getMpg()) * 4.546) * 2;
-		
-		// Workout co2 produced
-		// Step.1 - convert metres into kilometres (m / 1000)
-		// Step.2 - multiply by the car's carbon emissions produced per kilometre
-		// Step.3 - multiply by 2 for emissions produced to the space and from the space
-		co2 = (((double) distance / 1000) * car.getCarbonEmissions()) * 2;
-		
-		// Update total fuel used
-		addFuelUsage(fuel);
-		
-		// Update total emissions produced
-		addCarbonEmissions(co2);
-	}
-	
-	// Print out the analytics to console
-	public void printResults() {
-		System.out.println("++++++++++++++++++++++++++++++++++++++++++++++++++++++++++");
-		System.out.println(carsParked + " cars parked.");
-		System.out.println(Double.toString(fuel) + " (L) of fuel");
-		System.out.println(Double.toString((carbonEmissions)/1000) + " (kg/KM) of CO2");
-		System.out.println("++++++++++++++++++++++++++++++++++++++++++++++++++++++++++");
-	}
-	
-}
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jade.core.Agent;
+
+/**
+ * 
+ * Class to hold all the analytics data.
+ * Calculates all the necessary data and graph points.
+ *
+ */
+
+public class Analytics {
+	
+	private double fuel = 0;
+	private double carbonEmissions = 0;
+	private int carsParked = 0;
+	private double totalCapacity = 0;
+	private double usedCapacity = 0;
+	private double utilisation = 0;
+	private SimulationView gui;
+	private int queueTime = 0;
+	private int carsCreated = 0;
+	private int carsBalked = 0; // cars that drove away on arrival because the queue was too long
+	private int carsReneged = 0; // cars that drove away after queueing too long
+	public int modelTicks = 0;
+	public int systemTicks = 0;
+	private volatile EventJournal journal; // null if the journal is disabled or closed, volatile as agents can outlive the carpark closing it
+	private TimelineExporter timeline; // null if car timelines are disabled
+	private ChargingScheduler charging; // null if electric cars aren't charged
+	
+	// Latency histograms in ticks (milliseconds while the agents are running)
+	private LatencyHistogram queueWait = new LatencyHistogram("Queue wait"); // joining the queue until parked
+	private LatencyHistogram negotiation = new LatencyHistogram("Negotiation"); // call for proposal until a parking bay is chosen
+	private LatencyHistogram confirmation = new LatencyHistogram("Confirmation"); // accepting a proposal until the parking bay confirms
+	private LatencyHistogram dwell = new LatencyHistogram("Dwell"); // parked until leaving
+	private Set<Agent> agents = ConcurrentHashMap.newKeySet(); // running agents, for counting agents and their mailboxes
+	
+	/**
+	 * 
+	 * Class Constructor 
+	 * 
+	 * @param SimulationView view [A reference to the user interface, or a headless view]
+	 */
+	Analytics(SimulationView view) {
+		this.gui = view;
+	}
+	
+	/**
+	 * 
+	 * Set the journal events are recorded to
+	 * 
+	 * @param EventJournal journal [The journal, or null to disable recording]
+	 */
+	public void setJournal(EventJournal journal) {
+		this.journal = journal;
+	}
+	
+	/**
+	 * 
+	 * Record an event to the journal, if enabled
+	 * 
+	 * @param int event [The event type, see EventJournal]
+	 * @param long plate [The packed number plate of the car]
+	 * @param int argument [The event argument]
+	 * @param double value [The event value]
+	 */
+	public void journal(int event, long plate, int argument, double value) {
+		// Read the journal once, as it can be closed at any time
+		EventJournal current = journal;
+		
+		if (current != null) {
+			current.record(event, plate, argument, value);
+		}
+	}
+	
+	// Write any outstanding events and close the journal, agents still running stop recording
+	public void closeJournal() {
+		EventJournal current = journal;
+		
+		if (current != null) {
+			journal = null;
+			current.close();
+		}
+	}
+	
+	/**
+	 * 
+	 * Set the timeline finished car traces are written to
+	 * 
+	 * @param TimelineExporter timeline [The timeline, or null to disable car traces]
+	 */
+	public void setTimeline(TimelineExporter timeline) {
+		this.timeline = timeline;
+	}
+	
+	// Return whether or not cars should keep a trace for the timeline
+	public boolean isTimelineEnabled() {
+		return timeline != null;
+	}
+	
+	/**
+	 * 
+	 * Write the trace of a finished car to the timeline, if enabled
+	 * 
+	 * @param CarTrace trace [The trace of the car, or null if it has none]
+	 */
+	public void exportTrace(CarTrace trace) {
+		if (timeline != null && trace != null) {
+			timeline.write(trace);
+		}
+	}
+	
+	/**
+	 * 
+	 * Set the scheduler sharing power between electric cars charging
+	 * 
+	 * @param ChargingScheduler charging [The scheduler, or null if electric cars aren't charged]
+	 */
+	public void setCharging(ChargingScheduler charging) {
+		this.charging = charging;
+	}
+	
+	// Return the scheduler sharing power between electric cars charging, null if electric cars aren't charged
+	public ChargingScheduler getCharging() {
+		return charging;
+	}
+	
+	// Write any outstanding car traces and close the timeline
+	public void closeTimeline() {
+		if (timeline != null) {
+			timeline.close();
+		}
+	}
+	
+	/**
+	 * 
+	 * Add an agent to the running agents
+	 * 
+	 * @param Agent agent [The agent that has started]
+	 */
+	public void addAgent(Agent agent) {
+		agents.add(agent);
+	}
+	
+	/**
+	 * 
+	 * Remove an agent from the running agents
+	 * 
+	 * @param Agent agent [The agent that has stopped]
+	 */
+	public void removeAgent(Agent agent) {
+		agents.remove(agent);
+	}
+	
+	// Return the running agents
+	public Set<Agent> getAgents() {
+		return agents;
+	}
+	
+	/**
+	 * 
+	 * Update the model ticks
+	 * 
+	 * @param int ticks [The number of microseconds the simulation has been running for]
+	 */
+	public synchronized void setModelTicks(int ticks) {
+		modelTicks = modelTicks + ticks;
+		gui.updateTicksCount(modelTicks);
+	}
+	
+	/**
+	 * 
+	 * Update the system ticks
+	 * 
+	 * @param int ticks [The number of microseconds the graphs have been running for]
+	 */
+	public synchronized void setSystemTicks(int ticks) {
+		systemTicks = systemTicks + ticks;
+	}
+	
+	/**
+	 * 
+	 * Update all the graphs
+	 * 
+	 * @param int queueLength [The number of cars awaiting entry to the carpark]
+	 */
+	public void updateGraphs(int queueLength) {
+		ParkingEvents.AnalyticsUpdate event = ParkingEvents.beginAnalyticsUpdate();
+		
+		gui.updateChart("carpark-utilisation", systemTicks, this.utilisation);
+		gui.updateChart("queue-duration", systemTicks, carsCreated == 0 ? 0 : (double) queueTime / carsCreated);
+		gui.updateChart("queue-length", systemTicks, queueLength);
+		
+		if (event != null) {
+			event.update = "updateGraphs";
+			event.commit();
+		}
+	}
+	
+	// Increment the number of cars created by the simulation
+	public synchronized void updateCarsCreated() {
+		carsCreated++;
+	}
+	
+	/**
+	 * 
+	 * Update the average duration a car spends in the queue
+	 * 
+	 * @param int duration [How long a car spent in the queue in microseconds]
+	 */
+	public synchronized void updateQueueDuration(int duration) {
+		queueTime = queueTime + duration;
+	}
+	
+	/**
+	 * 
+	 * Record how long a car waited from joining the queue until it parked
+	 * 
+	 * @param long ticks [How long the car waited]
+	 */
+	public void recordQueueWait(long ticks) {
+		queueWait.record(ticks);
+	}
+	
+	/**
+	 * 
+	 * Record how long a car took from calling for proposals until it chose a parking bay, or found none
+	 * 
+	 * @param long ticks [How long the negotiation took]
+	 */
+	public void recordNegotiation(long ticks) {
+		negotiation.record(ticks);
+	}
+	
+	/**
+	 * 
+	 * Record how long a parking bay took to confirm an accepted proposal
+	 * 
+	 * @param long ticks [How long the confirmation took]
+	 */
+	public void recordConfirmation(long ticks) {
+		confirmation.record(ticks);
+	}
+	
+	/**
+	 * 
+	 * Record how long a car stayed parked
+	 * 
+	 * @param long ticks [How long the car was parked]
+	 */
+	public void recordDwell(long ticks) {
+		dwell.record(ticks);
+	}
+	
+	/**
+	 * 
+	 * Update the total amount of fuel used by the simulation.
+	 * 
+	 * @param double used [The amount of fuel used]
+	 */
+	public synchronized void addFuelUsage(double used) {
+		this.fuel = this.fuel + used;
+		gui.updateFuelUsed(this.fuel);
+	}
+	
+	/**
+	 * 
+	 * Update the total amount of carbon emissions produced by the simulation.
+	 * 
+	 * @param double produced [The amount of carbon emissions produced]
+	 */
+	public synchronized void addCarbonEmissions(double produced) {
+		this.carbonEmissions = this.carbonEmissions + produced;
+		gui.updateCO2Produced(this.carbonEmissions/1000);
+	}
+	
+	// Increment the number of cars that drove away on arrival because the queue was too long
+	public synchronized void increaseCarsBalked() {
+		this.carsBalked = this.carsBalked + 1;
+	}
+	
+	// Increment the number of cars that drove away after queueing too long
+	public synchronized void increaseCarsReneged() {
+		this.carsReneged = this.carsReneged + 1;
+	}
+	
+	// Increment the number of cars parked by the simulation
+	public synchronized void increaseCarsParked() {
+		ParkingEvents.AnalyticsUpdate event = ParkingEvents.beginAnalyticsUpdate();
+		
+		// Increment cars parked
+		this.carsParked = this.carsParked + 1;
+		
+		// Update the used capacity
+		updateUsedCapacity(false);
+		
+		// Update the user interface
+		gui.updateCarsParkedCount(this.carsParked);
+		
+		if (event != null) {
+			event.update = "increaseCarsParked";
+			event.commit();
+		}
+	}
+	
+	/**
+	 * 
+	 * Set the maximum capacity of the carpark
+	 * 
+	 * @param int x [The width of the carpark]
+	 * @param int y [The length of the carpark]
+	 * @param int levels [The number of levels of the carpark]
+	 */
+	public void setTotalCapacity(int x, int y, int levels) {
+		this.totalCapacity = x * y * levels;
+	}
+	
+	/**
+	 * 
+	 * Update the number of parking bays currently in use
+	 * 
+	 * @param boolean leaving [Whether or not the update is triggered by a car leaving or entering the carpark]
+	 */
+	public synchronized void updateUsedCapacity(boolean leaving) {
+		// If the car is leaving the carpark reduce the used capacity, otherwise increase it
+		if (leaving) {
+			this.usedCapacity = this.usedCapacity - 1;
+		} else {
+			this.usedCapacity = this.usedCapacity + 1;
+		}
+		
+		// Update the current utilisation
+		setUtilisation();
+	}
+	
+	// Update the current utilisation of the carpark as a percentage
+	public synchronized void setUtilisation() {
+		this.utilisation = (this.usedCapacity / this.totalCapacity) * 100;
+	}
+	
+	/**
+	 * 
+	 * Calculate the fuel a car uses driving to a parking bay and back
+	 * Step.1 - convert metres into kilometres (m / 1000)
+	 * Step.2 - convert kilometres into miles (km / 1.609)
+	 * Step.3 - convert into % of the car's fuel economy
+	 * Step.4 - multiply by 4.546 litres (a gallon of fuel)
+	 * Step.5 - multiply by 2 for fuel used to the space and from the space
+	 * 
+	 * @param double distance [The distance of the parking bay from the entrance in metres]
+	 * @param double mpg [The miles per gallon of the car]
+	 * @return double [The fuel used in litres]
+	 */
+	static double fuelUsed(double distance, double mpg) {
+		return ((((distance / 1000) / 1.609) / mpg) * 4.546) * 2;
+	}
+	
+	/**
+	 * 
+	 * Calculate the CO2 a car produces driving to a parking bay and back
+	 * Step.1 - convert metres into kilometres (m / 1000)
+	 * Step.2 - multiply by the car's carbon emissions produced per kilometre
+	 * Step.3 - multiply by 2 for emissions produced to the space and from the space
+	 * 
+	 * @param double distance [The distance of the parking bay from the entrance in metres]
+	 * @param double carbonEmissions [The carbon emissions the car produces per kilometre (g/km)]
+	 * @return double [The CO2 produced in grams]
+	 */
+	static double carbonProduced(double distance, double carbonEmissions) {
+		return ((distance / 1000) * carbonEmissions) * 2;
+	}
+	
+	/**
+	 * 
+	 * Calculate the parking cost to park a car in its desired space
+	 * 
+	 * @param int distance [The distance the car travelled]
+	 * @param CarSpecification car [The details about the car]
+	 */
+	public synchronized void calculateParkingCost(int distance, CarSpecification car) {
+		ParkingEvents.AnalyticsUpdate event = ParkingEvents.beginAnalyticsUpdate();
+		
+		double fuel = fuelUsed(distance, car.getMpg());
+		double co2 = carbonProduced(distance, car.getCarbonEmissions());
+		
+		// Record the cost to the journal
+		EventJournal current = journal;
+		
+		if (current != null) {
+			long plate = EventJournal.packPlate(car.getNumberPlate());
+			
+			current.record(EventJournal.FUEL, plate, distance, fuel);
+			current.record(EventJournal.CO2, plate, distance, co2);
+		}
+		
+		// Update total fuel used
+		addFuelUsage(fuel);
+		
+		// Update total emissions produced
+		addCarbonEmissions(co2);
+		
+		if (event != null) {
+			event.update = "calculateParkingCost";
+			event.commit();
+		}
+	}
+	
+	// Return the number of cars created by the simulation
+	public int getCarsCreated() {
+		return carsCreated;
+	}
+	
+	// Return the number of cars parked by the simulation
+	public int getCarsParked() {
+		return carsParked;
+	}
+	
+	// Return the number of cars that drove away on arrival because the queue was too long
+	public int getCarsBalked() {
+		return carsBalked;
+	}
+	
+	// Return the number of cars that drove away after queueing too long
+	public int getCarsReneged() {
+		return carsReneged;
+	}
+	
+	// Return the total amount of fuel used in litres
+	public double getFuel() {
+		return fuel;
+	}
+	
+	// Return the total amount of carbon emissions produced in grams
+	public double getCarbonEmissions() {
+		return carbonEmissions;
+	}
+	
+	// Return the total time cars have spent queueing
+	public int getQueueTime() {
+		return queueTime;
+	}
+	
+	// Return the current utilisation of the carpark as a percentage
+	public double getUtilisation() {
+		return utilisation;
+	}
+	
+	// Return the histogram of how long cars waited from joining the queue until they parked
+	public LatencyHistogram getQueueWait() {
+		return queueWait;
+	}
+	
+	// Return the histogram of how long negotiations with parking bays took
+	public LatencyHistogram getNegotiation() {
+		return negotiation;
+	}
+	
+	// Return the histogram of how long parking bays took to confirm accepted proposals
+	public LatencyHistogram getConfirmation() {
+		return confirmation;
+	}
+	
+	// Return the histogram of how long cars stayed parked
+	public LatencyHistogram getDwell() {
+		return dwell;
+	}
+	
+	// Print out the analytics to console
+	public void printResults() {
+		System.out.println("++++++++++++++++++++++++++++++++++++++++++++++++++++++++++");
+		System.out.println(carsParked + " cars parked.");
+		System.out.println(carsBalked + " cars balked, " + carsReneged + " cars reneged.");
+		System.out.println(Double.toString(fuel) + " (L) of fuel");
+		System.out.println(Double.toString((carbonEmissions)/1000) + " (kg/KM) of CO2");
+		System.out.println(queueWait);
+		System.out.println(negotiation);
+		System.out.println(confirmation);
+		System.out.println(dwell);
+		
+		if (charging != null) {
+			System.out.println("Charging: " + charging.getConnections() + " cars at " + charging.getChargers() + " chargers, " + charging.getDelivered() + " of " + charging.getDemanded() + " (kWh) delivered, "
+					+ charging.getUnmet() + " (kWh) unmet, peak " + charging.getPeakLoad() + " (kW)");
+		}
+		
+		System.out.println("++++++++++++++++++++++++++++++++++++++++++++++++++++++++++");
+	}
+	
+	/**
+	 * 
+	 * Write the analytics totals and histograms to a checkpoint
+	 * 
+	 * @param DataOutputStream out [Where to write]
+	 * @throws IOException [If the analytics can't be written]
+	 */
+	public void save(DataOutputStream out) throws IOException {
+		out.writeDouble(fuel);
+		out.writeDouble(carbonEmissions);
+		out.writeInt(carsParked);
+		out.writeDouble(usedCapacity);
+		out.writeDouble(utilisation);
+		out.writeInt(queueTime);
+		out.writeInt(carsCreated);
+		out.writeInt(carsBalked);
+		out.writeInt(carsReneged);
+		out.writeInt(modelTicks);
+		out.writeInt(systemTicks);
+		
+		queueWait.save(out);
+		negotiation.save(out);
+		confirmation.save(out);
+		dwell.save(out);
+	}
+	
+	/**
+	 * 
+	 * Replace the analytics totals and histograms with those written to a checkpoint
+	 * The total capacity is kept, as it is set from the layout
+	 * 
+	 * @param DataInputStream in [Where to read from]
+	 * @throws IOException [If the analytics can't be read]
+	 */
+	public void restore(DataInputStream in) throws IOException {
+		fuel = in.readDouble();
+		carbonEmissions = in.readDouble();
+		carsParked = in.readInt();
+		usedCapacity = in.readDouble();
+		utilisation = in.readDouble();
+		queueTime = in.readInt();
+		carsCreated = in.readInt();
+		carsBalked = in.readInt();
+		carsReneged = in.readInt();
+		modelTicks = in.readInt();
+		systemTicks = in.readInt();
+		
+		queueWait.restore(in);
+		negotiation.restore(in);
+		confirmation.restore(in);
+		dwell.restore(in);
+	}
+	
+}
@@ -0,0 +1,85 @@
+/**
+ *
+ * Immutable record of a car arriving at the carpark.
+ * Produced by an arrival source and turned into a car agent by the carpark.
+ *
+ */
+
+public final class Arrival {
+	private final String numberPlate;
+	private final String type;
+	private final String makeModel;
+	private final double mpg;
+	private final double carbonEmissions;
+	private final int duration;
+	private final long tick;
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param String numberPlate [The number plate of the car]
+	 * @param String type [The type of the car i.e. N, D or E]
+	 * @param String makeModel [The make and model of the car]
+	 * @param double mpg [The miles per gallon of the car]
+	 * @param double carbonEmissions [The carbon emissions produced per kilometre]
+	 * @param int duration [How long the car is parked for in minutes]
+	 * @param long tick [When the car arrives]
+	 */
+	Arrival(String numberPlate, String type, String makeModel, double mpg, double carbonEmissions, int duration, long tick) {
+		this.numberPlate = numberPlate;
+		this.type = type;
+		this.makeModel = makeModel;
+		this.mpg = mpg;
+		this.carbonEmissions = carbonEmissions;
+		this.duration = duration;
+		this.tick = tick;
+	}
+
+	// Return the car's number plate
+	public String getNumberPlate() {
+		return numberPlate;
+	}
+
+	// Return the car's type
+	public String getType() {
+		return type;
+	}
+
+	// Return the car's make and model
+	public String getMakeModel() {
+		return makeModel;
+	}
+
+	// Return the car's miles per gallon
+	public double getMpg() {
+		return mpg;
+	}
+
+	// Return the car's carbon emissions per kilometre
+	public double getCarbonEmissions() {
+		return carbonEmissions;
+	}
+
+	// Return how long the car is parked for in minutes
+	public int getDuration() {
+		return duration;
+	}
+
+	// Return when the car arrives
+	public long getTick() {
+		return tick;
+	}
+
+	// Return the specification sent to parking bays and used for analytics
+	public CarSpecification toSpecification() {
+		CarSpecification car = new CarSpecification();
+
+		car.setNumberPlate(numberPlate);
+		car.setType(type);
+		car.setMpg(mpg);
+		car.setCarbonEmissions(carbonEmissions);
+
+		return car;
+	}
+}
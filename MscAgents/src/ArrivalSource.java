@@ -0,0 +1,85 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ *
+ * Source of cars arriving at the carpark.
+ *
+ * Time is measured in ticks of the model clock, where 1000 ticks pass every second of a running simulation, and a minute of model time is 100 ticks.
+ * Cars stay for their duration to the tick in the JADE and actor simulations.
+ * The headless carpark counts down durations 10 minutes every 1000 ticks instead, so it rounds stays to a multiple of 10 minutes.
+ *
+ */
+
+public interface ArrivalSource {
+	// Number of ticks in a minute of model time
+	int TICKS_PER_MINUTE = 100;
+
+	/**
+	 *
+	 * Get the next car due to arrive by the given time
+	 * Called repeatedly until it returns null to collect every car due by then
+	 *
+	 * @param long tick [The current time]
+	 * @return Arrival [The next car due by the given time, or null if none are due]
+	 */
+	Arrival next(long tick);
+
+	// Return whether or not the source will never produce another car
+	boolean isExhausted();
+
+	// Release any resources held by the source
+	void close();
+
+	/**
+	 *
+	 * Write the state of the source to a checkpoint, including the generator and its random streams
+	 *
+	 * @param DataOutputStream out [Where to write]
+	 * @throws IOException [If the state can't be written]
+	 */
+	void save(DataOutputStream out) throws IOException;
+
+	/**
+	 *
+	 * Carry on from the state written to a checkpoint by a source of the same kind
+	 *
+	 * @param DataInputStream in [Where to read from]
+	 * @throws IOException [If the state can't be read]
+	 */
+	void restore(DataInputStream in) throws IOException;
+
+	/**
+	 *
+	 * Create the arrival source described by the simulation options
+	 *
+	 * @param Scenario scenario [The simulation options]
+	 * @param Random rand [The source of randomness for generated cars]
+	 * @return ArrivalSource [The arrival source]
+	 * @throws IOException [If a recorded log can't be opened]
+	 */
+	static ArrivalSource forScenario(Scenario scenario, Random rand) throws IOException {
+		CarGenerator generator = new CarGenerator(rand);
+		ArrivalSource source;
+
+		// Replay a recorded log if one was given, otherwise generate cars with the chosen arrival process
+		if (!scenario.getTrace().isEmpty()) {
+			source = new TraceArrivals(scenario.getTrace(), generator);
+		} else if (scenario.getArrivals().equals(Scenario.POISSON_ARRIVALS)) {
+			source = new PoissonArrivals(scenario, generator, new Random(rand.nextLong()), new double[] { scenario.getArrivalRate() });
+		} else if (scenario.getArrivals().equals(Scenario.PROFILE_ARRIVALS)) {
+			source = new PoissonArrivals(scenario, generator, new Random(rand.nextLong()), scenario.getHourlyRates());
+		} else {
+			source = new SyntheticArrivals(scenario, generator);
+		}
+
+		// Add any batches of cars arriving together
+		if (scenario.getBatches().length > 0) {
+			source = new BatchArrivals(source, scenario, generator, new Random(rand.nextLong()));
+		}
+
+		return source;
+	}
+}
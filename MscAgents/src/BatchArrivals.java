@@ -0,0 +1,106 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ *
+ * Arrival source that adds batches of cars arriving together, such as the end of an event, to another source.
+ * Each batch arrives at a given minute, spread evenly at random over a given number of minutes.
+ * Cars from the batches and the other source arrive in order of their arrival time.
+ *
+ */
+
+public class BatchArrivals implements ArrivalSource {
+	private ArrivalSource source; // the source the batches are added to
+	private Scenario scenario;
+	private CarGenerator generator;
+	private long[] ticks; // when every car in every batch arrives, in order
+	private int index = 0; // the next car in the batches
+	private Arrival pending; // the next car from the other source, already due
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param ArrivalSource source [The source the batches are added to]
+	 * @param Scenario scenario [The simulation options]
+	 * @param CarGenerator generator [Generates the details of each car]
+	 * @param Random rand [The source of randomness for arrival times within a batch]
+	 */
+	BatchArrivals(ArrivalSource source, Scenario scenario, CarGenerator generator, Random rand) {
+		this.source = source;
+		this.scenario = scenario;
+		this.generator = generator;
+
+		int[][] batches = scenario.getBatches();
+		int total = 0;
+
+		for (int[] batch : batches) {
+			total = total + batch[1];
+		}
+
+		// Work out when every car arrives up front, the details of each car are only generated once it is due
+		ticks = new long[total];
+		int i = 0;
+
+		for (int[] batch : batches) {
+			long start = (long) batch[0] * TICKS_PER_MINUTE;
+			long spread = (long) batch[2] * TICKS_PER_MINUTE;
+
+			for (int car = 0; car < batch[1]; car++) {
+				ticks[i++] = start + (spread == 0 ? 0 : (long) (rand.nextDouble() * spread));
+			}
+		}
+
+		Arrays.sort(ticks);
+	}
+
+	public Arrival next(long tick) {
+		// Read ahead one car from the other source
+		if (pending == null) {
+			pending = source.next(tick);
+		}
+
+		long batchTick = index < ticks.length ? ticks[index] : Long.MAX_VALUE;
+
+		// The car from the other source arrived first
+		if (pending != null && pending.getTick() <= batchTick) {
+			Arrival arrival = pending;
+			pending = null;
+
+			return arrival;
+		}
+
+		// No car is due yet
+		if (batchTick > tick) {
+			return null;
+		}
+
+		index++;
+
+		return generator.newArrival(scenario, batchTick);
+	}
+
+	public boolean isExhausted() {
+		return index == ticks.length && pending == null && source.isExhausted();
+	}
+
+	public void close() {
+		source.close();
+	}
+
+	// The batch times are worked out again from the scenario, so only how far through them is saved
+	public void save(DataOutputStream out) throws IOException {
+		source.save(out);
+		out.writeInt(index);
+		Checkpoint.writeArrival(out, pending);
+	}
+
+	public void restore(DataInputStream in) throws IOException {
+		source.restore(in);
+		index = Math.min(in.readInt(), ticks.length);
+		pending = Checkpoint.readArrival(in);
+	}
+}
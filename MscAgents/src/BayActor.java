@@ -0,0 +1,91 @@
+/**
+ *
+ * Parking bay of the actor backend.
+ * Answers calls for proposal, parks cars and frees up the parking bay, following the same rules as the parking bay agent.
+ *
+ */
+
+public class BayActor extends Actor {
+	private static final int MAILBOX = 1024;
+
+	private final int bay; // the index of the parking bay in the layout
+	private final int distance; // how far the space is from the entrance in metres
+	private final String type; // the type of the parking bay i.e. N, D or E
+	private final Analytics data;
+	private final CarparkOccupancy occupancy; // which parking bays in the carpark are occupied
+	private String occupiedBy = null; // which vehicle is occupying the space
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param ActorSystem system [The system running the actor]
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param int bay [The index of the parking bay in the layout]
+	 * @param Analytics data [The analytics of the simulation]
+	 * @param CarparkOccupancy occupancy [Which parking bays in the carpark are occupied]
+	 */
+	BayActor(ActorSystem system, CarparkLayout layout, int bay, Analytics data, CarparkOccupancy occupancy) {
+		super(system, "ParkingBayAgent-" + layout.getName(bay), MAILBOX);
+
+		this.bay = bay;
+		this.distance = layout.getDistance(bay);
+		this.type = layout.getType(bay);
+		this.data = data;
+		this.occupancy = occupancy;
+	}
+
+	protected void receive(ActorMessage message) {
+		Actor car = message.getSender();
+
+		switch (message.getType()) {
+			case ActorMessage.CFP:
+				// Reply with the distance from entrance if the parking bay is available
+				if (occupiedBy == null) {
+					car.tell(new ActorMessage(ActorMessage.PROPOSE, this, null, distance));
+				} else {
+					car.tell(new ActorMessage(ActorMessage.REFUSE, this, null, 0));
+				}
+
+				break;
+			case ActorMessage.ACCEPT:
+				// The parking bay is no longer available
+				if (occupiedBy != null) {
+					car.tell(new ActorMessage(ActorMessage.FAILURE, this, null, 0));
+					break;
+				}
+
+				// Set car as occupying the space
+				occupiedBy = message.getCar().getNumberPlate();
+				occupancy.occupy(bay);
+
+				// Increase cars parked count
+				data.increaseCarsParked();
+
+				// If car is not an electric car, then calculate the cost of parking, otherwise plug it in if there's a charger
+				if (!message.getCar().getType().equals("E")) {
+					data.calculateParkingCost(distance, message.getCar().toSpecification());
+				} else {
+					data.getCharging().connect(bay, system.getTick());
+				}
+
+				car.tell(new ActorMessage(ActorMessage.INFORM, this, null, distance));
+
+				break;
+			case ActorMessage.FREE:
+				// Unplug any car charging and free up the parking bay
+				data.getCharging().disconnect(bay, system.getTick());
+				occupiedBy = null;
+				occupancy.release(bay);
+
+				car.tell(new ActorMessage(ActorMessage.FREED, this, null, 0));
+
+				break;
+		}
+	}
+
+	// Return the type of the parking bay
+	public String getType() {
+		return type;
+	}
+}
@@ -0,0 +1,186 @@
+/**
+  * Bay group agent that answers calls for proposal on behalf of a group of parking bays of the same type.
+  * Replies once per group with the best free parking bay for the car, instead of every parking bay replying.
+  * The car then accepts the proposal with the parking bay itself, which still decides whether the car can park.
+  *
+**/
+
+import jade.core.Agent;
+
+import java.util.Arrays;
+
+import jade.core.behaviours.*;
+import jade.lang.acl.*;
+
+public class BayGroupAgent extends Agent {
+	// Template matching calls for proposal, shared as it never changes
+	private static final MessageTemplate CALLS = MessageTemplate.MatchPerformative(ACLMessage.CFP);
+
+	// Instance Variables
+	int[] bays; // the parking bays of the group, closest to the entrance first with ties in bay order
+	String[] distances; // the distance of each parking bay as sent in proposals, in the same order
+	String[] indices; // the index of each parking bay as sent in proposals, in the same order
+	int[] tieStart; // the first position with the same distance as each position
+	CarparkLayout layout;
+	CarparkOccupancy occupancy; // which parking bays in the carpark are occupied
+	AllocationStrategy strategy; // decides whether a car wants to park close to or far from the entrance
+	Analytics data;
+
+	// Agent creation
+	protected void setup() {
+		// Get the variables passed to the agent on creation
+		Object[] parameters = getArguments();
+
+		layout = (CarparkLayout) parameters[1];
+		occupancy = (CarparkOccupancy) parameters[2];
+		strategy = ((Scenario) parameters[3]).getStrategy();
+		data = (Analytics) parameters[4];
+
+		setBays((int[]) parameters[0]);
+
+		data.addAgent(this);
+
+		// Behaviour to respond to queries from parking
+		addBehaviour(new GroupAvailability());
+	}
+
+	// Agent termination
+	protected void takeDown() {
+		data.removeAgent(this);
+	}
+
+	/**
+	 *
+	 * Set the parking bays of the group, ordered by distance so the best free one is the first or last found
+	 *
+	 * @param int[] members [The parking bays of the group, in any order]
+	 */
+	void setBays(int[] members) {
+		bays = Arrays.stream(members).boxed().sorted((a, b) -> layout.getDistance(a) != layout.getDistance(b) ? Integer.compare(layout.getDistance(a), layout.getDistance(b)) : Integer.compare(a, b)).mapToInt(Integer::intValue).toArray();
+
+		// Proposals never change, so their content is made once
+		distances = new String[bays.length];
+		indices = new String[bays.length];
+		tieStart = new int[bays.length];
+
+		for (int i = 0; i < bays.length; i++) {
+			distances[i] = String.valueOf(layout.getDistance(bays[i]));
+			indices[i] = String.valueOf(bays[i]);
+
+			// Remember where each run of equal distances starts
+			boolean tie = i > 0 && layout.getDistance(bays[i - 1]) == layout.getDistance(bays[i]);
+			tieStart[i] = tie ? tieStart[i - 1] : i;
+		}
+	}
+
+	/**
+	 *
+	 * Find the best free parking bay of the group for a car
+	 *
+	 * @param boolean farthest [Whether the car wants to park as far from the entrance as possible]
+	 * @return int [The position of the parking bay in the group, or -1 if none are free]
+	 */
+	private int findFree(boolean farthest) {
+		if (farthest) {
+			for (int i = bays.length - 1; i >= 0; i--) {
+				// Of parking bays the same distance away, the first free in bay order is chosen, as the carpark occupancy does
+				if (!occupancy.isOccupied(bays[i])) {
+					return nextFree(tieStart[i]);
+				}
+			}
+
+			return -1;
+		}
+
+		return nextFree(0);
+	}
+
+	/**
+	 *
+	 * Find the first free parking bay of the group from a position onwards
+	 *
+	 * @param int from [The position to start from]
+	 * @return int [The position of the parking bay in the group, or -1 if none are free]
+	 */
+	private int nextFree(int from) {
+		for (int i = from; i < bays.length; i++) {
+			if (!occupancy.isOccupied(bays[i])) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 *
+	 * Answer a call for proposal from a car with the best free parking bay of the group
+	 *
+	 * @param ACLMessage msg [The call for proposal]
+	 * @return ACLMessage reply [The proposal, or a refusal if every parking bay of the group is occupied]
+	 * @throws UnreadableException [If the car didn't say where it wants to park and its specification can't be read]
+	 */
+	ACLMessage answerCall(ACLMessage msg) throws UnreadableException {
+		// Cars say where they want to park, otherwise work it out from the car specification
+		String farthest = msg.getUserDefinedParameter(ParkingBayAgent.FARTHEST);
+		ACLMessage reply = msg.createReply();
+		int best;
+
+		if (farthest != null) {
+			best = findFree(farthest.equals("true"));
+		} else {
+			CarSpecification car = (CarSpecification) msg.getContentObject();
+			best = findFree(strategy.prefersFarthest(car.getType(), car.getMpg(), car.getCarbonEmissions()));
+		}
+
+		if (best >= 0) {
+			// Reply with the distance from entrance and the index of the parking bay to accept it with
+			reply.setPerformative(ACLMessage.PROPOSE);
+			reply.setContent(distances[best]);
+			reply.addUserDefinedParameter(ParkingBayAgent.BAY, indices[best]);
+		} else {
+			// Every parking bay of the group is occupied
+			reply.setPerformative(ACLMessage.REFUSE);
+			reply.setContent("not-available");
+		}
+
+		return reply;
+	}
+
+	/**
+	 *
+	 * Cyclic Behaviour to continuously respond to call for proposal messages.
+	 * Behaviour responds with the best free parking bay of the group.
+	 *
+	 */
+	private class GroupAvailability extends CyclicBehaviour {
+		public void action() {
+			// Strip out the message that matches the performative CFP
+			ACLMessage msg = myAgent.receive(CALLS);
+
+			// If the message is set
+			if (msg != null) {
+				ParkingEvents.ParkingBay event = ParkingEvents.beginParkingBay();
+
+				try {
+					ACLMessage reply = answerCall(msg);
+
+					myAgent.send(reply);
+
+					// The car specification is only read for the flight recorder
+					if (event != null && event.shouldCommit()) {
+						event.bay = getLocalName();
+						event.car = ((CarSpecification) msg.getContentObject()).getNumberPlate();
+						event.handler = "GroupAvailability";
+						event.available = reply.getPerformative() == ACLMessage.PROPOSE;
+						event.commit();
+					}
+				} catch (Exception ex) {
+					ex.printStackTrace();
+				}
+			} else {
+				block();
+			}
+		}
+	}
+}
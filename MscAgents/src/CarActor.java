@@ -0,0 +1,165 @@
+/**
+ *
+ * Car of the actor backend.
+ *
+ * Negotiates parking with the same protocol as the car agent when told it has reached the front of the queue:
+ * calls for proposals from the parking bays of its own type, falling back to normal parking bays, accepts the best offer
+ * for the algorithm being used, then leaves once its duration is up.
+ * Instead of polling with ticker behaviours, the car is told when to try and a timer tells it when to leave.
+ *
+ */
+
+public class CarActor extends Actor {
+	private final Arrival arrival;
+	private final Actor carpark;
+	private final BayActor[] ownType; // parking bays matching the car's type
+	private final BayActor[] normal; // normal parking bays
+	private final Analytics data;
+	private final boolean farthest; // whether the algorithm being used wants the car parked as far from the entrance as possible
+	private final long arrivalTick; // when the car joined the queue
+
+	// Negotiation
+	private boolean typeFlag; // whether the car is looking for a parking bay of its own type
+	private int expected; // replies expected this round
+	private int replies; // replies received this round
+	private Actor space; // the best parking bay offered
+	private int distance; // the distance of the best parking bay offered
+	private long callTick; // when the car first called for proposals
+	private long acceptTick; // when the car accepted a proposal
+	private long parkedTick; // when the car parked
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param ActorSystem system [The system running the actor]
+	 * @param Arrival arrival [The arriving car]
+	 * @param Actor carpark [The carpark managing the queue]
+	 * @param BayActor[] ownType [The parking bays matching the car's type]
+	 * @param BayActor[] normal [The normal parking bays]
+	 * @param AllocationStrategy strategy [The algorithm used to choose parking bays]
+	 * @param Analytics data [The analytics of the simulation]
+	 */
+	CarActor(ActorSystem system, Arrival arrival, Actor carpark, BayActor[] ownType, BayActor[] normal, AllocationStrategy strategy, Analytics data) {
+		// Every parking bay contacted can reply at once, so room is left for all of them
+		super(system, arrival.getNumberPlate(), Math.max(ownType.length, normal.length) + 8);
+
+		this.arrival = arrival;
+		this.carpark = carpark;
+		this.ownType = ownType;
+		this.normal = normal;
+		this.data = data;
+		this.farthest = strategy.prefersFarthest(arrival.getType(), arrival.getMpg(), arrival.getCarbonEmissions());
+		this.arrivalTick = system.getTick();
+	}
+
+	// Return the type of the car
+	public String getType() {
+		return arrival.getType();
+	}
+
+	// Return when the car joined the queue
+	public long getArrivalTick() {
+		return arrivalTick;
+	}
+
+	protected void receive(ActorMessage message) {
+		switch (message.getType()) {
+			case ActorMessage.TRY:
+				// At the front of the queue, so look for a parking bay of the car's own type first
+				callTick = system.getTick();
+				callForProposals(true);
+
+				break;
+			case ActorMessage.PROPOSE:
+			case ActorMessage.REFUSE:
+				// If the proposed distance is better than the best distance for the algorithm being used, update placeholders
+				if (message.getType() == ActorMessage.PROPOSE && (space == null || AllocationStrategy.isBetter(message.getValue(), distance, farthest))) {
+					distance = message.getValue();
+					space = message.getSender();
+				}
+
+				replies++;
+
+				// All replies have been received
+				if (replies >= expected) {
+					decide();
+				}
+
+				break;
+			case ActorMessage.INFORM:
+				// Parked, so leave the queue and wait out the duration
+				parkedTick = system.getTick();
+				data.recordConfirmation(parkedTick - acceptTick);
+				data.recordQueueWait(parkedTick - arrivalTick);
+				carpark.tell(new ActorMessage(ActorMessage.PARKED, this, null, 0));
+				system.schedule(this, new ActorMessage(ActorMessage.LEAVE, null, null, 0), (long) arrival.getDuration() * ArrivalSource.TICKS_PER_MINUTE);
+
+				break;
+			case ActorMessage.FAILURE:
+				// The parking bay was taken, try again next time
+				carpark.tell(new ActorMessage(ActorMessage.NO_SPACE, this, null, 0));
+
+				break;
+			case ActorMessage.LEAVE:
+				// Free up the parking bay
+				space.tell(new ActorMessage(ActorMessage.FREE, this, arrival, 0));
+
+				break;
+			case ActorMessage.FREED:
+				// Decrement the used capacity of the carpark
+				data.updateUsedCapacity(true);
+				data.recordDwell(system.getTick() - parkedTick);
+				system.stopped();
+
+				break;
+		}
+	}
+
+	/**
+	 *
+	 * Send a call for proposal to a set of parking bays
+	 *
+	 * @param boolean typeFlag [Whether to contact the parking bays of the car's own type, otherwise the normal parking bays]
+	 */
+	private void callForProposals(boolean typeFlag) {
+		BayActor[] bays = typeFlag ? ownType : normal;
+
+		this.typeFlag = typeFlag;
+		this.expected = bays.length;
+		this.replies = 0;
+		this.space = null;
+
+		ActorMessage cfp = new ActorMessage(ActorMessage.CFP, this, arrival, 0);
+
+		for (BayActor bay : bays) {
+			bay.tell(cfp);
+		}
+
+		// No parking bays to wait for
+		if (bays.length == 0) {
+			decide();
+		}
+	}
+
+	// Accept the best offer once every parking bay contacted has replied
+	private void decide() {
+		// If no space was found and type flag was passed, start again with normal parking bays
+		if (space == null && typeFlag && ownType != normal) {
+			callForProposals(false);
+			return;
+		}
+
+		// Negotiation is over whether or not a space was found
+		data.recordNegotiation(system.getTick() - callTick);
+
+		if (space == null) {
+			carpark.tell(new ActorMessage(ActorMessage.NO_SPACE, this, null, 0));
+			return;
+		}
+
+		// Send the parking request to the parking bay that provided the best offer
+		acceptTick = system.getTick();
+		space.tell(new ActorMessage(ActorMessage.ACCEPT, this, arrival, distance));
+	}
+}
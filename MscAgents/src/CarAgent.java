@@ -1,712 +1,538 @@
-/**
-  * Car agent that represents a car and driver in the simulation.
-  * Communicates with parking bay agents in order to negotiate parking.
-  * Has a random type and car specification based on representative real world data.
-  * 
-  * Amended from JADE tutorial examples:
-  *	Accessed 17/08/2020
-  *	https://jade.tilab.com/doc/tutorials/JADEProgramming-Tutorial-for-beginners.pdf
-  *	https://github.com/jason-lang/jason/tree/master/doc/tutorials/jason-jade/jade-example/examples/bookTrading
-  *
-**/
-
-import jade.core.Agent;
-
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Random;
-
-import jade.core.AID;
-import jade.core.behaviours.*;
-import jade.lang.acl.*;
-import jade.wrapper.*;
-import jade.domain.DFService;
-import jade.domain.FIPAException;
-import jade.domain.FIPAAgentManagement.*;
-
-public class CarAgent extends Agent {
-	
-	// Instance Variables
-	String numberPlate; // identifier of the vehicle
-	int duration; // duration the car is parked for in min
-	String makeModel = ""; // the make and model of the car
-	String type = "N"; // type of car
-	double fuelEconomy; // miles per gallon of the car
-	double carbonDioxideEmissions; // the co2 emissions produced grams per km (g/km)
-	private AID[] parkingBayAgents; // The list of known ParkingBay agents
-	private ArrayList<AID> normalBays;
-	private ArrayList<AID> disabledBays;
-	private ArrayList<AID> electricBays;
-	private AID currentSpace;
-	boolean parked = false;
-	private Analytics data;
-	private ArrayList<String> queue;
-	private int durationTick = 1000;
-	private int modelSpeed;
-	private String name;
-	private String algorithm;
-	
-	// Agent creation
-	protected void setup() {
-		// Get all variables passed through on creation
-		Object[] parameters = getArguments();
-		
-		// Setup the car agent
-		numberPlate = parameters[0].toString();
-		data = (Analytics) parameters[1];
-		normalBays = (ArrayList<AID>) parameters[2];
-		disabledBays = (ArrayList<AID>) parameters[3];
-		electricBays = (ArrayList<AID>) parameters[4];
-		duration = newDuration(Integer.parseInt(parameters[5].toString()), Integer.parseInt(parameters[6].toString()));
-		type = isDisabled(Double.parseDouble(parameters[8].toString()));
-		
-		// If type is still normal after disability chance, check electric chance
-		if (type == "N") {
-			type = isEv(Double.parseDouble(parameters[7].toString())); 
-		}
-			
-		makeModel = newMakeModel(this.type);
-		fuelEconomy = generateFuelEconomy(this.makeModel); 
-		carbonDioxideEmissions = generateCarbonDioxideEmissions(this.makeModel);
-		queue = (ArrayList<String>) parameters[9];
-		modelSpeed = (int) parameters[10];
-		algorithm = (String) parameters[11];
-		
-		// Update the total number of cars created
-		data.updateCarsCreated();
-		
-		// On creation, create directory of parking bay agents and attempt to park
-		addBehaviour(new OneShotBehaviour(this) {
-            public void action() {
-            	name = myAgent.getName();
-            	
-            	// Update array of parkingBayAgents
-                DFAgentDescription template = new DFAgentDescription();
-                ServiceDescription sd = new ServiceDescription();
-                
-                sd.setType("parkingBay");
-                
-                template.addServices(sd);
-                
-                // Try to add parking bay agents to array
-                try {
-                    DFAgentDescription[] result = DFService.search(myAgent, template);
-                    
-                    parkingBayAgents = new AID[result.length];
-                    
-                    for (int i = 0; i < result.length; ++i) {
-                    	parkingBayAgents[i] = result[i].getName();
-                    }
-                } catch (FIPAException fe) {
-                    fe.printStackTrace();
-                }
-            }
-        });
-		
-		// Every set interval, if the car isn't parked and it's at the front of the queue attempt to park
-		addBehaviour(new TickerBehaviour(this, modelSpeed) {
-			protected void onTick() {
-				if (!parked) {
-					if (queue.size() > 0) {
-						if (name.equals(queue.get(0))) {
-			                // Attempt to park
-			                myAgent.addBehaviour(new AttemptToPark());
-						} else {
-							// If not at the front of the queue, update average time in queue
-							data.updateQueueDuration(modelSpeed);
-						}
-					}
-				}
-			}
-		});
-		
-		// On creation, tick through duration if parked and kill agent if duration = 0
-		addBehaviour(new TickerBehaviour(this, durationTick) {
-			protected void onTick() {
-				// Agent is parked so reduce duration
-				if (parked) {
-					// Duration reduced by 10 each tick
-					duration = duration - 10;
-				}
-				
-				// Duration is up so kill agent
-				if (duration == 0) {
-					// Tell the agent to leave the carpark
-					myAgent.addBehaviour(new LeaveCarpark());
-				}
-			}
-		});
-	}
-	
-	/**
-	 * 
-	 * Generate new duration between given min and max duration
-	 * 
-	 * @param int min [The minimum duration the car can be parked for]
-	 * @param int max [The maximum duration the car can be parked for]
-	 * @return int duration [The duration the car is looking to park for]
-	 */
-	protected int newDuration(int min, int max) {
-		Random rand = new Random();
-		
-		// Divide by 10 to ensure the number will be a multiple of 10
-		min = min / 10;
-		max = max / 10;
-		
-		// Duration is a new random number between min and max multiple by 10
-		int duration = (rand.nextInt(max)+min)*10;
-		
-		return duration;
-	}
-	
-	/**
-	 * 
-	 * Generate whether or not the agent requires disabled parking
-	 * 
-	 * @param double percent [The likelihood the driver requires disabled parking]
-	 * @return String disabled [The character representation of the vehicle type i.e. D or N]
-	 */
-	protected String isDisabled(Double percent) {
-		// Create new random
-		Random rand = new Random();
-		
-		boolean disabled = false;
-		
-		// Divide by 100 to get a number between 0 and 1
-		percent = percent / 100;
-		
-		// If the next random number between 0 and 1 is less than the percent likelihood of being disabled, the driver requires disabled parking
-		if (rand.nextDouble() <= percent) {
-			disabled = true;
-		}
-		
-		return disabled ? "D" : "N";
-	}
-	
-	/**
-	 * 
-	 * Generate whether or not the agent is an electric vehicle
-	 * 
-	 * @param double percent [The likelihood the driver requires electric parking]
-	 * @return String ev [The character representation of the vehicle type i.e. E or N]
-	 */
-	protected String isEv(Double percent) {
-		// Create new random
-		Random rand = new Random();
-		
-		boolean ev = false;
-		
-		// Divide by 100 to get a number between 0 and 1
-		percent = percent / 100;
-		
-		// If the next random number between 0 and 1 is less than the percent likelihood of being electric, the driver requires electric parking
-		if (rand.nextDouble() <= percent) {
-			ev = true;
-		}
-		
-		return ev ? "E" : "N";
-	}
-	
-	/**
-	 * 
-	 * Generate the make and model of the agent 
-	 * Likelihoods adapted from data by Statista: https://www.statista.com/statistics/299018/car-models-which-sold-the-most-in-the-united-kingdom/
-	 * 
-	 * @param String type [The vehicle type]
-	 * @return String [The make and model of the vehicle]
-	 */
-	protected String newMakeModel(String type) {
-		// If the vehicle is electric, return early
-		if (type == "E") {
-			return "EV";
-		}
-		
-		// Create new random
-		Random rand = new Random();
-		
-		// Get new random number between 0 and 1
-		double percent = rand.nextDouble();
-		
-		// 15.3% chance of being a Ford Fiesta
-		if (percent <= 0.153) {
-			return "Ford Fiesta";
-		}
-		
-		// 11.6% chance of being a Volkswagen Golf
-		if (percent <= 0.269) {
-			return "Volkswagen Golf";
-		}
-		
-		// 11.13% chance of being a Ford Focus
-		if (percent <= 0.3803) {
-			return "Ford Focus";
-		}
-		
-		// 10.66% chance of being a Vauxhall Corsa
-		if (percent <= 0.4869) {
-			return "Vauxhall Corsa";
-		}
-		
-		// 10.56% chance of being a Mercedes A-Class
-		if (percent <= 0.5925) {
-			return "Mercedes A-Class";
-		}
-		
-		// 10.33% chance of being a Nissan Qashqai
-		if (percent <= 0.6958) {
-			return "Nissan Qashqai";
-		}
-		
-		// 8.19% chance of being a Ford Kuga
-		if (percent <= 0.7777) {
-			return "Ford Kuga";
-		}
-		
-		// 8.1% chance of being a Mini
-		if (percent <= 0.8587) {
-			return "MINI";
-		}
-		
-		// 7.36% chance of being a Volkswagen Polo
-		if (percent <= 0.9323) {
-			return "Volkswagen Polo";
-		}
-		
-		// ~6.78% chance of being a Kia Sportage
-		if (percent <= 1.0) {
-			return "Kia Sportage";
-		}
-		
-		return "EV";
-	}
- 
-	/**
-	 * 
-	 * Generate random fuel economy using real life mpg statistics provided by Fleet News - source: https://www.fleetnews.co.uk/cars/Car-CO2-and-fuel-economy-mpg-figures
-	 * Random double between doubles adapted from: https://stackoverflow.com/questions/28786856/java-get-random-double-between-two-doubles/28786888
-	 * Accessed: 22/07/2020
-	 * 
-	 * @param String makeModel [The make and model of the vehicle]
-	 * @return int mpg [The miles per gallon of the vehicle]
-	 */
-	protected double generateFuelEconomy(String makeModel) {
-		// Create new random
-		Random rand = new Random();
-		
-		// Create variables
-		double mpg = 0.0;
-		double minMpg = 0.0;
-		double maxMpg = 0.0;
-		
-		// Switch between the possible make and models
-		switch(makeModel) {
-			case "Ford Fiesta":
-				minMpg = 40.4;
-				maxMpg = 65.7;
-				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
-				break;
-			case "Volkswagen Golf":
-				minMpg = 32.8;
-				maxMpg = 68.9;
-				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
-				break;
-			case "Ford Focus":
-				minMpg = 34.4;
-				maxMpg = 62.8;
-				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
-				break;
-			case "Vauxhall Corsa":
-				minMpg = 48.7;
-				maxMpg = 70.6;
-				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
-				break;
-			case "Mercedes A-Class":
-				minMpg = 31.4;
-				maxMpg = 62.8;
-				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
-				break;
-			case "Nissan Qashqai":
-				minMpg = 39.8;
-				maxMpg = 53.3;
-				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
-				break;
-			case "Ford Kuga":
-				minMpg = 41.5;
-				maxMpg = 56.5;
-				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
-				break;
-			case "MINI":
-				minMpg = 34.0;
-				maxMpg = 48.7;
-				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
-				break;
-			case "Volkswagen Polo":
-				minMpg = 39.8;
-				maxMpg = 57.6;
-				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
-				break;
-			case "Kia Sportage":
-				minMpg = 32.1;
-				maxMpg = 53.3;
-				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
-				break;
-			default:
-				// hit if vehicle is electric at which point mpg is 0
-				break;
-		}
-		
-		// Return rounded number for ease
-		return (int) Math.round(mpg);
-	}
-	
-	/**
-	 * 
-	 * Generate random CO2 emissions using real life CO2 statistics provided by Fleet News - source: https://www.fleetnews.co.uk/cars/Car-CO2-and-fuel-economy-mpg-figures
-	 * Random double between doubles adapted from: https://stackoverflow.com/questions/28786856/java-get-random-double-between-two-doubles/28786888
-	 * Accessed: 22/07/2020
-	 * 
-	 * @param String makeModel [The make and model of the vehicle]
-	 * @return int CO2 [The carbon emissions the vehicle produces per kilometre]
-	 */
-	protected double generateCarbonDioxideEmissions(String makeModel) {
-		// Create new random
-		Random rand = new Random();
-
-		// Create variables
-		double CO2 = 0.0;
-		double minCO2 = 0.0;
-		double maxCO2 = 0.0;
-		
-		// Switch between the make and model
-		switch(makeModel) {
-			case "Ford Fiesta":
-				minCO2 = 112.0;
-				maxCO2 = 158.0;
-				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
-				break;
-			case "Volkswagen Golf":
-				minCO2 = 107.0;
-				maxCO2 = 195.0;
-				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
-				break;
-			case "Ford Focus":
-				minCO2 = 117.0;
-				maxCO2 = 188.0;
-				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
-				break;
-			case "Vauxhall Corsa":
-				minCO2 = 108.0;
-				maxCO2 = 134.0;
-				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
-				break;
-			case "Mercedes A-Class":
-				minCO2 = 117.0;
-				maxCO2 = 207.0;
-				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
-				break;
-			case "Nissan Qashqai":
-				minCO2 = 131.0;
-				maxCO2 = 182.0;
-				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
-				break;
-			case "Ford Kuga":
-				minCO2 = 132.0;
-				maxCO2 = 161.0;
-				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
-				break;
-			case "MINI":
-				minCO2 = 131.0;
-				maxCO2 = 189.0;
-				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
-				break;
-			case "Volkswagen Polo":
-				minCO2 = 124.0;
-				maxCO2 = 160.0;
-				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
-				break;
-			case "Kia Sportage":
-				minCO2 = 138.0;
-				maxCO2 = 201.0;
-				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
-				break;
-			default:
-				// hit if vehicle is electric at which point CO2 emissions are 0
-				break;
-		}
-		
-		// Return rounded number for ease
-		return (int) Math.round(CO2);
-	}
-	
-	// Agent termination
-    protected void takeDown() {
-    	// Decrement the used capacity of the carpark
-        data.updateUsedCapacity(true);
-    }
-    
-    /**
-     * 
-     * Attempt to park the newly create agent
-     * Step.1 - Contact all known parking bay agents with a proposal
-     * Step.2 - Find the best space
-     * Step.3 - Propose parking
-     * Step.4 - Park / Repeat if space not available
-     * 
-     */
-    private class AttemptToPark extends Behaviour {
-    	private AID space; // The space offered
-        private int distance;  // The distance offered
-        private int replies = 0; // The number of replies from ParkingBay agents
-        private MessageTemplate mt; // The template to receive replies
-        private int step = 0;
-        private boolean typeFlag = true;
-        private int length = 0;
-
-		public void action() {
-            // Create content object parameters
-            CarSpecification params = new CarSpecification();
-            params.setNumberPlate(numberPlate);
-            params.setType(type);
-            params.setMpg(fuelEconomy);
-            params.setCarbonEmissions(carbonDioxideEmissions);
-            
-            // Create a sequence of steps to represent communication
-            switch (step) {
-	            case 0:	            	
-	                // Create call for proposal
-	                ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
-	                
-	                // If we are looking to match car type
-	                if (typeFlag) {
-	                	if (type.equals("D")) {
-		                	for (int i = 0; i < disabledBays.size(); ++i) {
-			                    cfp.addReceiver(disabledBays.get(i));
-			                }
-		                	
-		                	length = disabledBays.size();
-	                	} else if (type.equals("E")) {
-	                		for (int i = 0; i < electricBays.size(); ++i) {
-			                    cfp.addReceiver(electricBays.get(i));
-			                }
-	                		
-	                		length = electricBays.size();
-	                	} else {
-	                		for (int i = 0; i < normalBays.size(); ++i) {
-			                    cfp.addReceiver(normalBays.get(i));
-			                }
-	                		
-	                		length = normalBays.size();
-	                	}
-	                } else {
-	                	// No parking bays match our desired type
-		                // So send call for proposal to all normal parking bay agents
-		                for (int i = 0; i < normalBays.size(); ++i) {
-		                    cfp.addReceiver(normalBays.get(i));
-		                }
-		                
-		                length = normalBays.size();
-	                }
-	                
-	                // Set the proposal's content
-	                cfp.setContent(numberPlate);
-	                
-	                // Attempt to set the proposal's content object
-					try {
-						cfp.setContentObject(params);
-					} catch (IOException e) {
-						// TODO Auto-generated catch block
-						e.printStackTrace();
-					}
-					
-					// Set the proposal's conversation id
-	                cfp.setConversationId("request-park-car");
-	                
-	                // Set the proposal's reply
-	                cfp.setReplyWith("cfp" + System.currentTimeMillis());
-	                
-	                // Send the proposal
-	                myAgent.send(cfp);
-	                
-	                // Prepare the template to get proposals
-	                mt = MessageTemplate.and(MessageTemplate.MatchConversationId("request-park-car"), MessageTemplate.MatchInReplyTo(cfp.getReplyWith()));
-	                
-	                // Proceed to the next step
-	                step = 1;
-	                
-	                break;
-	            case 1:
-	                // Get all responses from parking bays
-	                ACLMessage reply = myAgent.receive(mt);
-	                
-	                // If valid reply
-	                if (reply != null) {
-	                    // If reply is a proposal
-	                    if (reply.getPerformative() == ACLMessage.PROPOSE) {
-	                        // Store proposed distance
-	                        int value = Integer.parseInt(reply.getContent());
-	                        
-	                        // Switch between the possible algorithms
-	                        switch (algorithm) {
-	                        	// Optimised efficiency - aims to reduce total emissions and fuel usage
-	                        	case "Optimised Efficiency":
-			                        // If car is electric or has high fuel economy and low emissions, go for farthest distance, else go for closest
-			                        if (type == "E" || (fuelEconomy >= 60 && carbonDioxideEmissions <= 150)) {
-			                        	// If best offer is null or proposed distance is greater than best distance, update placeholders
-				                        if (space == null || value > distance) {
-				                        	distance = value;
-				                            space = reply.getSender();
-				                        }
-			                        } else {
-				                        // If best offer is null or proposed distance is less than best distance, update placeholders
-				                        if (space == null || value < distance) {
-				                        	distance = value;
-				                            space = reply.getSender();
-				                        }
-			                        }
-			                        
-			                        break;
-			                    // First Come First Served - aims to park all cars as close as possible to entrance in their desired space type
-	                        	case "First Come First Served":
-	                        		// If best offer is null or proposed distance is less than best distance, update placeholders
-	                        		if (space == null || value < distance) {
-	                        			distance = value;
-			                            space = reply.getSender();
-			                        }
-	                        		
-	                        		break;
-	                        }
-	                    }
-	                    
-	                    // Increment reply count
-	                    replies++;
-	                    
-	                    // If total replies is greater than or equal to the number of associated parking bay agents, all replies have been received
-	                    if (replies >= length) {
-	                    	// If no space was found and type flag was passed, start again with no space preference
-	                    	if (typeFlag == true && space == null) {
-	                    		typeFlag = false;
-	                    		step = 0;
-	                    	} else {
-	                    		// Proceed to the next step
-	                    		step = 2;
-	                    	}
-	                    }
-	                } else {
-	                	// Otherwise block response
-	                    block();
-	                }
-	                
-	                break;
-	            case 2:
-	                // Send the parking request to the parking bay that provided the best offer
-	                ACLMessage order = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
-	                
-	                order.addReceiver(space);
-	                order.setContent(numberPlate);
-	                order.setConversationId("park-car");
-	                order.setReplyWith("order"+System.currentTimeMillis());
-	                
-	                // Attempt to set the proposal's content object
-					try {
-						order.setContentObject(params);
-					} catch (IOException e) {
-						// TODO Auto-generated catch block
-						e.printStackTrace();
-					}
-	                
-	                myAgent.send(order);
-	                
-	                // Prepare the template to get the parking bay reply
-	                mt = MessageTemplate.and(MessageTemplate.MatchConversationId("park-car"), MessageTemplate.MatchInReplyTo(order.getReplyWith()));
-	                
-	                step = 3;
-	                
-	                break;
-	            case 3:
-	                // Receive the parking bay reply
-	                reply = myAgent.receive(mt);
-	                
-	                if (reply != null) {
-	                    // Parking bay reply received
-	                    if (reply.getPerformative() == ACLMessage.INFORM) {
-	                        parked = true;
-	                        queue.remove(name);
-	                        currentSpace = space;
-	                    }
-	
-	                    step = 4;
-	                } else {
-	                    block();
-	                }
-	                
-	                break;
-	           }
-        }
-        
-		// Check whether or not sequence is complete
-        public boolean done() {  
-        	// If step = 2 and space is null, don't progress
-        	// If step = 4 car is parked
-        	return ((step == 2 && space == null) || step == 4);
-        }
-    }
-    
-    /**
-     * 
-     * Called when parking duration is up.
-     * Attempts to free up the space the agent was occupying.
-     * 
-     */
-    private class LeaveCarpark extends Behaviour {
-		private MessageTemplate mt; // The template to receive replies
-		private int step = 0;
-		private ACLMessage reply;
-		
-    	public void action() {	
-    		// Create a sequence of steps to represent communication
-    		switch (step) {
-    			case 0:
-    				// Send the request to the parking bay
-	                ACLMessage inform = new ACLMessage(ACLMessage.INFORM);
-	                
-	                inform.addReceiver(currentSpace);
-	                inform.setContent(numberPlate);
-	                inform.setConversationId("free-up-space");
-	                inform.setReplyWith("inform"+System.currentTimeMillis());
-	                
-	                myAgent.send(inform);
-	                
-	                // Prepare the template to get the parking bay reply
-	                mt = MessageTemplate.and(MessageTemplate.MatchConversationId("free-up-space"), MessageTemplate.MatchInReplyTo(inform.getReplyWith()));
-	                
-	                step = 1;
-	                
-    				break;
-    			case 1:
-    				// Receive the reply
-					reply = myAgent.receive(mt);
-	                
-					// If reply has been received
-	                if (reply != null) {
-	                	// Delete agent
-	                    myAgent.doDelete();
-
-	                    step = 2;
-	                } else {
-	                    block();
-	                }
-	                
-	                break;
-    		}
-    	}
-
-    	// Check whether or not sequence is complete
-		public boolean done() {
-			if (step == 2) {
-				return true;
-			}
-			
-			return false;
-		}
-    }
+/**
+  * Car agent that represents a car and driver in the simulation.
+  * Communicates with parking bay agents in order to negotiate parking.
+  * Has a random type and car specification based on representative real world data.
+  * 
+  * Amended from JADE tutorial examples:
+  *	Accessed 17/08/2020
+  *	https://jade.tilab.com/doc/tutorials/JADEProgramming-Tutorial-for-beginners.pdf
+  *	https://github.com/jason-lang/jason/tree/master/doc/tutorials/jason-jade/jade-example/examples/bookTrading
+  *
+**/
+
+import jade.core.Agent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import jade.core.AID;
+import jade.core.behaviours.*;
+import jade.lang.acl.*;
+import jade.wrapper.*;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.*;
+
+public class CarAgent extends Agent {
+	
+	// Instance Variables
+	String numberPlate; // identifier of the vehicle
+	int duration; // duration the car is parked for in min
+	String makeModel = ""; // the make and model of the car
+	String type = "N"; // type of car
+	double fuelEconomy; // miles per gallon of the car
+	double carbonDioxideEmissions; // the co2 emissions produced grams per km (g/km)
+	private ArrayList<ArrayList<AID>> normalBays; // normal parking bays of each region
+	private ArrayList<ArrayList<AID>> disabledBays; // disabled parking bays of each region
+	private ArrayList<ArrayList<AID>> electricBays; // electric parking bays of each region
+	private AID currentSpace;
+	boolean parked = false;
+	private Analytics data;
+	private AID carpark; // the carpark agent managing the queue
+	private int modelSpeed;
+	private boolean farthest; // whether the algorithm being used wants the car parked as far from the entrance as possible
+	private Scenario scenario;
+	private long plate; // number plate packed for the journal
+	private long arrivalTime; // when the car joined the queue
+	private long parkedTime; // when the car parked
+	private long callTime; // when the car last called for proposals
+	private long acceptTime; // when the car accepted a proposal
+	private int accepting = 0; // proposals accepted that the parking bay hasn't answered yet
+	private CarparkOccupancy occupancy; // which parking bays in the carpark are occupied
+	private CarparkLayout layout; // which region each parking bay is in
+	private AID[] bayAgents; // the agent of each parking bay by its index in the layout
+	private CarSpecification specification; // the details sent to the parking bays, the same in every message
+	private byte[] content; // the car specification once serialised, null until the first message
+	private AttemptToPark attempt; // the negotiation in progress, null if none has started
+	
+	// Keys replies to each conversation are matched on, built once from the name of the car, which is unique
+	private String cfpId;
+	private String orderId;
+	private String informId;
+	
+	// Templates to receive the replies to each conversation, built once as the car only has one of each in progress at a time
+	private MessageTemplate proposals;
+	private MessageTemplate confirmation;
+	private MessageTemplate freed;
+	private MessageTemplate leave;
+	private CarTrace trace; // null if car timelines are disabled
+	
+	// Agent creation
+	protected void setup() {
+		// Get all variables passed through on creation
+		Object[] parameters = getArguments();
+		
+		// Setup the car agent
+		Arrival arrival = (Arrival) parameters[0];
+		
+		numberPlate = arrival.getNumberPlate();
+		data = (Analytics) parameters[1];
+		scenario = (Scenario) parameters[2];
+		normalBays = (ArrayList<ArrayList<AID>>) parameters[3];
+		disabledBays = (ArrayList<ArrayList<AID>>) parameters[4];
+		electricBays = (ArrayList<ArrayList<AID>>) parameters[5];
+		duration = arrival.getDuration();
+		type = arrival.getType();
+		makeModel = arrival.getMakeModel();
+		fuelEconomy = arrival.getMpg(); 
+		carbonDioxideEmissions = arrival.getCarbonEmissions();
+		carpark = (AID) parameters[6];
+		trace = (CarTrace) parameters[7];
+		arrivalTime = (Long) parameters[8];
+		occupancy = (CarparkOccupancy) parameters[9];
+		layout = (CarparkLayout) parameters[10];
+		bayAgents = (AID[]) parameters[11];
+		modelSpeed = scenario.getModelSpeed();
+		farthest = scenario.getStrategy().prefersFarthest(type, fuelEconomy, carbonDioxideEmissions);
+		
+		// Pack the number plate once for the journal
+		plate = EventJournal.packPlate(numberPlate);
+		
+		// Describe the car once for every message to the parking bays
+		specification = new CarSpecification();
+		specification.setNumberPlate(numberPlate);
+		specification.setType(type);
+		specification.setMpg(fuelEconomy);
+		specification.setCarbonEmissions(carbonDioxideEmissions);
+		
+		// Replies are matched by conversation and the name of the car, which is unique
+		cfpId = "cfp-" + getLocalName();
+		orderId = "order-" + getLocalName();
+		informId = "inform-" + getLocalName();
+		proposals = MessageTemplate.and(MessageTemplate.MatchConversationId("request-park-car"), MessageTemplate.MatchInReplyTo(cfpId));
+		confirmation = MessageTemplate.and(MessageTemplate.MatchConversationId("park-car"), MessageTemplate.MatchInReplyTo(orderId));
+		freed = MessageTemplate.and(MessageTemplate.MatchConversationId("free-up-space"), MessageTemplate.MatchInReplyTo(informId));
+		leave = MessageTemplate.MatchConversationId("leave-carpark");
+		
+		// The carpark only creates the car once it reaches the front of the queue
+		data.journal(EventJournal.HEAD_OF_QUEUE, plate, (int) (System.currentTimeMillis() - arrivalTime), 0);
+		
+		if (trace != null) {
+			trace.head();
+		}
+		
+		data.addAgent(this);
+		
+		// Every set interval, if the car isn't parked attempt to park
+		addBehaviour(new TickerBehaviour(this, modelSpeed) {
+			protected void onTick() {
+				if (!parked) {
+					// Queued too long, so give up unless a parking bay is about to answer
+					if (accepting == 0 && scenario.reneges(System.currentTimeMillis() - arrivalTime)) {
+						renege();
+					} else if ((attempt == null || attempt.done()) && occupancy.hasSpaceFor(type)) {
+		                // Attempt to park, only if there is a parking bay free to ask and the last attempt is over
+						attempt = new AttemptToPark();
+		                myAgent.addBehaviour(attempt);
+					}
+				}
+			}
+		});
+		
+		// Leave when the carpark says the duration is up
+		addBehaviour(new CyclicBehaviour(this) {
+			public void action() {
+				ACLMessage msg = myAgent.receive(leave);
+				
+				if (msg != null) {
+					myAgent.addBehaviour(new LeaveCarpark());
+				} else {
+					block();
+				}
+			}
+		});
+	}
+	
+	// Give up queueing, tell the carpark to let the next car through and leave
+	private void renege() {
+		data.increaseCarsReneged();
+		data.journal(EventJournal.RENEGE, plate, (int) (System.currentTimeMillis() - arrivalTime), 0);
+		
+		if (trace != null) {
+			trace.record(CarTrace.LEFT, 0, false);
+		}
+		
+		ACLMessage reneged = new ACLMessage(ACLMessage.INFORM);
+		
+		reneged.addReceiver(carpark);
+		reneged.setContent(numberPlate);
+		reneged.setConversationId("car-reneged");
+		send(reneged);
+		
+		doDelete();
+	}
+	
+	// Agent termination
+    protected void takeDown() {
+    	// Decrement the used capacity of the carpark, if the car parked
+    	if (parked) {
+    		data.updateUsedCapacity(true);
+    	}
+    	
+        data.removeAgent(this);
+        
+        // Add the car to the timeline
+        data.exportTrace(trace);
+    }
+    
+    /**
+     * 
+     * Attempt to park the newly create agent
+     * Step.1 - Contact all known parking bay agents with a proposal
+     * Step.2 - Find the best space
+     * Step.3 - Propose parking
+     * Step.4 - Park / Repeat if space not available
+     * Package-private so the negotiation can be benchmarked on a car that isn't started
+     * 
+     */
+    class AttemptToPark extends Behaviour {
+    	private AID space; // The space offered
+    	private int offered = -1; // The index of the space offered
+        private int distance;  // The distance offered
+        private int replies = 0; // The number of replies from ParkingBay agents
+        private MessageTemplate mt; // The template to receive replies
+        private int step = 0;
+        private boolean typeFlag = true;
+        private boolean regional = false; // whether the last call only asked the region holding the best free parking bay
+        private int length = 0;
+
+		public void action() {
+			// Time this step for the flight recorder, if a recording wants it
+			ParkingEvents.AttemptToPark event = ParkingEvents.beginAttemptToPark();
+			int current = step;
+			boolean waiting = false;
+			
+            // Create a sequence of steps to represent communication
+            switch (step) {
+	            case 0:	            	
+	                // Create call for proposal
+	                ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+	                
+	                // If we are looking to match car type ask the parking bays of that type,
+	                // otherwise no parking bays match our desired type, so ask the normal parking bays
+	                String bayType = typeFlag ? type : "N";
+	                ArrayList<ArrayList<AID>> bays = typeFlag ? baysOf(type) : normalBays;
+	                
+	                // Only ask the region holding the best free parking bay, which will propose it, so other regions' containers aren't involved
+	                int best = bays.size() > 1 ? occupancy.findFree(bayType, farthest) : -1;
+	                ArrayList<AID> region = best < 0 ? null : bays.get(layout.getRegion(best, bays.size()));
+	                
+	                regional = region != null && !region.isEmpty();
+	                length = 0;
+	                replies = 0;
+	                
+	                for (ArrayList<AID> candidates : bays) {
+	                	// Ask every region if it isn't known which holds the best, or its parking bays haven't been found yet
+	                	if (region == null || region.isEmpty() || candidates == region) {
+	                		for (int i = 0; i < candidates.size(); ++i) {
+	                			cfp.addReceiver(candidates.get(i));
+	                		}
+	                		
+	                		length = length + candidates.size();
+	                	}
+	                }
+	                
+	                // Attempt to set the proposal's content object, the car specification holds the number plate
+					try {
+						setContentObject(cfp);
+					} catch (IOException e) {
+						// TODO Auto-generated catch block
+						e.printStackTrace();
+					}
+					
+					// Set the proposal's conversation id
+	                cfp.setConversationId("request-park-car");
+	                
+	                // Set the proposal's reply
+	                cfp.setReplyWith(cfpId);
+	                
+	                // Say where the car wants to park, so bay groups don't have to read the car specification
+	                cfp.addUserDefinedParameter(ParkingBayAgent.FARTHEST, farthest ? "true" : "false");
+	                
+	                // Send the proposal
+	                myAgent.send(cfp);
+	                
+	                // Record the call for proposal, timing the negotiation from the first call
+	                if (typeFlag) {
+	                	callTime = System.currentTimeMillis();
+	                }
+	                
+	                data.journal(EventJournal.CFP, plate, length, typeFlag ? 1 : 0);
+	                
+	                if (trace != null) {
+	                	trace.record(CarTrace.CFP, length, typeFlag);
+	                }
+	                
+	                // Prepare the template to get proposals
+	                mt = proposals;
+	                
+	                // Proceed to the next step
+	                step = 1;
+	                
+	                break;
+	            case 1:
+	                // Get all responses from parking bays
+	                ACLMessage reply = myAgent.receive(mt);
+	                
+	                // If valid reply
+	                if (reply != null) {
+	                    // If reply is a proposal
+	                    if (reply.getPerformative() == ACLMessage.PROPOSE) {
+	                        // Store which parking bay is proposed and its distance, a bay group proposes one of its parking bays
+	                        // The distance is read from the layout, as reading the content of a message copies it into a new string
+	                        int proposed = Integer.parseInt(reply.getUserDefinedParameter(ParkingBayAgent.BAY));
+	                        int value = layout.getDistance(proposed);
+	                        
+	                        // Record the proposal
+	                        data.journal(EventJournal.PROPOSAL, plate, value, proposed);
+	                        
+	                        // If best offer is null or proposed distance is better than best distance for the algorithm being used, update placeholders
+	                        if (space == null || AllocationStrategy.isBetter(value, distance, farthest)) {
+	                        	distance = value;
+	                        	offered = proposed;
+	                            space = bayAgents[proposed];
+	                        }
+	                    }
+	                    
+	                    // Increment reply count
+	                    replies++;
+	                    
+	                    // If total replies is greater than or equal to the number of associated parking bay agents, all replies have been received
+	                    if (replies >= length) {
+	                    	// If no space was found and type flag was passed, start again with no space preference,
+	                    	// unless another car took the best parking bay first and its type is still free in another region, then ask that region
+	                    	if (typeFlag == true && space == null) {
+	                    		typeFlag = regional && occupancy.getFree(type) > 0;
+	                    		step = 0;
+	                    	} else {
+	                    		// Proceed to the next step
+	                    		step = 2;
+	                    		
+	                    		// Negotiation is over whether or not a space was found
+	                    		data.recordNegotiation(System.currentTimeMillis() - callTime);
+	                    		
+	                    		if (trace != null && space == null) {
+	                    			trace.record(CarTrace.NO_SPACE, 0, false);
+	                    		}
+	                    	}
+	                    }
+	                } else {
+	                	// Otherwise block response
+	                	waiting = true;
+	                    block();
+	                }
+	                
+	                break;
+	            case 2:
+	                // Send the parking request to the parking bay that provided the best offer
+	                ACLMessage order = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
+	                
+	                order.addReceiver(space);
+	                order.setConversationId("park-car");
+	                order.setReplyWith(orderId);
+	                
+	                // Attempt to set the proposal's content object
+					try {
+						setContentObject(order);
+					} catch (IOException e) {
+						// TODO Auto-generated catch block
+						e.printStackTrace();
+					}
+	                
+	                myAgent.send(order);
+	                accepting++;
+	                
+	                // Record accepting the proposal
+	                acceptTime = System.currentTimeMillis();
+	                data.journal(EventJournal.ACCEPT, plate, distance, offered);
+	                
+	                if (trace != null) {
+	                	trace.record(CarTrace.ACCEPTED, distance, false);
+	                }
+	                
+	                // Prepare the template to get the parking bay reply
+	                mt = confirmation;
+	                
+	                step = 3;
+	                
+	                break;
+	            case 3:
+	                // Receive the parking bay reply
+	                reply = myAgent.receive(mt);
+	                
+	                if (reply != null) {
+	                	accepting--;
+	                	
+	                    // Parking bay reply received
+	                    if (reply.getPerformative() == ACLMessage.INFORM) {
+	                        parked = true;
+	                        currentSpace = space;
+	                        
+	                        // Tell the carpark the car has left the queue so the next car can be let in, and how long it is staying
+	                        ACLMessage entered = new ACLMessage(ACLMessage.INFORM);
+	                        
+	                        entered.addReceiver(carpark);
+	                        entered.setContent(Integer.toString(duration));
+	                        entered.setConversationId("car-parked");
+	                        myAgent.send(entered);
+	                        
+	                        // Record parking
+	                        parkedTime = System.currentTimeMillis();
+	                        data.journal(EventJournal.PARK, plate, distance, offered);
+	                        data.recordConfirmation(parkedTime - acceptTime);
+	                        data.recordQueueWait(parkedTime - arrivalTime);
+	                        
+	                        if (trace != null) {
+	                        	trace.record(CarTrace.PARKED, distance, false);
+	                        }
+	                    }
+	
+	                    step = 4;
+	                } else {
+	                	waiting = true;
+	                    block();
+	                }
+	                
+	                break;
+	           }
+            
+            // Record the step, unless it was only waiting for a reply
+            if (!waiting && event != null && event.shouldCommit()) {
+            	event.car = numberPlate;
+            	event.step = current;
+            	event.typed = typeFlag;
+            	event.bays = length;
+            	event.commit();
+            }
+        }
+        
+		/**
+		 * 
+		 * Get the parking bays of each region that match a type of car
+		 * 
+		 * @param String carType [The type of the car i.e. N, D or E]
+		 * @return ArrayList<ArrayList<AID>> [The parking bays of each region]
+		 */
+		private ArrayList<ArrayList<AID>> baysOf(String carType) {
+			if (carType.equals("D")) {
+				return disabledBays;
+			} else if (carType.equals("E")) {
+				return electricBays;
+			}
+			
+			return normalBays;
+		}
+		
+		/**
+		 * 
+		 * Serialise the car specification into a message
+		 * The car specification never changes, so it is only serialised for the first message and the bytes are reused after
+		 * 
+		 * @param ACLMessage message [The message to send]
+		 * @throws IOException [If the car specification can't be serialised]
+		 */
+		private void setContentObject(ACLMessage message) throws IOException {
+			if (content != null) {
+				message.setByteSequenceContent(content);
+				return;
+			}
+			
+			ParkingEvents.Content event = ParkingEvents.beginContent();
+			
+			message.setContentObject(specification);
+			content = message.getByteSequenceContent();
+			
+			if (event != null) {
+				event.agent = numberPlate;
+				event.serialise = true;
+				event.commit();
+			}
+		}
+		
+		// Check whether or not sequence is complete
+        public boolean done() {  
+        	// If step = 2 and space is null, don't progress
+        	// If step = 4 car is parked
+        	return ((step == 2 && space == null) || step == 4);
+        }
+    }
+    
+    /**
+     * 
+     * Called when parking duration is up.
+     * Attempts to free up the space the agent was occupying.
+     * 
+     */
+    private class LeaveCarpark extends Behaviour {
+		private MessageTemplate mt; // The template to receive replies
+		private int step = 0;
+		private ACLMessage reply;
+		
+    	public void action() {	
+    		// Create a sequence of steps to represent communication
+    		switch (step) {
+    			case 0:
+    				// Send the request to the parking bay
+	                ACLMessage inform = new ACLMessage(ACLMessage.INFORM);
+	                
+	                inform.addReceiver(currentSpace);
+	                inform.setContent(numberPlate);
+	                inform.setConversationId("free-up-space");
+	                inform.setReplyWith(informId);
+	                
+	                myAgent.send(inform);
+	                
+	                // Prepare the template to get the parking bay reply
+	                mt = freed;
+	                
+	                step = 1;
+	                
+    				break;
+    			case 1:
+    				// Receive the reply
+					reply = myAgent.receive(mt);
+	                
+					// If reply has been received
+	                if (reply != null) {
+	                	// Record leaving
+	                	long dwellTime = System.currentTimeMillis() - parkedTime;
+	                	
+	                	data.journal(EventJournal.DEPART, plate, (int) dwellTime, 0);
+	                	data.recordDwell(dwellTime);
+	                	
+	                	if (trace != null) {
+	                		trace.record(CarTrace.LEFT, 0, false);
+	                	}
+	                	
+	                	// Delete agent
+	                    myAgent.doDelete();
+
+	                    step = 2;
+	                } else {
+	                    block();
+	                }
+	                
+	                break;
+    		}
+    	}
+
+    	// Check whether or not sequence is complete
+		public boolean done() {
+			if (step == 2) {
+				return true;
+			}
+			
+			return false;
+		}
+    }
 }
\ No newline at end of file
@@ -0,0 +1,412 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * 
+ * Generates the details of new cars based on representative real world data.
+ * Shared by every arrival source so that synthetic and recorded arrivals produce cars the same way.
+ * 
+ */
+
+public class CarGenerator {
+	
+	// Array of valid DVLA Memory Tags
+	private static final String[] MEMORY_TAGS = { "AA", "AB", "AC", "AD", "AE", "AF", "AG", "AH", "AJ", "AK", "AL", "AM", "AN", "AO", "AP", "AR", "AS", "AT", "AU", "AV", "AW", "AX", "AY",
+												"BA", "BB", "BC", "BD", "BE", "BF", "BG", "BH", "BJ", "BK", "BL", "BM", "BN", "BO", "BP", "BR", "BS", "BT", "BU", "BV", "BW", "BX", "BY",
+												"CA", "CB", "CC", "CD", "CE", "CF", "CG", "CH", "CJ", "CK", "CL", "CM", "CN", "CO", "CP", "CR", "CS", "CT", "CU", "CV", "CW", "CX", "CY",
+												"DA", "DB", "DC", "DD", "DE", "DF", "DG", "DH", "DJ", "DK", "DL", "DM", "DN", "DO", "DP", "DR", "DS", "DT", "DU", "DV", "DW", "DX", "DY",
+												"EA", "EB", "EC", "ED", "EE", "EF", "EG", "EH", "EJ", "EK", "EL", "EM", "EN", "EO", "EP", "ER", "ES", "ET", "EU", "EV", "EW", "EX", "EY",
+												"FA", "FB", "FC", "FD", "FE", "FF", "FG", "FH", "FJ", "FK", "FL", "FM", "FN", "FO", "FP", "FR", "FS", "FT", "FU", "FV", "FW", "FX", "FY",
+												"GA", "GB", "GC", "GD", "GE", "GF", "GG", "GH", "GJ", "GK", "GL", "GM", "GN", "GO", "GP", "GR", "GS", "GT", "GU", "GV", "GW", "GX", "GY",
+												"HA", "HB", "HC", "HD", "HE", "HF", "HG", "HH", "HJ", "HK", "HL", "HM", "HN", "HO", "HP", "HR", "HS", "HT", "HU", "HV", "HW", "HX", "HY",
+												"KA", "KB", "KC", "KD", "KE", "KF", "KG", "KH", "KJ", "KK", "KL", "KM", "KN", "KO", "KP", "KR", "KS", "KT", "KU", "KV", "KW", "KX", "KY",
+												"LA", "LB", "LC", "LD", "LE", "LF", "LG", "LH", "LJ", "LK", "LL", "LM", "LN", "LO", "LP", "LR", "LS", "LT", "LU", "LV", "LW", "LX", "LY",
+												"MA", "MB", "MC", "MD", "ME", "MF", "MG", "MH", "MJ", "MK", "ML", "MM", "MN", "MO", "MP", "MR", "MS", "MT", "MU", "MV", "MW", "MX", "MY",
+												"NA", "NB", "NC", "ND", "NE", "NF", "NG", "NH", "NJ", "NK", "NL", "NM", "NN", "NO", "NP", "NR", "NS", "NT", "NU", "NV", "NW", "NX", "NY",
+												"OA", "OB", "OC", "OD", "OE", "OF", "OG", "OH", "OJ", "OK", "OL", "OM", "ON", "OO", "OP", "OR", "OS", "OT", "OU", "OV", "OW", "OX", "OY",
+												"PA", "PB", "PC", "PD", "PE", "PF", "PG", "PH", "PJ", "PK", "PL", "PM", "PN", "PO", "PP", "PR", "PS", "PT", "PU", "PV", "PW", "PX", "PY",
+												"RA", "RB", "RC", "RD", "RE", "RF", "RG", "RH", "RJ", "RK", "RL", "RM", "RN", "RO", "RP", "RR", "RS", "RT", "RU", "RV", "RW", "RX", "RY",
+												"SA", "SB", "SC", "SD", "SE", "SF", "SG", "SH", "SJ", "SK", "SL", "SM", "SN", "SO", "SP", "SR", "SS", "ST", "SU", "SV", "SW", "SX", "SY",
+												"VA", "VB", "VC", "VD", "VE", "VF", "VG", "VH", "VJ", "VK", "VL", "VM", "VN", "VO", "VP", "VR", "VS", "VT", "VU", "VV", "VW", "VX", "VY",
+												"WA", "WB", "WC", "WD", "WE", "WF", "WG", "WH", "WJ", "WK", "WL", "WM", "WN", "WO", "WP", "WR", "WS", "WT", "WU", "WV", "WW", "WX", "WY",
+												"YA", "YB", "YC", "YD", "YE", "YF", "YG", "YH", "YJ", "YK", "YL", "YM", "YN", "YO", "YP", "YR", "YS", "YT", "YU", "YV", "YW", "YX", "YY" };
+
+	// Array of valid current DVLA Age Identifiers
+	private static final String[] AGE_IDENTIFIERS = { "02", "03", "04", "05", "06", "07", "08", "09", "10", "11", "12", "13", "14", "15", "16", "17", "18", "19", "20", "51", "52", "53", "54", "55", "56", "57", "58", "59", "60", "61", "62", "63", "64", "65", "66", "67", "68", "69" };
+
+	// Array of upper case alphabet used for random string
+	private static final String[] CHARS = { "A", "B", "C", "D", "E", "F", "G", "H", "I", "J", "K", "L", "M", "N", "0", "P", "Q", "R", "S", "T", "U", "V", "W", "X", "Y", "Z" };
+
+	// Instance Variables
+	private Random rand; // source of randomness for every generated detail
+	private HashSet<String> numberPlates = new HashSet<String>(); // every number plate generated so far
+	
+	/**
+	 * 
+	 * Class Constructor
+	 * 
+	 * @param Random rand [The source of randomness for every generated detail]
+	 */
+	CarGenerator(Random rand) {
+		this.rand = rand;
+	}
+	
+	/**
+	 * 
+	 * Write the random stream and every number plate generated so far to a checkpoint
+	 * 
+	 * @param DataOutputStream out [Where to write]
+	 * @throws IOException [If the state can't be written]
+	 */
+	public void save(DataOutputStream out) throws IOException {
+		Checkpoint.writeRandom(out, rand);
+		out.writeInt(numberPlates.size());
+		
+		for (String plate : numberPlates) {
+			out.writeUTF(plate);
+		}
+	}
+	
+	/**
+	 * 
+	 * Carry on from the random stream and number plates written to a checkpoint
+	 * 
+	 * @param DataInputStream in [Where to read from]
+	 * @throws IOException [If the state can't be read]
+	 */
+	public void restore(DataInputStream in) throws IOException {
+		rand = Checkpoint.readRandom(in);
+		numberPlates.clear();
+		
+		for (int i = in.readInt(); i > 0; i--) {
+			numberPlates.add(in.readUTF());
+		}
+	}
+	
+	/**
+	 * 
+	 * Generate a new car using the simulation options
+	 * 
+	 * @param Scenario scenario [The simulation options]
+	 * @param long tick [When the car arrives]
+	 * @return Arrival [The new car]
+	 */
+	public Arrival newArrival(Scenario scenario, long tick) {
+		String type = isDisabled(scenario.getDisabilityProbability());
+		
+		// If type is still normal after disability chance, check electric chance
+		if (type.equals("N")) {
+			type = isEv(scenario.getEvProbability()); 
+		}
+		
+		return newArrival(newNumberPlate(), type, newDuration(scenario.getMinDurationSteps(), scenario.getDurationSteps()), tick);
+	}
+	
+	/**
+	 * 
+	 * Generate a new car with a known number plate, type and duration, such as one read from a log
+	 * 
+	 * @param String numberPlate [The number plate of the car]
+	 * @param String type [The type of the car i.e. N, D or E]
+	 * @param int duration [How long the car is parked for]
+	 * @param long tick [When the car arrives]
+	 * @return Arrival [The new car]
+	 */
+	public Arrival newArrival(String numberPlate, String type, int duration, long tick) {
+		String makeModel = newMakeModel(type);
+		
+		return new Arrival(numberPlate, type, makeModel, generateFuelEconomy(makeModel), generateCarbonDioxideEmissions(makeModel), duration, tick);
+	}
+	
+	/**
+	 * 
+	 * Generate new duration between given min and max duration
+	 * Bounds are given in multiples of 10 to ensure the duration will be a multiple of 10
+	 * 
+	 * @param int minSteps [The minimum duration the car can be parked for divided by 10]
+	 * @param int steps [The maximum duration the car can be parked for divided by 10]
+	 * @return int duration [The duration the car is looking to park for]
+	 */
+	public int newDuration(int minSteps, int steps) {
+		// Duration is a new random number between min and max multiple by 10
+		int duration = (rand.nextInt(steps)+minSteps)*10;
+		
+		return duration;
+	}
+	
+	/**
+	 * 
+	 * Generate whether or not the agent requires disabled parking
+	 * 
+	 * @param double probability [The likelihood the driver requires disabled parking between 0 and 1]
+	 * @return String disabled [The character representation of the vehicle type i.e. D or N]
+	 */
+	public String isDisabled(double probability) {
+		boolean disabled = false;
+		
+		// If the next random number between 0 and 1 is less than the percent likelihood of being disabled, the driver requires disabled parking
+		if (rand.nextDouble() <= probability) {
+			disabled = true;
+		}
+		
+		return disabled ? "D" : "N";
+	}
+	
+	/**
+	 * 
+	 * Generate whether or not the agent is an electric vehicle
+	 * 
+	 * @param double probability [The likelihood the driver requires electric parking between 0 and 1]
+	 * @return String ev [The character representation of the vehicle type i.e. E or N]
+	 */
+	public String isEv(double probability) {
+		boolean ev = false;
+		
+		// If the next random number between 0 and 1 is less than the percent likelihood of being electric, the driver requires electric parking
+		if (rand.nextDouble() <= probability) {
+			ev = true;
+		}
+		
+		return ev ? "E" : "N";
+	}
+	
+	/**
+	 * 
+	 * Generate the make and model of the agent 
+	 * Likelihoods adapted from data by Statista: https://www.statista.com/statistics/299018/car-models-which-sold-the-most-in-the-united-kingdom/
+	 * 
+	 * @param String type [The vehicle type]
+	 * @return String [The make and model of the vehicle]
+	 */
+	public String newMakeModel(String type) {
+		// If the vehicle is electric, return early
+		if (type.equals("E")) {
+			return "EV";
+		}
+		
+		// Get new random number between 0 and 1
+		double percent = rand.nextDouble();
+		
+		// 15.3% chance of being a Ford Fiesta
+		if (percent <= 0.153) {
+			return "Ford Fiesta";
+		}
+		
+		// 11.6% chance of being a Volkswagen Golf
+		if (percent <= 0.269) {
+			return "Volkswagen Golf";
+		}
+		
+		// 11.13% chance of being a Ford Focus
+		if (percent <= 0.3803) {
+			return "Ford Focus";
+		}
+		
+		// 10.66% chance of being a Vauxhall Corsa
+		if (percent <= 0.4869) {
+			return "Vauxhall Corsa";
+		}
+		
+		// 10.56% chance of being a Mercedes A-Class
+		if (percent <= 0.5925) {
+			return "Mercedes A-Class";
+		}
+		
+		// 10.33% chance of being a Nissan Qashqai
+		if (percent <= 0.6958) {
+			return "Nissan Qashqai";
+		}
+		
+		// 8.19% chance of being a Ford Kuga
+		if (percent <= 0.7777) {
+			return "Ford Kuga";
+		}
+		
+		// 8.1% chance of being a Mini
+		if (percent <= 0.8587) {
+			return "MINI";
+		}
+		
+		// 7.36% chance of being a Volkswagen Polo
+		if (percent <= 0.9323) {
+			return "Volkswagen Polo";
+		}
+		
+		// ~6.78% chance of being a Kia Sportage
+		if (percent <= 1.0) {
+			return "Kia Sportage";
+		}
+		
+		return "EV";
+	}
+ 
+	/**
+	 * 
+	 * Generate random fuel economy using real life mpg statistics provided by Fleet News - source: https://www.fleetnews.co.uk/cars/Car-CO2-and-fuel-economy-mpg-figures
+	 * Random double between doubles adapted from: https://stackoverflow.com/questions/28786856/java-get-random-double-between-two-doubles/28786888
+	 * Accessed: 22/07/2020
+	 * 
+	 * @param String makeModel [The make and model of the vehicle]
+	 * @return int mpg [The miles per gallon of the vehicle]
+	 */
+	public double generateFuelEconomy(String makeModel) {
+		// Create variables
+		double mpg = 0.0;
+		double minMpg = 0.0;
+		double maxMpg = 0.0;
+		
+		// Switch between the possible make and models
+		switch(makeModel) {
+			case "Ford Fiesta":
+				minMpg = 40.4;
+				maxMpg = 65.7;
+				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
+				break;
+			case "Volkswagen Golf":
+				minMpg = 32.8;
+				maxMpg = 68.9;
+				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
+				break;
+			case "Ford Focus":
+				minMpg = 34.4;
+				maxMpg = 62.8;
+				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
+				break;
+			case "Vauxhall Corsa":
+				minMpg = 48.7;
+				maxMpg = 70.6;
+				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
+				break;
+			case "Mercedes A-Class":
+				minMpg = 31.4;
+				maxMpg = 62.8;
+				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
+				break;
+			case "Nissan Qashqai":
+				minMpg = 39.8;
+				maxMpg = 53.3;
+				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
+				break;
+			case "Ford Kuga":
+				minMpg = 41.5;
+				maxMpg = 56.5;
+				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
+				break;
+			case "MINI":
+				minMpg = 34.0;
+				maxMpg = 48.7;
+				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
+				break;
+			case "Volkswagen Polo":
+				minMpg = 39.8;
+				maxMpg = 57.6;
+				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
+				break;
+			case "Kia Sportage":
+				minMpg = 32.1;
+				maxMpg = 53.3;
+				mpg = minMpg + rand.nextDouble() * (maxMpg - minMpg);
+				break;
+			default:
+				// hit if vehicle is electric at which point mpg is 0
+				break;
+		}
+		
+		// Return rounded number for ease
+		return (int) Math.round(mpg);
+	}
+	
+	/**
+	 * 
+	 * Generate random CO2 emissions using real life CO2 statistics provided by Fleet News - source: https://www.fleetnews.co.uk/cars/Car-CO2-and-fuel-economy-mpg-figures
+	 * Random double between doubles adapted from: https://stackoverflow.com/questions/28786856/java-get-random-double-between-two-doubles/28786888
+	 * Accessed: 22/07/2020
+	 * 
+	 * @param String makeModel [The make and model of the vehicle]
+	 * @return int CO2 [The carbon emissions the vehicle produces per kilometre]
+	 */
+	public double generateCarbonDioxideEmissions(String makeModel) {
+		// Create variables
+		double CO2 = 0.0;
+		double minCO2 = 0.0;
+		double maxCO2 = 0.0;
+		
+		// Switch between the make and model
+		switch(makeModel) {
+			case "Ford Fiesta":
+				minCO2 = 112.0;
+				maxCO2 = 158.0;
+				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
+				break;
+			case "Volkswagen Golf":
+				minCO2 = 107.0;
+				maxCO2 = 195.0;
+				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
+				break;
+			case "Ford Focus":
+				minCO2 = 117.0;
+				maxCO2 = 188.0;
+				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
+				break;
+			case "Vauxhall Corsa":
+				minCO2 = 108.0;
+				maxCO2 = 134.0;
+				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
+				break;
+			case "Mercedes A-Class":
+				minCO2 = 117.0;
+				maxCO2 = 207.0;
+				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
+				break;
+			case "Nissan Qashqai":
+				minCO2 = 131.0;
+				maxCO2 = 182.0;
+				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
+				break;
+			case "Ford Kuga":
+				minCO2 = 132.0;
+				maxCO2 = 161.0;
+				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
+				break;
+			case "MINI":
+				minCO2 = 131.0;
+				maxCO2 = 189.0;
+				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
+				break;
+			case "Volkswagen Polo":
+				minCO2 = 124.0;
+				maxCO2 = 160.0;
+				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
+				break;
+			case "Kia Sportage":
+				minCO2 = 138.0;
+				maxCO2 = 201.0;
+				CO2 = minCO2 + rand.nextDouble() * (maxCO2 - minCO2);
+				break;
+			default:
+				// hit if vehicle is electric at which point CO2 emissions are 0
+				break;
+		}
+		
+		// Return rounded number for ease
+		return (int) Math.round(CO2);
+	}
+	
+	// Generate a new random valid number plate - source: https://assets.publishing.service.gov.uk/government/uploads/system/uploads/attachment_data/file/359317/INF104_160914.pdf
+	// Format: DVlA Memory Tag (M), Age Identifier (A) and Random String (R)
+	// e.g. MMAARRR
+	public String newNumberPlate() {
+		// Valid random plate
+		String plate = MEMORY_TAGS[rand.nextInt(MEMORY_TAGS.length)] + AGE_IDENTIFIERS[rand.nextInt(AGE_IDENTIFIERS.length)] + CHARS[rand.nextInt(CHARS.length)] + CHARS[rand.nextInt(CHARS.length)] + CHARS[rand.nextInt(CHARS.length)];
+		
+		// Ensure number plate is unique
+		if (!numberPlates.add(plate)) {
+			plate = newNumberPlate();
+		}
+		
+		return plate;
+	}
+}
@@ -0,0 +1,135 @@
+import java.util.Arrays;
+
+/**
+ *
+ * First-in first-out queue of cars waiting to enter the carpark, held as compact records.
+ *
+ * Each waiting car is a row across parallel arrays rather than an agent, so a long queue costs a few dozen bytes per car
+ * instead of an agent with its own thread, behaviours and mailbox. Cars are turned back into arrivals when they reach the gate.
+ * Rows wrap around a ring that doubles in size when full.
+ *
+ */
+
+public class CarQueue {
+	// Record of each waiting car
+	private String[] plates = new String[64];
+	private String[] makeModels = new String[64]; // shared constants, so only a reference per car
+	private byte[] types = new byte[64];
+	private double[] mpgs = new double[64];
+	private double[] emissions = new double[64];
+	private int[] durations = new int[64];
+	private long[] ticks = new long[64]; // when the car was due to arrive
+	private long[] enqueued = new long[64]; // when the car joined the queue (epoch ms)
+
+	private int head = 0; // row of the car at the front of the queue
+	private int size = 0;
+
+	/**
+	 *
+	 * Add a car to the back of the queue
+	 *
+	 * @param Arrival arrival [The arriving car]
+	 * @param long time [When the car joined the queue (epoch ms)]
+	 */
+	public void add(Arrival arrival, long time) {
+		if (size == plates.length) {
+			grow();
+		}
+
+		int row = (head + size) & (plates.length - 1);
+
+		plates[row] = arrival.getNumberPlate();
+		makeModels[row] = arrival.getMakeModel();
+		types[row] = (byte) arrival.getType().charAt(0);
+		mpgs[row] = arrival.getMpg();
+		emissions[row] = arrival.getCarbonEmissions();
+		durations[row] = arrival.getDuration();
+		ticks[row] = arrival.getTick();
+		enqueued[row] = time;
+		size++;
+	}
+
+	/**
+	 *
+	 * Remove the car at the front of the queue
+	 *
+	 * @return Arrival [The car, or null if the queue is empty]
+	 */
+	public Arrival poll() {
+		if (size == 0) {
+			return null;
+		}
+
+		Arrival arrival = new Arrival(plates[head], String.valueOf((char) types[head]), makeModels[head], mpgs[head], emissions[head], durations[head], ticks[head]);
+
+		// Release the strings so they can be collected
+		plates[head] = null;
+		makeModels[head] = null;
+
+		head = (head + 1) & (plates.length - 1);
+		size--;
+
+		return arrival;
+	}
+
+	// Return when the car at the front of the queue joined it (epoch ms), or 0 if the queue is empty
+	public long peekEnqueued() {
+		return size == 0 ? 0 : enqueued[head];
+	}
+
+	// Return the number of cars waiting
+	public int size() {
+		return size;
+	}
+
+	// Return whether or not no cars are waiting
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// Double the capacity, moving the front of the queue back to row 0
+	private void grow() {
+		plates = unwrap(plates);
+		makeModels = unwrap(makeModels);
+
+		int capacity = types.length * 2;
+		byte[] newTypes = new byte[capacity];
+		double[] newMpgs = new double[capacity];
+		double[] newEmissions = new double[capacity];
+		int[] newDurations = new int[capacity];
+		long[] newTicks = new long[capacity];
+		long[] newEnqueued = new long[capacity];
+
+		for (int i = 0; i < size; i++) {
+			int row = (head + i) & (types.length - 1);
+
+			newTypes[i] = types[row];
+			newMpgs[i] = mpgs[row];
+			newEmissions[i] = emissions[row];
+			newDurations[i] = durations[row];
+			newTicks[i] = ticks[row];
+			newEnqueued[i] = enqueued[row];
+		}
+
+		types = newTypes;
+		mpgs = newMpgs;
+		emissions = newEmissions;
+		durations = newDurations;
+		ticks = newTicks;
+		enqueued = newEnqueued;
+		head = 0;
+	}
+
+	// Return a copy of a column twice the size, with the front of the queue at row 0
+	private String[] unwrap(String[] column) {
+		String[] unwrapped = Arrays.copyOf(column, column.length * 2);
+
+		for (int i = 0; i < size; i++) {
+			unwrapped[i] = column[(head + i) & (column.length - 1)];
+		}
+
+		Arrays.fill(unwrapped, size, column.length, null);
+
+		return unwrapped;
+	}
+}
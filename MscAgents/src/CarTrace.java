@@ -0,0 +1,142 @@
+/**
+ *
+ * Compact record of when a car reached each stage of its life in the carpark.
+ *
+ * The milestones before negotiating (queued, agent spawned at the front of the queue, agent started, first call for proposals) are kept in fields.
+ * Negotiation can repeat many times while the carpark is full, so later stages are kept in a small ring buffer of primitive arrays
+ * that keeps the most recent stages, always including the final accepted, parked and left stages.
+ * Times are System.nanoTime() values and are only written by the car's own thread.
+ *
+ */
+
+public class CarTrace {
+	// Stages kept in the ring buffer
+	public static final byte CFP = 0; // called for proposals, argument: parking bays contacted, flag: matching car type
+	public static final byte NO_SPACE = 1; // no parking bay offered a space
+	public static final byte ACCEPTED = 2; // accepted a proposal, argument: distance from the entrance
+	public static final byte PARKED = 3; // the parking bay confirmed
+	public static final byte LEFT = 4; // left the carpark
+
+	private static final int CAPACITY = 32; // stages kept, must be a power of 2
+	private static final int MASK = CAPACITY - 1;
+
+	private final String numberPlate;
+
+	// Milestones, 0 until reached
+	private final long queued;
+	private long spawned;
+	private long head;
+	private long firstCall;
+
+	// Ring buffer of later stages
+	private final long[] times = new long[CAPACITY];
+	private final byte[] stages = new byte[CAPACITY];
+	private final int[] arguments = new int[CAPACITY];
+	private final boolean[] flags = new boolean[CAPACITY];
+	private int count = 0; // number of stages ever recorded
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param String numberPlate [The number plate of the car]
+	 * @param long queued [When the car joined the queue, as a System.nanoTime() value]
+	 */
+	CarTrace(String numberPlate, long queued) {
+		this.numberPlate = numberPlate;
+		this.queued = queued;
+	}
+
+	// Record the carpark creating the car's agent at the front of the queue
+	public void spawned() {
+		spawned = System.nanoTime();
+	}
+
+	// Record the car's agent starting
+	public void head() {
+		head = System.nanoTime();
+	}
+
+	/**
+	 *
+	 * Record a stage of negotiating and parking
+	 *
+	 * @param byte stage [The stage reached, e.g. CFP]
+	 * @param int argument [The stage argument]
+	 * @param boolean flag [The stage flag]
+	 */
+	public void record(byte stage, int argument, boolean flag) {
+		int slot = count & MASK;
+		long now = System.nanoTime();
+
+		if (stage == CFP && firstCall == 0) {
+			firstCall = now;
+		}
+
+		times[slot] = now;
+		stages[slot] = stage;
+		arguments[slot] = argument;
+		flags[slot] = flag;
+		count++;
+	}
+
+	// Return the number plate of the car
+	public String getNumberPlate() {
+		return numberPlate;
+	}
+
+	// Return when the car joined the queue
+	public long getQueued() {
+		return queued;
+	}
+
+	// Return when the carpark created the car's agent, 0 if the car left the queue first
+	public long getSpawned() {
+		return spawned;
+	}
+
+	// Return when the car's agent started, 0 if it hasn't
+	public long getHead() {
+		return head;
+	}
+
+	// Return when the car first called for proposals, 0 if it hasn't
+	public long getFirstCall() {
+		return firstCall;
+	}
+
+	// Return the number of stages still held, at most the capacity
+	public int getSize() {
+		return Math.min(count, CAPACITY);
+	}
+
+	// Return the number of stages overwritten by later stages
+	public int getDropped() {
+		return count - getSize();
+	}
+
+	// Return when the i'th held stage, oldest first, was reached
+	public long getTime(int i) {
+		return times[slot(i)];
+	}
+
+	// Return the i'th held stage, oldest first
+	public byte getStage(int i) {
+		return stages[slot(i)];
+	}
+
+	// Return the argument of the i'th held stage, oldest first
+	public int getArgument(int i) {
+		return arguments[slot(i)];
+	}
+
+	// Return the flag of the i'th held stage, oldest first
+	public boolean getFlag(int i) {
+		return flags[slot(i)];
+	}
+
+	// Return the ring buffer slot of the i'th held stage, oldest first
+	private int slot(int i) {
+		return (getDropped() + i) & MASK;
+	}
+}
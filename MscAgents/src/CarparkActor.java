@@ -0,0 +1,159 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ *
+ * Carpark of the actor backend.
+ * Creates a car actor for every arriving car and lets the car at the front of the queue try to park every model speed ticks,
+ * following the same rules as the carpark agent, including cars balking and reneging.
+ *
+ */
+
+public class CarparkActor extends Actor {
+	private static final int MAILBOX = 4096;
+
+	private final ArrivalSource arrivals;
+	private final AllocationStrategy strategy;
+	private final Analytics data;
+	private final Scenario scenario;
+	private final int modelSpeed;
+	private final CarparkOccupancy occupancy; // which parking bays are occupied
+
+	// Parking bays by type
+	private final BayActor[] normalBays;
+	private final BayActor[] disabledBays;
+	private final BayActor[] electricBays;
+
+	// Queue
+	private final ArrayDeque<CarActor> queue = new ArrayDeque<CarActor>();
+	private boolean negotiating = false; // whether the car at the front of the queue is trying to park
+	private int peakQueueLength = 0;
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param ActorSystem system [The system running the actor]
+	 * @param Scenario scenario [The simulation options]
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param ArrivalSource arrivals [Where new cars come from]
+	 * @param Analytics data [The analytics of the simulation]
+	 */
+	CarparkActor(ActorSystem system, Scenario scenario, CarparkLayout layout, ArrivalSource arrivals, Analytics data) {
+		super(system, "Carpark", MAILBOX);
+
+		this.arrivals = arrivals;
+		this.strategy = scenario.getStrategy();
+		this.data = data;
+		this.scenario = scenario;
+		this.modelSpeed = scenario.getModelSpeed();
+		this.occupancy = new CarparkOccupancy(layout);
+
+		// Share power between the electric cars charging
+		data.setCharging(new ChargingScheduler(layout, scenario, new Random(scenario.getSeed() + 2)));
+
+		// Create a parking bay actor for every space and differentiate them into types
+		ArrayList<BayActor> normal = new ArrayList<BayActor>();
+		ArrayList<BayActor> disabled = new ArrayList<BayActor>();
+		ArrayList<BayActor> electric = new ArrayList<BayActor>();
+
+		for (int bay = 0; bay < layout.getCapacity(); bay++) {
+			BayActor actor = new BayActor(system, layout, bay, data, occupancy);
+
+			system.started();
+
+			if (actor.getType().equals("D")) {
+				disabled.add(actor);
+			} else if (actor.getType().equals("E")) {
+				electric.add(actor);
+			} else {
+				normal.add(actor);
+			}
+		}
+
+		normalBays = normal.toArray(new BayActor[0]);
+		disabledBays = disabled.toArray(new BayActor[0]);
+		electricBays = electric.toArray(new BayActor[0]);
+
+		data.setTotalCapacity(layout.getWidth(), layout.getLength(), layout.getLevels());
+	}
+
+	// Start the carpark's clock
+	public void start() {
+		system.started();
+		system.scheduleEvery(this, new ActorMessage(ActorMessage.TICK, null, null, 0), modelSpeed);
+	}
+
+	protected void receive(ActorMessage message) {
+		switch (message.getType()) {
+			case ActorMessage.TICK:
+				spawnCars();
+
+				// Cars that have queued too long drive away, the front of the queue has always queued the longest
+				while (!negotiating && !queue.isEmpty() && scenario.reneges(system.getTick() - queue.peek().getArrivalTick())) {
+					queue.poll();
+					system.stopped();
+					data.increaseCarsReneged();
+				}
+
+				if (queue.isEmpty()) {
+					break;
+				}
+
+				// Every car not at the front of the queue spends another model speed ticks queueing
+				data.updateQueueDuration(modelSpeed * (queue.size() - 1));
+
+				// Tell the car at the front of the queue to try to park, unless it already is or the carpark is full
+				if (!negotiating && occupancy.hasSpaceFor(queue.peek().getType())) {
+					negotiating = true;
+					queue.peek().tell(new ActorMessage(ActorMessage.TRY, this, null, 0));
+				}
+
+				break;
+			case ActorMessage.PARKED:
+				queue.poll();
+				negotiating = false;
+
+				break;
+			case ActorMessage.NO_SPACE:
+				// Try again next tick
+				negotiating = false;
+
+				break;
+		}
+	}
+
+	// Create a car actor for every car due by now and add it to the queue
+	private void spawnCars() {
+		Arrival arrival;
+
+		while ((arrival = arrivals.next(system.getTick())) != null) {
+			// Update the total number of cars created
+			data.updateCarsCreated();
+
+			// The queue is too long, so the car drives away without ever becoming an actor
+			if (scenario.balks(queue.size())) {
+				data.increaseCarsBalked();
+				continue;
+			}
+
+			BayActor[] ownType = arrival.getType().equals("D") ? disabledBays : arrival.getType().equals("E") ? electricBays : normalBays;
+
+			queue.add(new CarActor(system, arrival, this, ownType, normalBays, strategy, data));
+			system.started();
+		}
+
+		peakQueueLength = Math.max(peakQueueLength, queue.size());
+	}
+
+	// Return the number of cars waiting to enter
+	public int getQueueLength() {
+		return queue.size();
+	}
+
+	// Return the most cars waiting to enter at once
+	public int getPeakQueueLength() {
+		return peakQueueLength;
+	}
+}
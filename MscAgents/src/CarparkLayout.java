@@ -0,0 +1,393 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * 
+ * Layout of the carpark, shared by every agent and the headless simulation.
+ * Holds the entrance and the distance and type of every parking bay.
+ * Parking bays are numbered row by row and level by level, so the bay at X, Y on level L has the index (L * length + Y) * width + X.
+ * 
+ * A carpark with more than one level is a stack of identical floors joined by ramps.
+ * Cars enter level 0 at the entrance, and reach each level above up a ramp from the level below, which arrives at that level's entrance.
+ * The distance to a parking bay includes the drive across every level below it to its ramp and the length of every ramp.
+ * 
+ */
+
+public class CarparkLayout {
+	// Average parking space size in metres - source: https://www.theaa.com/breakdown-cover/advice/parking-space-size
+	public static final double BAY_WIDTH = 2.8;
+	public static final double BAY_LENGTH = 4.8;
+	
+	private final int width;
+	private final int length;
+	private final int levels;
+	private final int entrances[][]; // the Y and X coordinates of the entrance to each level, the top of the ramp above level 0
+	private final int distances[]; // how far each parking bay is from the entrance in metres
+	private final String types[]; // the type of each parking bay i.e. N, D or E
+	
+	/**
+	 * 
+	 * Class Constructor
+	 * 
+	 * @param int width [The width of the carpark]
+	 * @param int length [The length of the carpark]
+	 * @param int[][] entrances [The Y and X coordinates of the entrance to each level]
+	 * @param int[] distances [How far each parking bay is from the entrance]
+	 * @param String[] types [The type of each parking bay]
+	 */
+	CarparkLayout(int width, int length, int entrances[][], int distances[], String types[]) {
+		this.width = width;
+		this.length = length;
+		this.levels = entrances.length;
+		this.entrances = entrances;
+		this.distances = distances;
+		this.types = types;
+	}
+	
+	/**
+	 * 
+	 * Generate a new layout with a random entrance and random parking bay types
+	 * 
+	 * @param int width [The width of the carpark]
+	 * @param int length [The length of the carpark]
+	 * @param Random rand [The source of randomness]
+	 * @return CarparkLayout [The generated layout]
+	 */
+	public static CarparkLayout generate(int width, int length, Random rand) {
+		return generate(width, length, 1, 0, rand);
+	}
+	
+	/**
+	 * 
+	 * Generate a new layout of one or more levels, with a random entrance, random ramps and random parking bay types
+	 * A single level is generated exactly as a carpark without levels
+	 * 
+	 * @param int width [The width of the carpark]
+	 * @param int length [The length of the carpark]
+	 * @param int levels [The number of levels]
+	 * @param double rampLength [How far a car drives up each ramp in metres]
+	 * @param Random rand [The source of randomness]
+	 * @return CarparkLayout [The generated layout]
+	 */
+	public static CarparkLayout generate(int width, int length, int levels, double rampLength, Random rand) {
+		int entrances[][] = new int[levels][];
+		int distances[] = new int[levels * width * length];
+		String types[] = new String[levels * width * length];
+		double offset = 0; // how far it is to the entrance of the level
+		
+		for (int level = 0; level < levels; level++) {
+			if (level == 0) {
+				// Generate an entrance position given the width and length of the car park
+				entrances[level] = generateEntrance(width, length, rand);
+			} else {
+				// Generate a ramp from the level below, which arrives at the same position on this level
+				entrances[level] = generateEntrance(width, length, rand);
+				offset = offset + travel(entrances[level - 1], entrances[level][1], entrances[level][0]) + rampLength;
+			}
+			
+			// Loop through from 0 up to given length
+			for (int y = 0; y < length; y++) {
+				// Loop through from 0 up to given width
+				for (int x = 0; x < width; x++) {
+					int bay = (level * length + y) * width + x;
+					
+					// Calculate the distance the space is from the entrance, up any ramps
+					distances[bay] = level == 0 ? calculateDistance(entrances[level], x, y) : (int) Math.round(offset + travel(entrances[level], x, y)) * 10;
+					
+					// 5% chance of being a disabled space - source: http://evacuation-chair.co.uk/disabled-parking-spaces-legal-issues-obligations/
+					types[bay] = isDisabledSpace(rand);
+					
+					// If the type is normal after disabled chance, check electric chance
+					if (types[bay].equals("N")) {
+						types[bay] = evCharger(rand); // 20% chance of being an EV space - source: https://www.addleshawgoddard.com/en/insights/insights-briefings/2019/real-estate/electric-vehicle-charging-points/#:~:text=A%20respective%20building%20with%2020,least%20one%20EV%20charge%20point.
+					}
+				}
+			}
+		}
+		
+		return new CarparkLayout(width, length, entrances, distances, types);
+	}
+	
+	// Return the width of the carpark
+	public int getWidth() {
+		return width;
+	}
+	
+	// Return the length of the carpark
+	public int getLength() {
+		return length;
+	}
+	
+	// Return the number of levels
+	public int getLevels() {
+		return levels;
+	}
+	
+	// Return the number of parking bays
+	public int getCapacity() {
+		return distances.length;
+	}
+	
+	// Return the number of parking bays on each level
+	public int getLevelCapacity() {
+		return width * length;
+	}
+	
+	// Return the Y coordinate of the entrance
+	public int getEntranceY() {
+		return entrances[0][0];
+	}
+	
+	// Return the X coordinate of the entrance
+	public int getEntranceX() {
+		return entrances[0][1];
+	}
+	
+	// Return the Y coordinate of the entrance to a level
+	public int getEntranceY(int level) {
+		return entrances[level][0];
+	}
+	
+	// Return the X coordinate of the entrance to a level
+	public int getEntranceX(int level) {
+		return entrances[level][1];
+	}
+	
+	/**
+	 * 
+	 * Get how far a parking bay is from the entrance
+	 * 
+	 * @param int bay [The index of the parking bay]
+	 * @return int [The distance in metres]
+	 */
+	public int getDistance(int bay) {
+		return distances[bay];
+	}
+	
+	/**
+	 * 
+	 * Get the type of a parking bay
+	 * 
+	 * @param int bay [The index of the parking bay]
+	 * @return String [The type of the parking bay i.e. N, D or E]
+	 */
+	public String getType(int bay) {
+		return types[bay];
+	}
+	
+	// Return the X coordinate of a parking bay
+	public int getX(int bay) {
+		return bay % width;
+	}
+	
+	// Return the Y coordinate of a parking bay on its level
+	public int getY(int bay) {
+		return (bay / width) % length;
+	}
+	
+	// Return the level of a parking bay
+	public int getLevel(int bay) {
+		return bay / (width * length);
+	}
+	
+	// Return the name of a parking bay, Y:X counting from 1, or Level:Y:X if the carpark has more than one level
+	public String getName(int bay) {
+		String name = (getY(bay) + 1) + ":" + (getX(bay) + 1);
+		
+		return levels > 1 ? (getLevel(bay) + 1) + ":" + name : name;
+	}
+	
+	/**
+	 * 
+	 * Get the region of the carpark a parking bay is in
+	 * The columns of every level, level by level, are split into bands of neighbouring columns as equal as possible
+	 * 
+	 * @param int bay [The index of the parking bay]
+	 * @param int regions [The number of regions the carpark is split into]
+	 * @return int [The region, from 0 to regions - 1]
+	 */
+	public int getRegion(int bay, int regions) {
+		long column = (long) getLevel(bay) * width + getX(bay);
+		
+		return (int) (column * regions / ((long) levels * width));
+	}
+	
+	/**
+	 * 
+	 * Write the layout to a checkpoint
+	 * 
+	 * @param DataOutputStream out [Where to write]
+	 * @throws IOException [If the layout can't be written]
+	 */
+	public void save(DataOutputStream out) throws IOException {
+		out.writeInt(width);
+		out.writeInt(length);
+		out.writeInt(levels);
+		
+		for (int level = 0; level < levels; level++) {
+			out.writeInt(entrances[level][0]);
+			out.writeInt(entrances[level][1]);
+		}
+		
+		// One distance and one type character per parking bay
+		for (int bay = 0; bay < distances.length; bay++) {
+			out.writeInt(distances[bay]);
+			out.writeByte(types[bay].charAt(0));
+		}
+	}
+	
+	/**
+	 * 
+	 * Read a layout written to a checkpoint
+	 * 
+	 * @param DataInputStream in [Where to read from]
+	 * @return CarparkLayout [The layout]
+	 * @throws IOException [If the layout can't be read]
+	 */
+	public static CarparkLayout read(DataInputStream in) throws IOException {
+		int width = in.readInt();
+		int length = in.readInt();
+		int levels = in.readInt();
+		int entrances[][] = new int[levels][];
+		
+		for (int level = 0; level < levels; level++) {
+			entrances[level] = new int[] { in.readInt(), in.readInt() };
+		}
+		
+		int distances[] = new int[levels * width * length];
+		String types[] = new String[distances.length];
+		
+		for (int bay = 0; bay < distances.length; bay++) {
+			distances[bay] = in.readInt();
+			types[bay] = String.valueOf((char) in.readByte()).intern();
+		}
+		
+		return new CarparkLayout(width, length, entrances, distances, types);
+	}
+	
+	/**
+	 * 
+	 * Randomly generate the coordinates of an entrance to the car park
+	 * Take in the given width and length of the car park to ensure entrance is within bounds
+	 * 
+	 * @param int width [The width of the carpark]
+	 * @param int length [The length of the carpark]
+	 * @param Random rand [The source of randomness]
+	 * @return int[] entrance [The Y and X coordinates of the entrance to the carpark]
+	 */
+	protected static int[] generateEntrance(int width, int length, Random rand) {
+		// Placeholder array for the entrance
+		int entrance[] = new int[2];
+		
+		// Generate random x value
+		int dirx = rand.nextInt(width+1);
+		
+		// Generate random y value
+		int diry = rand.nextInt(length+1);
+		
+		// Generate random value between 0-3 to determine the position of the entrance
+		// 0 - North
+		// 1 - East
+		// 2 - South
+		// 3 - West
+		switch(rand.nextInt(4)) {
+			// North
+			case 0:
+				entrance[0] = 0; // Because North is top, y value is 0
+				entrance[1] = dirx; // Because North is top, x value is random
+				break;
+			// East
+			case 1:
+				entrance[0] = diry; // Because East is far right, y value is random
+				entrance[1] = width; // Because East is far right, x value is max width
+				break;
+			
+			// South
+			case 2:
+				entrance[0] = length; // Because South is bottom, y value is max length
+				entrance[1] = dirx; // Because South is bottom, x value is random
+				break;
+				
+			// West
+			// If error default to west
+			case 3:
+			default:
+				entrance[0] = diry; // Because West is far left, y value is random
+				entrance[1] = 0; // Because West is far left, x value is 0
+				break;
+		} 
+		
+		// Return the entrance coordinates
+		return entrance;
+	}
+	
+	/**
+	 * 
+	 * Calculate the distance a parking space is from the entrance
+	 * Average statistics used for parking space sizes - source: https://www.theaa.com/breakdown-cover/advice/parking-space-size
+	 * 
+	 * @param int[] entrance [The Y and X coordinates of the entrance to the carpark]
+	 * @param int x [The X coordinate of the parking bay]
+	 * @param int y [The Y coordinate of the parking bay]
+	 * @return int distance [How far the parking bay is from the entrance]
+	 */
+	public static int calculateDistance(int entrance[], int x, int y) {
+		// Placeholder for distance
+		double distance = travel(entrance, x, y);
+		
+		// If the distance is 0, set it to 1 so that it has some arbitrary distance from the entrance 
+		if (distance == 0) {
+			distance = 1;
+		}
+		
+		// Return rounded distance for ease of use
+		return (int) Math.round(distance) * 10;
+	}
+	
+	/**
+	 * 
+	 * Calculate how far a car drives between an entrance and a position on the same level
+	 * 
+	 * @param int[] entrance [The Y and X coordinates of the entrance]
+	 * @param int x [The X coordinate of the position]
+	 * @param int y [The Y coordinate of the position]
+	 * @return double [The distance in metres]
+	 */
+	private static double travel(int entrance[], int x, int y) {
+		// difference in y distance between entrance and grid position * by average length of parking space
+		double difY = (entrance[0] - y) * BAY_LENGTH;
+		
+		// difference in x distance between entrance and grid position * by average width of parking space
+		double difX = (entrance[1] - x) * BAY_WIDTH;
+		
+		// only straight line travel in the car park, no diagonals
+		// Math.abs() used to ensure number is positive
+		return Math.abs(difY) + Math.abs(difX);
+	}
+	
+	// generate whether or not the space is disabled parking
+	private static String isDisabledSpace(Random rand) {
+		boolean disabledSpace = false;
+		
+		// 5% chance of being a disabled space
+		if (rand.nextDouble() <= 0.05) {
+			disabledSpace = true;
+		}
+		
+		return disabledSpace ? "D" : "N";
+	}
+	
+	// generate whether or not the space is for an ev
+	private static String evCharger(Random rand) {
+		boolean charger = false;
+		
+		// 20% chance of being an ev space
+		if (rand.nextDouble() <= 0.2) {
+			charger = true;
+		}
+		
+		return charger? "E" : "N";
+	}
+}
@@ -0,0 +1,449 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * Carpark-wide record of which parking bays are occupied.
+ * Updated by the parking bays as cars park and leave, so what is free can be answered without asking every parking bay.
+ *
+ * The parking bays are partitioned by type (N, D and E) and by level. The parking bays of each partition are ranked by distance
+ * from the entrance, closest first, with ties in bay order, and occupancy is packed one bit per rank into a long[] bitset per partition.
+ * The nearest free parking bay of a partition is the first clear bit, the farthest is the last clear bit, and both are found
+ * a word (64 parking bays) at a time. The best parking bay of a type is the best of the best on each level.
+ * A count of free parking bays of each partition is kept alongside for constant time checks,
+ * and a spatial index of the free parking bays of each partition for queries from anywhere on a level.
+ *
+ * Safe to share between agents, bits are set and cleared atomically.
+ *
+ */
+
+public class CarparkOccupancy {
+	// Types of parking bay, in the order they are counted
+	static final String[] TYPES = { "N", "D", "E" };
+
+	private final CarparkLayout layout;
+	private final int levels;
+
+	// Bays
+	private final int[] partOf; // the partition of each parking bay, type * levels + level
+	private final int[] rankOf; // the rank of each parking bay by distance within its partition
+	private final int[][] bays; // the parking bay at each rank of each partition
+	private final int[][] tieStart; // the first rank with the same distance as each rank of each partition
+
+	// Occupancy
+	private final AtomicLongArray[] occupied; // a bit per rank of each partition, set if the parking bay is occupied
+	private final AtomicIntegerArray free; // free parking bays of each partition
+	private final SpatialIndex[] freeBays; // where the free parking bays of each partition are, guarded by itself
+
+	/**
+	 *
+	 * Class Constructor
+	 * Every parking bay starts free
+	 *
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 */
+	CarparkOccupancy(CarparkLayout layout) {
+		int capacity = layout.getCapacity();
+		int parts = TYPES.length * layout.getLevels();
+		int[] counts = new int[parts];
+
+		this.layout = layout;
+		this.levels = layout.getLevels();
+
+		partOf = new int[capacity];
+		rankOf = new int[capacity];
+		bays = new int[parts][];
+		tieStart = new int[parts][];
+		occupied = new AtomicLongArray[parts];
+		free = new AtomicIntegerArray(parts);
+		freeBays = new SpatialIndex[parts];
+
+		// Step.1 - Count the parking bays of each partition
+		for (int bay = 0; bay < capacity; bay++) {
+			partOf[bay] = typeIndex(layout.getType(bay)) * levels + layout.getLevel(bay);
+			counts[partOf[bay]]++;
+		}
+
+		for (int part = 0; part < parts; part++) {
+			bays[part] = new int[counts[part]];
+			tieStart[part] = new int[counts[part]];
+			occupied[part] = new AtomicLongArray((counts[part] + 63) >>> 6);
+			free.set(part, counts[part]);
+			freeBays[part] = new SpatialIndex(layout, part % levels);
+			counts[part] = 0;
+		}
+
+		for (int bay = 0; bay < capacity; bay++) {
+			freeBays[partOf[bay]].add(bay);
+		}
+
+		// Step.2 - Rank the parking bays of each partition by distance, closest first, with ties in bay order
+		Integer[] order = new Integer[capacity];
+
+		for (int bay = 0; bay < capacity; bay++) {
+			order[bay] = bay;
+		}
+
+		Arrays.sort(order, (a, b) -> layout.getDistance(a) != layout.getDistance(b) ? Integer.compare(layout.getDistance(a), layout.getDistance(b)) : Integer.compare(a, b));
+
+		for (int bay : order) {
+			int part = partOf[bay];
+			int rank = counts[part]++;
+
+			bays[part][rank] = bay;
+			rankOf[bay] = rank;
+
+			// Step.3 - Remember where each run of equal distances starts
+			boolean tie = rank > 0 && layout.getDistance(bays[part][rank - 1]) == layout.getDistance(bay);
+			tieStart[part][rank] = tie ? tieStart[part][rank - 1] : rank;
+		}
+	}
+
+	/**
+	 *
+	 * Get the position a type of parking bay is counted in
+	 *
+	 * @param String type [The type of parking bay i.e. N, D or E]
+	 * @return int [The position, unknown types are counted as normal parking bays]
+	 */
+	static int typeIndex(String type) {
+		if (type.equals("D")) {
+			return 1;
+		} else if (type.equals("E")) {
+			return 2;
+		}
+
+		return 0;
+	}
+
+	/**
+	 *
+	 * Mark a parking bay as occupied
+	 *
+	 * @param int bay [The index of the parking bay in the layout]
+	 * @return boolean [Whether or not the parking bay was free]
+	 */
+	public boolean occupy(int bay) {
+		int part = partOf[bay];
+		int word = rankOf[bay] >>> 6;
+		long bit = 1L << rankOf[bay];
+
+		while (true) {
+			long bits = occupied[part].get(word);
+
+			if ((bits & bit) != 0) {
+				return false;
+			}
+
+			if (occupied[part].compareAndSet(word, bits, bits | bit)) {
+				free.decrementAndGet(part);
+
+				synchronized (freeBays[part]) {
+					freeBays[part].remove(bay);
+				}
+
+				return true;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Mark a parking bay as free
+	 *
+	 * @param int bay [The index of the parking bay in the layout]
+	 * @return boolean [Whether or not the parking bay was occupied]
+	 */
+	public boolean release(int bay) {
+		int part = partOf[bay];
+		int word = rankOf[bay] >>> 6;
+		long bit = 1L << rankOf[bay];
+
+		while (true) {
+			long bits = occupied[part].get(word);
+
+			if ((bits & bit) == 0) {
+				return false;
+			}
+
+			if (occupied[part].compareAndSet(word, bits, bits & ~bit)) {
+				free.incrementAndGet(part);
+
+				synchronized (freeBays[part]) {
+					freeBays[part].add(bay);
+				}
+
+				return true;
+			}
+		}
+	}
+
+	// Return whether or not a parking bay is occupied
+	public boolean isOccupied(int bay) {
+		return (occupied[partOf[bay]].get(rankOf[bay] >>> 6) & (1L << rankOf[bay])) != 0;
+	}
+
+	/**
+	 *
+	 * Find the best free parking bay of the given type on any level
+	 * Of parking bays the same distance from the entrance, the first in bay order is chosen
+	 *
+	 * @param String type [The type of parking bay i.e. N, D or E]
+	 * @param boolean farthest [Whether to find the parking bay farthest from, or closest to, the entrance]
+	 * @return int best [The index of the parking bay in the layout, or -1 if none are free]
+	 */
+	public int findFree(String type, boolean farthest) {
+		int best = -1;
+
+		for (int level = 0; level < levels; level++) {
+			int bay = findFree(type, level, farthest);
+
+			if (bay < 0) {
+				continue;
+			}
+
+			// Keep the better of the two, levels are in bay order so a tie keeps the earlier level
+			int difference = layout.getDistance(bay) - (best < 0 ? 0 : layout.getDistance(best));
+
+			if (best < 0 || (farthest ? difference > 0 : difference < 0)) {
+				best = bay;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 *
+	 * Find the best free parking bay of the given type on one level
+	 * Of parking bays the same distance from the entrance, the first in bay order is chosen
+	 *
+	 * @param String type [The type of parking bay i.e. N, D or E]
+	 * @param int level [The level of the carpark]
+	 * @param boolean farthest [Whether to find the parking bay farthest from, or closest to, the entrance]
+	 * @return int bay [The index of the parking bay in the layout, or -1 if none are free]
+	 */
+	public int findFree(String type, int level, boolean farthest) {
+		int part = typeIndex(type) * levels + level;
+		int rank;
+
+		// Skip the search when the level is full
+		if (free.get(part) == 0) {
+			return -1;
+		}
+
+		if (farthest) {
+			rank = previousClear(part, bays[part].length - 1);
+
+			// Go back to the first free parking bay at the same distance
+			if (rank >= 0) {
+				rank = nextClear(part, tieStart[part][rank]);
+			}
+		} else {
+			rank = nextClear(part, 0);
+		}
+
+		return rank < 0 ? -1 : bays[part][rank];
+	}
+
+	/**
+	 *
+	 * Find the free parking bays of the given type on a level closest to a point, such as the entrance to the level
+	 *
+	 * @param String type [The type of parking bay i.e. N, D or E]
+	 * @param int level [The level of the carpark]
+	 * @param double x [The X coordinate of the point]
+	 * @param double y [The Y coordinate of the point]
+	 * @param int k [The most parking bays to find]
+	 * @return int[] [Up to k free parking bays, closest first]
+	 */
+	public int[] nearestFree(String type, int level, double x, double y, int k) {
+		SpatialIndex index = freeBays[typeIndex(type) * levels + level];
+
+		synchronized (index) {
+			return index.nearest(x, y, k);
+		}
+	}
+
+	/**
+	 *
+	 * Find the free parking bays of the given type on the ground level closest to a point, such as the entrance
+	 *
+	 * @param String type [The type of parking bay i.e. N, D or E]
+	 * @param double x [The X coordinate of the point]
+	 * @param double y [The Y coordinate of the point]
+	 * @param int k [The most parking bays to find]
+	 * @return int[] [Up to k free parking bays, closest first]
+	 */
+	public int[] nearestFree(String type, double x, double y, int k) {
+		return nearestFree(type, 0, x, y, k);
+	}
+
+	/**
+	 *
+	 * Find every free parking bay of the given type on a level within a distance of a point
+	 *
+	 * @param String type [The type of parking bay i.e. N, D or E]
+	 * @param int level [The level of the carpark]
+	 * @param double x [The X coordinate of the point]
+	 * @param double y [The Y coordinate of the point]
+	 * @param double radius [The greatest distance in metres]
+	 * @return int[] [The free parking bays within the distance, in no particular order]
+	 */
+	public int[] freeWithin(String type, int level, double x, double y, double radius) {
+		SpatialIndex index = freeBays[typeIndex(type) * levels + level];
+
+		synchronized (index) {
+			return index.within(x, y, radius);
+		}
+	}
+
+	/**
+	 *
+	 * Find every free parking bay of the given type on the ground level within a distance of a point
+	 *
+	 * @param String type [The type of parking bay i.e. N, D or E]
+	 * @param double x [The X coordinate of the point]
+	 * @param double y [The Y coordinate of the point]
+	 * @param double radius [The greatest distance in metres]
+	 * @return int[] [The free parking bays within the distance, in no particular order]
+	 */
+	public int[] freeWithin(String type, double x, double y, double radius) {
+		return freeWithin(type, 0, x, y, radius);
+	}
+
+	// Return the number of free parking bays of the given type
+	public int getFree(String type) {
+		int start = typeIndex(type) * levels;
+		int total = 0;
+
+		for (int part = start; part < start + levels; part++) {
+			total = total + free.get(part);
+		}
+
+		return total;
+	}
+
+	// Return the number of parking bays of the given type
+	public int getCapacity(String type) {
+		int start = typeIndex(type) * levels;
+		int total = 0;
+
+		for (int part = start; part < start + levels; part++) {
+			total = total + bays[part].length;
+		}
+
+		return total;
+	}
+
+	// Return the number of occupied parking bays of every type
+	public int getOccupied() {
+		int total = 0;
+
+		for (int part = 0; part < bays.length; part++) {
+			total = total + bays[part].length - free.get(part);
+		}
+
+		return total;
+	}
+
+	// Return the number of occupied parking bays of every type on a level
+	public int getOccupied(int level) {
+		int total = 0;
+
+		for (int part = level; part < bays.length; part = part + levels) {
+			total = total + bays[part].length - free.get(part);
+		}
+
+		return total;
+	}
+
+	// Return the percentage of parking bays occupied
+	public double getUtilisation() {
+		return partOf.length == 0 ? 0 : 100.0 * getOccupied() / partOf.length;
+	}
+
+	// Return the percentage of parking bays occupied on a level
+	public double getUtilisation(int level) {
+		int capacity = layout.getLevelCapacity();
+
+		return capacity == 0 ? 0 : 100.0 * getOccupied(level) / capacity;
+	}
+
+	/**
+	 *
+	 * Check whether a car could park, either in a parking bay of its own type or in a normal parking bay
+	 *
+	 * @param String carType [The type of the car i.e. N, D or E]
+	 * @return boolean [Whether or not a suitable parking bay is free]
+	 */
+	public boolean hasSpaceFor(String carType) {
+		return getFree(carType) > 0 || getFree("N") > 0;
+	}
+
+	/**
+	 *
+	 * Find the first clear bit at or after a rank
+	 *
+	 * @param int part [The partition]
+	 * @param int from [The rank to start from]
+	 * @return int [The rank of the first free parking bay, or -1 if none are free]
+	 */
+	private int nextClear(int part, int from) {
+		AtomicLongArray bits = occupied[part];
+		int size = bays[part].length;
+
+		if (from >= size) {
+			return -1;
+		}
+
+		int word = from >>> 6;
+		long clear = ~bits.get(word) & (-1L << from);
+
+		while (true) {
+			if (clear != 0) {
+				int rank = (word << 6) + Long.numberOfTrailingZeros(clear);
+
+				return rank < size ? rank : -1;
+			}
+
+			if (++word == bits.length()) {
+				return -1;
+			}
+
+			clear = ~bits.get(word);
+		}
+	}
+
+	/**
+	 *
+	 * Find the last clear bit at or before a rank
+	 *
+	 * @param int part [The partition]
+	 * @param int from [The rank to start from]
+	 * @return int [The rank of the last free parking bay, or -1 if none are free]
+	 */
+	private int previousClear(int part, int from) {
+		AtomicLongArray bits = occupied[part];
+
+		if (from < 0) {
+			return -1;
+		}
+
+		int word = from >>> 6;
+		long clear = ~bits.get(word) & (-1L >>> (63 - (from & 63)));
+
+		while (true) {
+			if (clear != 0) {
+				return (word << 6) + 63 - Long.numberOfLeadingZeros(clear);
+			}
+
+			if (--word < 0) {
+				return -1;
+			}
+
+			clear = ~bits.get(word);
+		}
+	}
+}
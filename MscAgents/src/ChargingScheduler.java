@@ -0,0 +1,472 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ *
+ * Shares the power the site can draw between the electric cars charging in the electric parking bays.
+ *
+ * Each electric parking bay has a charger with a rated power, and each electric car that parks in one wants a random amount of energy.
+ * Power is shared by water-filling: every charging car gets the same power, the water level, unless its charger is rated lower,
+ * in which case it gets its rated power and the rest is shared between the others. A car stops drawing power once it is full.
+ * If the budget covers every charger at its rated power the level is unlimited.
+ *
+ * Cars are grouped by the rated power of their charger, so every car in a group always charges at the same power and
+ * the energy each has received can be kept as one running total per group. The cars of a group are held in the order they will
+ * be full, which never changes. Connecting, disconnecting and a car becoming full cost O(log n) in the number of cars
+ * plus O(g) in the number of different charger ratings, which is a handful. Cars becoming full are found as time
+ * is brought up to date, so nothing needs to tick between events.
+ *
+ * Power is in kW, energy in kWh and time in ticks of the model clock. Safe to share between agents.
+ *
+ */
+
+public class ChargingScheduler {
+	// Number of ticks in an hour of model time
+	private static final double TICKS_PER_HOUR = 60.0 * ArrivalSource.TICKS_PER_MINUTE;
+
+	// Energy a car can be short of its demand and still count as full, to absorb rounding
+	private static final double EPSILON = 1e-9;
+
+	// Setup
+	private final double[] chargerPower; // rated kW of the charger at each parking bay, 0 if it has none
+	private final double budget; // kW shared by every charger, infinite if unlimited
+	private final double minDemand; // the least kWh a car wants
+	private final double maxDemand; // the most kWh a car wants
+	private Random rand; // source of randomness for how much energy each car wants
+	private int chargers = 0; // the number of parking bays with a charger
+
+	// Allocation
+	private final TreeMap<Double, Group> groups = new TreeMap<Double, Group>(); // groups of charging cars by rated power, lowest first
+	private final HashMap<Integer, Session> sessions = new HashMap<Integer, Session>(); // every connected car by parking bay
+	private double now = 0; // the time the energy totals are up to date to
+	private double level = Double.POSITIVE_INFINITY; // the power a car gets if its charger allows
+	private double load = 0; // the power being drawn
+	private int charging = 0; // cars connected and not yet full
+	private long nextId = 0; // order of connection, to tell cars wanting the same energy apart
+
+	// Totals
+	private int connections = 0; // cars that have connected
+	private double demanded = 0; // energy wanted by every car that has connected
+	private double delivered = 0; // energy given to every car
+	private double unmet = 0; // energy wanted but not given to cars that have left
+	private double peakLoad = 0; // the most power drawn at once
+
+	/**
+	 *
+	 * Class Constructor
+	 * The electric parking bays are given the charger ratings of the scenario in turn, in bay order
+	 *
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param Scenario scenario [The simulation options]
+	 * @param Random rand [The source of randomness for how much energy each car wants]
+	 */
+	ChargingScheduler(CarparkLayout layout, Scenario scenario, Random rand) {
+		double[] ratings = scenario.getChargerPowers();
+
+		this.chargerPower = new double[layout.getCapacity()];
+		this.budget = scenario.getChargingBudget() > 0 ? scenario.getChargingBudget() : Double.POSITIVE_INFINITY;
+		this.minDemand = scenario.getMinChargeDemand();
+		this.maxDemand = scenario.getMaxChargeDemand();
+		this.rand = rand;
+
+		for (int bay = 0; bay < chargerPower.length; bay++) {
+			if (layout.getType(bay).equals("E")) {
+				chargerPower[bay] = ratings[chargers % ratings.length];
+				chargers++;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Connect a car to the charger of a parking bay and share the power again
+	 *
+	 * @param int bay [The index of the parking bay in the layout]
+	 * @param long tick [The current time]
+	 * @return boolean [Whether or not the car was connected, false if the parking bay has no charger or is already in use]
+	 */
+	public synchronized boolean connect(int bay, long tick) {
+		if (chargerPower[bay] <= 0 || sessions.containsKey(bay)) {
+			return false;
+		}
+
+		advance(tick);
+
+		// Step.1 - Decide how much energy the car wants
+		double demand = minDemand + rand.nextDouble() * (maxDemand - minDemand);
+
+		// Step.2 - Join the group of cars charging at the same rated power
+		Group group = groups.get(chargerPower[bay]);
+
+		if (group == null) {
+			group = new Group(chargerPower[bay]);
+			groups.put(group.power, group);
+		}
+
+		Session session = new Session(group, demand, group.energy + demand, nextId++);
+
+		group.sessions.add(session);
+		sessions.put(bay, session);
+		charging++;
+		connections++;
+		demanded = demanded + demand;
+
+		// Step.3 - Share the power again
+		allocate();
+
+		return true;
+	}
+
+	/**
+	 *
+	 * Disconnect the car charging at a parking bay and share the power again
+	 *
+	 * @param int bay [The index of the parking bay in the layout]
+	 * @param long tick [The current time]
+	 * @return double received [The kWh the car received, 0 if no car was connected]
+	 */
+	public synchronized double disconnect(int bay, long tick) {
+		Session session = sessions.get(bay);
+
+		if (session == null) {
+			return 0;
+		}
+
+		advance(tick);
+		sessions.remove(bay);
+
+		double received = session.demand;
+
+		// A car that isn't full stops charging early
+		if (!session.full) {
+			received = session.demand - (session.target - session.group.energy);
+			stopCharging(session);
+			allocate();
+		}
+
+		unmet = unmet + Math.max(0, session.demand - received);
+
+		return received;
+	}
+
+	/**
+	 *
+	 * Bring the energy totals up to date, sharing the power again each time a car becomes full
+	 *
+	 * @param long tick [The current time]
+	 */
+	public synchronized void advance(long tick) {
+		while (true) {
+			// Step.1 - Find the car that will be full first, the first of some group
+			Session first = null;
+			double full = tick;
+
+			for (Group group : groups.values()) {
+				if (group.rate <= 0) {
+					continue;
+				}
+
+				Session candidate = group.sessions.first();
+				double when = now + Math.max(0, candidate.target - group.energy) / group.rate * TICKS_PER_HOUR;
+
+				if (when <= full) {
+					first = candidate;
+					full = when;
+				}
+			}
+
+			// Step.2 - Charge every car up to then
+			progress(full);
+
+			if (first == null) {
+				return;
+			}
+
+			// Step.3 - The car is full, so share its power between the others
+			first.full = true;
+			stopCharging(first);
+			allocate();
+		}
+	}
+
+	/**
+	 *
+	 * Write the connected cars, totals and random stream to a checkpoint
+	 *
+	 * @param DataOutputStream out [Where to write]
+	 * @throws IOException [If the state can't be written]
+	 */
+	public synchronized void save(DataOutputStream out) throws IOException {
+		out.writeDouble(now);
+		out.writeLong(nextId);
+		out.writeInt(connections);
+		out.writeDouble(demanded);
+		out.writeDouble(delivered);
+		out.writeDouble(unmet);
+		out.writeDouble(peakLoad);
+		Checkpoint.writeRandom(out, rand);
+
+		// Each group's running total, so cars carry on exactly where they were
+		out.writeInt(groups.size());
+
+		for (Group group : groups.values()) {
+			out.writeDouble(group.power);
+			out.writeDouble(group.energy);
+		}
+
+		// Each car as its parking bay, order of connection, what it wants, when it will be full and what it has received
+		out.writeInt(sessions.size());
+
+		for (Map.Entry<Integer, Session> entry : sessions.entrySet()) {
+			Session session = entry.getValue();
+
+			out.writeInt(entry.getKey());
+			out.writeLong(session.id);
+			out.writeDouble(session.demand);
+			out.writeDouble(session.group.power);
+			out.writeDouble(session.target);
+			out.writeBoolean(session.full);
+			out.writeDouble(session.full ? session.demand : session.demand - (session.target - session.group.energy));
+		}
+	}
+
+	/**
+	 *
+	 * Carry on from the connected cars, totals and random stream written to a checkpoint
+	 * Cars at parking bays whose charger has a different rating in the new scenario carry on from the energy they have received,
+	 * and cars at parking bays without a charger are left unplugged
+	 *
+	 * @param DataInputStream in [Where to read from]
+	 * @throws IOException [If the state can't be read]
+	 */
+	public synchronized void restore(DataInputStream in) throws IOException {
+		groups.clear();
+		sessions.clear();
+		charging = 0;
+
+		now = in.readDouble();
+		nextId = in.readLong();
+		connections = in.readInt();
+		demanded = in.readDouble();
+		delivered = in.readDouble();
+		unmet = in.readDouble();
+		peakLoad = in.readDouble();
+		rand = Checkpoint.readRandom(in);
+
+		HashMap<Double, Group> saved = new HashMap<Double, Group>(); // the groups as they were saved
+
+		for (int i = in.readInt(); i > 0; i--) {
+			Group group = new Group(in.readDouble());
+
+			group.energy = in.readDouble();
+			saved.put(group.power, group);
+		}
+
+		for (int i = in.readInt(); i > 0; i--) {
+			int bay = in.readInt();
+			long id = in.readLong();
+			double demand = in.readDouble();
+			double power = in.readDouble();
+			double target = in.readDouble();
+			boolean full = in.readBoolean();
+			double received = in.readDouble();
+
+			if (chargerPower[bay] <= 0) {
+				continue;
+			}
+
+			Group group = groups.get(chargerPower[bay]);
+
+			if (group == null) {
+				group = chargerPower[bay] == power && saved.containsKey(power) ? saved.get(power) : new Group(chargerPower[bay]);
+				groups.put(group.power, group);
+			}
+
+			// Place the car exactly where it was if its charger is unchanged, otherwise as far from full as it was
+			Session session = new Session(group, demand, group == saved.get(power) ? target : group.energy + demand - received, id);
+
+			sessions.put(bay, session);
+
+			if (full) {
+				session.full = true;
+			} else {
+				group.sessions.add(session);
+				charging++;
+			}
+		}
+
+		// Drop any groups whose cars were all full
+		groups.values().removeIf(group -> group.sessions.isEmpty());
+		allocate();
+	}
+
+	// Return the number of parking bays with a charger
+	public int getChargers() {
+		return chargers;
+	}
+
+	// Return the rated kW of the charger at a parking bay, 0 if it has none
+	public double getChargerPower(int bay) {
+		return chargerPower[bay];
+	}
+
+	// Return the number of cars connected to a charger, full or not
+	public synchronized int getConnected() {
+		return sessions.size();
+	}
+
+	// Return the number of cars drawing power
+	public synchronized int getCharging() {
+		return charging;
+	}
+
+	// Return the power each car gets if its charger allows, infinite if every charger gets its rated power
+	public synchronized double getLevel() {
+		return level;
+	}
+
+	// Return the power being drawn in kW
+	public synchronized double getLoad() {
+		return load;
+	}
+
+	// Return the most power drawn at once in kW
+	public synchronized double getPeakLoad() {
+		return peakLoad;
+	}
+
+	// Return the number of cars that have connected
+	public synchronized int getConnections() {
+		return connections;
+	}
+
+	// Return the kWh wanted by every car that has connected
+	public synchronized double getDemanded() {
+		return demanded;
+	}
+
+	// Return the kWh given to every car, up to the last event
+	public synchronized double getDelivered() {
+		return delivered;
+	}
+
+	// Return the kWh wanted but not given to cars that have left
+	public synchronized double getUnmet() {
+		return unmet;
+	}
+
+	/**
+	 *
+	 * Charge every car at its current power up to a time
+	 *
+	 * @param double time [The time in ticks]
+	 */
+	private void progress(double time) {
+		double hours = (time - now) / TICKS_PER_HOUR;
+
+		if (hours <= 0) {
+			return;
+		}
+
+		for (Group group : groups.values()) {
+			group.energy = group.energy + group.rate * hours;
+		}
+
+		delivered = delivered + load * hours;
+		now = time;
+	}
+
+	/**
+	 *
+	 * Remove a car from the cars drawing power
+	 *
+	 * @param Session session [The car]
+	 */
+	private void stopCharging(Session session) {
+		Group group = session.group;
+
+		group.sessions.remove(session);
+		charging--;
+
+		// Drop empty groups so only ratings in use are visited
+		if (group.sessions.isEmpty()) {
+			groups.remove(group.power);
+		}
+	}
+
+	// Share the budget by water-filling, lowest rated groups first
+	private void allocate() {
+		double remaining = budget;
+		int left = charging;
+
+		level = Double.POSITIVE_INFINITY;
+		load = 0;
+
+		// Step.1 - Every car in a group gets its rated power while that leaves at least as much for each car after it
+		for (Group group : groups.values()) {
+			int count = group.sessions.size();
+
+			if (group.power * left > remaining) {
+				level = remaining / left;
+				break;
+			}
+
+			remaining = remaining - group.power * count;
+			left = left - count;
+		}
+
+		// Step.2 - The rest share what is left equally
+		for (Group group : groups.values()) {
+			group.rate = Math.min(group.power, level);
+			load = load + group.rate * group.sessions.size();
+		}
+
+		peakLoad = Math.max(peakLoad, load);
+	}
+
+	/**
+	 *
+	 * The cars charging at chargers of the same rated power
+	 *
+	 */
+	private static class Group {
+		final double power; // rated kW of the chargers
+		final TreeSet<Session> sessions = new TreeSet<Session>(); // the cars charging, in the order they will be full
+		double energy = 0; // kWh a car charging since the group was created would have received
+		double rate = 0; // kW each car is drawing
+
+		Group(double power) {
+			this.power = power;
+		}
+	}
+
+	/**
+	 *
+	 * A car connected to a charger
+	 *
+	 */
+	private static class Session implements Comparable<Session> {
+		final Group group; // the group the car charges in
+		final double demand; // kWh the car wants
+		final double target; // the group energy at which the car is full
+		final long id; // order of connection
+		boolean full = false; // whether or not the car has all the energy it wants
+
+		Session(Group group, double demand, double target, long id) {
+			this.group = group;
+			this.demand = demand;
+			this.target = target;
+			this.id = id;
+		}
+
+		public int compareTo(Session other) {
+			return target != other.target ? Double.compare(target, other.target) : Long.compare(id, other.id);
+		}
+	}
+}
@@ -0,0 +1,277 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+/**
+ *
+ * Binary snapshot of a headless simulation, so many experiments can be forked from one warmed-up steady state.
+ *
+ * Holds the time, the layout, the state of the arrivals including their random streams, and for each carpark its queue,
+ * parked cars with their remaining duration, charging cars and analytics totals. Occupancy is rebuilt from the parked cars.
+ *
+ * A simulation restored from a checkpoint keeps the layout of the checkpoint and carries on from its time,
+ * with the options of the new scenario for everything that happens afterwards. Each carpark carries on from the carpark
+ * in the checkpoint with the same strategy, or the first carpark if none has, so one warmed-up carpark can be forked
+ * into every strategy. Restored runs continue the random streams of the checkpoint, so forks differ only by their options.
+ *
+ * Format, big-endian as written by DataOutputStream:
+ * magic, version, tick, layout, arrivals section, number of carparks, then the strategy label and section of each carpark.
+ * Each section is its length in bytes followed by its contents, so a reader can skip carparks it doesn't need.
+ *
+ */
+
+public final class Checkpoint {
+	private static final int MAGIC = 0x4D534350; // MSCP
+	private static final int VERSION = 1;
+
+	private final long tick; // when the checkpoint was taken
+	private final CarparkLayout layout;
+	private final byte[] arrivals; // the state of the arrival source
+	private final LinkedHashMap<String, byte[]> carparks; // the state of each carpark by strategy label, in order
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param long tick [When the checkpoint was taken]
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param byte[] arrivals [The state of the arrival source]
+	 * @param LinkedHashMap<String, byte[]> carparks [The state of each carpark by strategy label]
+	 */
+	private Checkpoint(long tick, CarparkLayout layout, byte[] arrivals, LinkedHashMap<String, byte[]> carparks) {
+		this.tick = tick;
+		this.layout = layout;
+		this.arrivals = arrivals;
+		this.carparks = carparks;
+	}
+
+	/**
+	 *
+	 * Write a checkpoint of a headless simulation
+	 *
+	 * @param String path [Where to write the checkpoint]
+	 * @param long tick [The current time]
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param ArrivalSource arrivals [The arrival source]
+	 * @param HeadlessCarpark[] carparks [Every carpark fed by the arrivals]
+	 * @throws IOException [If the checkpoint can't be written]
+	 */
+	public static void save(String path, long tick, CarparkLayout layout, ArrivalSource arrivals, HeadlessCarpark[] carparks) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(tick);
+			layout.save(out);
+			writeSection(out, arrivals::save);
+			out.writeInt(carparks.length);
+
+			for (HeadlessCarpark carpark : carparks) {
+				out.writeUTF(carpark.getStrategy().getLabel());
+				writeSection(out, carpark::save);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Read a checkpoint
+	 *
+	 * @param String path [The location of the checkpoint]
+	 * @return Checkpoint [The checkpoint]
+	 * @throws IOException [If the checkpoint can't be read or isn't a checkpoint]
+	 */
+	public static Checkpoint load(String path) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path), 1 << 16))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(path + " isn't a checkpoint");
+			}
+
+			int version = in.readInt();
+
+			if (version != VERSION) {
+				throw new IOException(path + " is checkpoint version " + version + ", expected " + VERSION);
+			}
+
+			long tick = in.readLong();
+			CarparkLayout layout = CarparkLayout.read(in);
+			byte[] arrivals = readSection(in);
+			int count = in.readInt();
+			LinkedHashMap<String, byte[]> carparks = new LinkedHashMap<String, byte[]>();
+
+			for (int i = 0; i < count; i++) {
+				String label = in.readUTF();
+
+				carparks.put(label, readSection(in));
+			}
+
+			return new Checkpoint(tick, layout, arrivals, carparks);
+		}
+	}
+
+	// Return when the checkpoint was taken
+	public long getTick() {
+		return tick;
+	}
+
+	// Return the layout of the carpark
+	public CarparkLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 *
+	 * Restore an arrival source built from the new scenario to its state in the checkpoint
+	 *
+	 * @param ArrivalSource source [The arrival source, of the same kind as the one saved]
+	 * @throws IOException [If the state can't be read]
+	 */
+	public void restore(ArrivalSource source) throws IOException {
+		source.restore(new DataInputStream(new ByteArrayInputStream(arrivals)));
+	}
+
+	/**
+	 *
+	 * Restore a carpark built on the checkpoint's layout to the state of the carpark with the same strategy, or the first carpark
+	 *
+	 * @param HeadlessCarpark carpark [The empty carpark]
+	 * @throws IOException [If the state can't be read]
+	 */
+	public void restore(HeadlessCarpark carpark) throws IOException {
+		byte[] state = carparks.get(carpark.getStrategy().getLabel());
+
+		if (state == null) {
+			state = carparks.values().iterator().next();
+		}
+
+		carpark.restore(new DataInputStream(new ByteArrayInputStream(state)));
+	}
+
+	/**
+	 *
+	 * Write the state of a random number generator
+	 *
+	 * @param DataOutputStream out [Where to write]
+	 * @param Random rand [The random number generator]
+	 * @throws IOException [If the state can't be written]
+	 */
+	static void writeRandom(DataOutputStream out, Random rand) throws IOException {
+		// Random keeps its seed private but is serializable, which captures exactly where its stream has got to
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ObjectOutputStream object = new ObjectOutputStream(bytes)) {
+			object.writeObject(rand);
+		}
+
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+	}
+
+	/**
+	 *
+	 * Read the state of a random number generator
+	 *
+	 * @param DataInputStream in [Where to read from]
+	 * @return Random [A random number generator that carries on where the saved one left off]
+	 * @throws IOException [If the state can't be read]
+	 */
+	static Random readRandom(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+
+		in.readFully(bytes);
+
+		try (ObjectInputStream object = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			// Only accept a Random, so a tampered checkpoint can't create anything else
+			object.setObjectInputFilter(info -> info.serialClass() == null || info.serialClass() == Random.class ? ObjectInputFilter.Status.ALLOWED : ObjectInputFilter.Status.REJECTED);
+
+			return (Random) object.readObject();
+		} catch (ClassNotFoundException | ClassCastException e) {
+			throw new IOException("Invalid random state in checkpoint", e);
+		}
+	}
+
+	/**
+	 *
+	 * Write a car, or that there is none
+	 *
+	 * @param DataOutputStream out [Where to write]
+	 * @param Arrival arrival [The car, or null]
+	 * @throws IOException [If the car can't be written]
+	 */
+	static void writeArrival(DataOutputStream out, Arrival arrival) throws IOException {
+		out.writeBoolean(arrival != null);
+
+		if (arrival != null) {
+			out.writeUTF(arrival.getNumberPlate());
+			out.writeUTF(arrival.getType());
+			out.writeUTF(arrival.getMakeModel());
+			out.writeDouble(arrival.getMpg());
+			out.writeDouble(arrival.getCarbonEmissions());
+			out.writeInt(arrival.getDuration());
+			out.writeLong(arrival.getTick());
+		}
+	}
+
+	/**
+	 *
+	 * Read a car written by writeArrival
+	 *
+	 * @param DataInputStream in [Where to read from]
+	 * @return Arrival [The car, or null if there was none]
+	 * @throws IOException [If the car can't be read]
+	 */
+	static Arrival readArrival(DataInputStream in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+
+		return new Arrival(in.readUTF(), in.readUTF(), in.readUTF(), in.readDouble(), in.readDouble(), in.readInt(), in.readLong());
+	}
+
+	/**
+	 *
+	 * Write a section prefixed by its length
+	 *
+	 * @param DataOutputStream out [Where to write]
+	 * @param Section section [Writes the contents of the section]
+	 * @throws IOException [If the section can't be written]
+	 */
+	private static void writeSection(DataOutputStream out, Section section) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (DataOutputStream contents = new DataOutputStream(bytes)) {
+			section.save(contents);
+		}
+
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+	}
+
+	// Read a section written by writeSection
+	private static byte[] readSection(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+
+		in.readFully(bytes);
+
+		return bytes;
+	}
+
+	/**
+	 *
+	 * Writes the contents of a section
+	 *
+	 */
+	private interface Section {
+		void save(DataOutputStream out) throws IOException;
+	}
+}
@@ -0,0 +1,406 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ * Append-only binary journal of every simulation event.
+ *
+ * Agents record events into a preallocated ring buffer of primitive arrays, so recording never touches the disk or allocates.
+ * A single background thread drains the ring buffer into a memory-mapped file, mapping a new chunk whenever the current one is full.
+ *
+ * File layout (little endian):
+ * Header - int magic, int version, int record size, int reserved, long start time (epoch ms), long record count
+ * Record - long time (ns since start), long number plate (packed ASCII), int event, int argument, double value
+ *
+ * Run the class directly to print a journal as CSV: java EventJournal journal.bin
+ *
+ */
+
+public class EventJournal {
+	// Event types
+	public static final int ARRIVAL = 1; // argument: queue length
+	public static final int HEAD_OF_QUEUE = 2; // argument: time spent queueing (ms)
+	public static final int CFP = 3; // argument: number of parking bays contacted, value: 1 if matching car type
+	public static final int PROPOSAL = 4; // argument: proposed distance, value: parking bay
+	public static final int ACCEPT = 5; // argument: accepted distance, value: parking bay
+	public static final int PARK = 6; // argument: distance parked from the entrance, value: parking bay
+	public static final int DEPART = 7; // argument: time spent parked (ms)
+	public static final int FUEL = 8; // argument: distance, value: fuel used (L)
+	public static final int CO2 = 9; // argument: distance, value: CO2 produced (g)
+	public static final int BALK = 10; // argument: queue length
+	public static final int RENEGE = 11; // argument: time spent queueing (ms)
+
+	// Names of the event types, indexed by type
+	static final String[] NAMES = { "", "ARRIVAL", "HEAD_OF_QUEUE", "CFP", "PROPOSAL", "ACCEPT", "PARK", "DEPART", "FUEL", "CO2", "BALK", "RENEGE" };
+
+	// File layout
+	static final int MAGIC = 0x43504A31; // CPJ1
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+	static final int RECORD_SIZE = 32;
+	static final long CHUNK_SIZE = 16L << 20; // map 16MB of records at a time
+	private static final int COUNT_OFFSET = 24; // position of the record count in the header
+
+	// How long the writer waits when there is nothing to write
+	private static final long IDLE_NANOS = 100_000;
+
+	// Ring buffer
+	private final int capacity;
+	private final int mask;
+	private final long[] times;
+	private final long[] plates;
+	private final int[] events;
+	private final int[] arguments;
+	private final double[] values;
+	private final AtomicLongArray published; // sequence + 1 of the record held in each slot
+	private final AtomicLong claimed = new AtomicLong(); // next sequence to be handed to an agent
+	private final AtomicLong dropped = new AtomicLong(); // records from agents still running after the journal was closed
+	private volatile long consumed = 0; // sequences below this have been written to the file
+
+	// File
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private MappedByteBuffer header;
+	private MappedByteBuffer chunk;
+	private long chunkStart;
+	private long written = 0;
+
+	// Timing
+	private final long startNanos = System.nanoTime();
+
+	// Writer thread
+	private final Thread writer;
+	private volatile boolean closed = false;
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param String path [Where to write the journal]
+	 * @param int capacity [The number of records the ring buffer can hold, rounded up to a power of 2]
+	 * @throws IOException [If the file can't be created]
+	 */
+	EventJournal(String path, int capacity) throws IOException {
+		// Round the capacity up to a power of 2 so slots can be found with a mask
+		this.capacity = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.mask = this.capacity - 1;
+
+		times = new long[this.capacity];
+		plates = new long[this.capacity];
+		events = new int[this.capacity];
+		arguments = new int[this.capacity];
+		values = new double[this.capacity];
+		published = new AtomicLongArray(this.capacity);
+
+		// Start from an empty file
+		File target = new File(path);
+		target.delete();
+
+		file = new RandomAccessFile(target, "rw");
+		channel = file.getChannel();
+
+		// Write the header
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(RECORD_SIZE);
+		header.putInt(0);
+		header.putLong(System.currentTimeMillis());
+		header.putLong(0);
+
+		// Map the first chunk of records
+		mapChunk(HEADER_SIZE);
+
+		// Start writing in the background
+		writer = new Thread(this::drain, "EventJournal");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 *
+	 * Open a journal at the given path
+	 *
+	 * @param String path [Where to write the journal]
+	 * @return EventJournal [The journal, or null if the path is empty or the file can't be created]
+	 */
+	public static EventJournal open(String path) {
+		// Journal is disabled
+		if (path == null || path.isEmpty()) {
+			return null;
+		}
+
+		// Try to create the journal
+		try {
+			return new EventJournal(path, 1 << 16);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 *
+	 * Record an event
+	 * Safe to call from any number of agent threads; waits only if the writer has fallen a full ring buffer behind
+	 * Once the journal is closed the event is dropped and counted instead, so agents that outlive the carpark never wait on a stopped writer
+	 *
+	 * @param int event [The event type]
+	 * @param long plate [The packed number plate of the car]
+	 * @param int argument [The event argument]
+	 * @param double value [The event value]
+	 */
+	public void record(int event, long plate, int argument, double value) {
+		if (closed) {
+			dropped.incrementAndGet();
+			return;
+		}
+
+		// Claim the next slot
+		long sequence = claimed.getAndIncrement();
+
+		// Wait for the writer if the ring buffer is full, unless it has stopped as the journal was closed after the slot was claimed
+		while (sequence - consumed >= capacity) {
+			if (closed && !writer.isAlive()) {
+				dropped.incrementAndGet();
+				return;
+			}
+
+			Thread.yield();
+		}
+
+		// Fill the slot
+		int slot = (int) sequence & mask;
+
+		times[slot] = System.nanoTime() - startNanos;
+		plates[slot] = plate;
+		events[slot] = event;
+		arguments[slot] = argument;
+		values[slot] = value;
+
+		// Hand the slot to the writer
+		published.lazySet(slot, sequence + 1);
+	}
+
+	// Write the remaining events and close the file
+	public void close() {
+		closed = true;
+
+		// Wait for the writer to finish
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// Try to flush and close the file
+		try {
+			header.putLong(COUNT_OFFSET, written);
+			header.force();
+			chunk.force();
+			channel.close();
+			file.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Return the number of events written to the file
+	public long getWritten() {
+		return written;
+	}
+
+	// Return the number of events recorded after the journal was closed, which aren't written
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 *
+	 * Pack a number plate into a long so it fits into a fixed width record
+	 * Keeps the first 8 characters, which covers every current UK number plate
+	 *
+	 * @param String plate [The number plate]
+	 * @return long packed [The number plate as ASCII bytes]
+	 */
+	public static long packPlate(String plate) {
+		long packed = 0;
+
+		for (int i = 0; i < 8; i++) {
+			packed = packed << 8;
+
+			if (i < plate.length()) {
+				packed = packed | (plate.charAt(i) & 0xFF);
+			}
+		}
+
+		return packed;
+	}
+
+	/**
+	 *
+	 * Unpack a number plate packed by packPlate
+	 *
+	 * @param long packed [The number plate as ASCII bytes]
+	 * @return String plate [The number plate]
+	 */
+	public static String unpackPlate(long packed) {
+		StringBuilder plate = new StringBuilder(8);
+
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			char c = (char) ((packed >>> shift) & 0xFF);
+
+			if (c != 0) {
+				plate.append(c);
+			}
+		}
+
+		return plate.toString();
+	}
+
+	// Writer loop, drains the ring buffer into the file until closed
+	private void drain() {
+		long next = 0;
+
+		while (true) {
+			int slot = (int) next & mask;
+
+			// If the next record has been published, write it
+			if (published.get(slot) == next + 1) {
+				write(slot);
+				next++;
+
+				// Release written slots in batches to keep the agents and writer off each other's cache lines
+				if ((next & 63) == 0) {
+					consumed = next;
+				}
+			} else {
+				consumed = next;
+
+				// Once closed and everything claimed has been written, stop
+				if (closed && next == claimed.get()) {
+					return;
+				}
+
+				LockSupport.parkNanos(IDLE_NANOS);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Write the record in the given slot to the file
+	 *
+	 * @param int slot [The ring buffer slot]
+	 */
+	private void write(int slot) {
+		// Map the next chunk if the current one is full
+		if (chunk.remaining() < RECORD_SIZE) {
+			try {
+				mapChunk(chunkStart + chunk.capacity());
+			} catch (IOException e) {
+				e.printStackTrace();
+				return;
+			}
+		}
+
+		chunk.putLong(times[slot]);
+		chunk.putLong(plates[slot]);
+		chunk.putInt(events[slot]);
+		chunk.putInt(arguments[slot]);
+		chunk.putDouble(values[slot]);
+
+		written++;
+
+		// Keep the record count in the header roughly up to date in case the simulation is killed
+		if ((written & 4095) == 0) {
+			header.putLong(COUNT_OFFSET, written);
+		}
+	}
+
+	/**
+	 *
+	 * Map a new chunk of the file for records
+	 *
+	 * @param long position [Where the chunk starts in the file]
+	 * @throws IOException [If the file can't be mapped]
+	 */
+	private void mapChunk(long position) throws IOException {
+		chunkStart = position;
+		chunk = channel.map(FileChannel.MapMode.READ_WRITE, position, CHUNK_SIZE);
+		chunk.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 *
+	 * Print a journal as CSV
+	 *
+	 * @param String path [The location of the journal]
+	 * @param PrintStream out [Where to print the journal]
+	 * @throws IOException [If the journal can't be read]
+	 */
+	public static void print(String path, PrintStream out) throws IOException {
+		try (RandomAccessFile in = new RandomAccessFile(path, "r"); FileChannel journal = in.getChannel()) {
+			// Read the header
+			MappedByteBuffer head = journal.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			head.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (head.getInt() != MAGIC) {
+				throw new IOException(path + " is not an event journal");
+			}
+
+			head.getInt();
+			int recordSize = head.getInt();
+			head.getInt();
+			long start = head.getLong();
+			long count = head.getLong();
+
+			out.println("# started " + start);
+			out.println("time_ms,event,plate,argument,value");
+
+			// Read the records a chunk at a time
+			long position = HEADER_SIZE;
+			long remaining = count;
+
+			while (remaining > 0) {
+				long records = Math.min(remaining, CHUNK_SIZE / recordSize);
+				MappedByteBuffer block = journal.map(FileChannel.MapMode.READ_ONLY, position, records * recordSize);
+				block.order(ByteOrder.LITTLE_ENDIAN);
+
+				for (long i = 0; i < records; i++) {
+					long time = block.getLong();
+					long plate = block.getLong();
+					int event = block.getInt();
+					int argument = block.getInt();
+					double value = block.getDouble();
+
+					String name = event > 0 && event < NAMES.length ? NAMES[event] : Integer.toString(event);
+
+					out.println((time / 1_000_000.0) + "," + name + "," + unpackPlate(plate) + "," + argument + "," + value);
+				}
+
+				position += records * recordSize;
+				remaining -= records;
+			}
+		}
+	}
+
+	// Print the journal given as the first argument to the console
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: java EventJournal <journal>");
+			return;
+		}
+
+		print(args[0], System.out);
+	}
+}
@@ -0,0 +1,346 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ *
+ * State of a single carpark in a headless simulation.
+ * Follows the same rules as the agents without any messaging: the car at the front of the queue tries to park every model speed ticks,
+ * first in a parking bay of its own type then in a normal parking bay, and parked cars count down their duration 10 minutes every 1000 ticks.
+ * Durations that aren't a multiple of 10 minutes, such as stays replayed from a log, are rounded to the nearest multiple of 10 when the car parks.
+ * Cars balk when the queue is too long on arrival and renege when they have queued too long, if the scenario says so.
+ * Electric cars parked in electric parking bays charge while they stay.
+ *
+ */
+
+public class HeadlessCarpark {
+	private final CarparkLayout layout;
+	private final AllocationStrategy strategy;
+	private final Analytics data;
+	private final Scenario scenario;
+	private final int modelSpeed;
+
+	// Occupancy
+	private final CarparkOccupancy occupancy; // which parking bays are occupied, ranked by distance within each type
+	private final ArrayDeque<Arrival> queue = new ArrayDeque<Arrival>(); // cars waiting to enter
+	private final ArrayList<ParkedCar> parked = new ArrayList<ParkedCar>(); // cars currently parked
+	private final ChargingScheduler charging; // power shared between the electric cars charging
+	private ArrayList<ParkedCar> stays; // every car that has parked, in the order they parked, null unless recording
+
+	// Averages sampled once every 1000 ticks
+	private long samples = 0;
+	private double utilisationTotal = 0;
+	private final double[] levelUtilisationTotals; // utilisation of each level
+	private long queueLengthTotal = 0;
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param AllocationStrategy strategy [The algorithm used to choose parking bays]
+	 * @param Analytics data [Where to record the analytics of this carpark]
+	 * @param Scenario scenario [The simulation options]
+	 */
+	HeadlessCarpark(CarparkLayout layout, AllocationStrategy strategy, Analytics data, Scenario scenario) {
+		this.layout = layout;
+		this.strategy = strategy;
+		this.data = data;
+		this.scenario = scenario;
+		this.modelSpeed = scenario.getModelSpeed();
+		this.occupancy = new CarparkOccupancy(layout);
+		this.levelUtilisationTotals = new double[layout.getLevels()];
+		this.charging = new ChargingScheduler(layout, scenario, new Random(scenario.getSeed() + 2));
+
+		data.setTotalCapacity(layout.getWidth(), layout.getLength(), layout.getLevels());
+		data.setCharging(charging);
+	}
+
+	/**
+	 *
+	 * Add an arriving car to the back of the queue, unless the queue is too long and the car drives away
+	 *
+	 * @param Arrival arrival [The arriving car]
+	 */
+	public void arrive(Arrival arrival) {
+		// Update the total number of cars created
+		data.updateCarsCreated();
+
+		if (scenario.balks(queue.size())) {
+			data.increaseCarsBalked();
+			return;
+		}
+
+		queue.add(arrival);
+	}
+
+	/**
+	 *
+	 * Try to park the car at the front of the queue
+	 *
+	 * @param long tick [The current time]
+	 */
+	public void attemptToPark(long tick) {
+		// Cars that have queued too long drive away, the front of the queue has always queued the longest
+		while (!queue.isEmpty() && scenario.reneges(tick - queue.peek().getTick())) {
+			queue.poll();
+			data.increaseCarsReneged();
+		}
+
+		if (queue.isEmpty()) {
+			return;
+		}
+
+		// Every car not at the front of the queue spends another model speed ticks queueing
+		data.updateQueueDuration(modelSpeed * (queue.size() - 1));
+
+		Arrival car = queue.peek();
+
+		// The carpark is full, try again next time without searching
+		if (!occupancy.hasSpaceFor(car.getType())) {
+			return;
+		}
+
+		boolean farthest = strategy.prefersFarthest(car.getType(), car.getMpg(), car.getCarbonEmissions());
+
+		// Look for a parking bay that matches the car type
+		int bay = occupancy.findFree(car.getType(), farthest);
+
+		// No parking bays match the desired type, so look for a normal parking bay
+		if (bay < 0) {
+			bay = occupancy.findFree("N", farthest);
+		}
+
+		// The carpark is full, try again next time
+		if (bay < 0) {
+			return;
+		}
+
+		queue.poll();
+		occupancy.occupy(bay);
+		park(new ParkedCar(car, bay, tick));
+		data.recordQueueWait(tick - car.getTick());
+
+		// Increase cars parked count
+		data.increaseCarsParked();
+
+		// If car is not an electric car, then calculate the cost of parking, otherwise plug it in if there's a charger
+		if (!car.getType().equals("E")) {
+			data.calculateParkingCost(layout.getDistance(bay), car.toSpecification());
+		} else {
+			charging.connect(bay, tick);
+		}
+	}
+
+	/**
+	 *
+	 * Count down the duration of every parked car and free the parking bays of cars whose duration is up
+	 *
+	 * @param long tick [The current time]
+	 */
+	public void tickDurations(long tick) {
+		int i = 0;
+
+		// Bring charging up to date, cars that become full stop drawing power
+		charging.advance(tick);
+
+		while (i < parked.size()) {
+			ParkedCar car = parked.get(i);
+
+			// Duration reduced by 10 each tick
+			car.remaining = car.remaining - 10;
+
+			if (car.remaining <= 0) {
+				data.recordDwell(tick - car.parkedTick);
+
+				// Unplug the car and free up the parking bay, moving the last car into this slot to avoid shifting the list
+				charging.disconnect(car.bay, tick);
+				occupancy.release(car.bay);
+				car.leftTick = tick;
+				parked.set(i, parked.get(parked.size() - 1));
+				parked.remove(parked.size() - 1);
+
+				// Decrement the used capacity of the carpark
+				data.updateUsedCapacity(true);
+			} else {
+				i++;
+			}
+		}
+	}
+
+	// Add a car to the cars parked, and to the stays if recording
+	private void park(ParkedCar car) {
+		parked.add(car);
+
+		if (stays != null) {
+			stays.add(car);
+		}
+	}
+
+	// Start recording every car that parks, where and for how long
+	public void recordStays() {
+		stays = new ArrayList<ParkedCar>();
+	}
+
+	// Return every car that has parked since recording started, in the order they parked, or null if not recording
+	public List<ParkedCar> getStays() {
+		return stays;
+	}
+
+	// Return the layout of the carpark
+	public CarparkLayout getLayout() {
+		return layout;
+	}
+
+	// Sample the utilisation and queue length for the averages
+	public void sample() {
+		samples++;
+		utilisationTotal = utilisationTotal + data.getUtilisation();
+
+		for (int level = 0; level < levelUtilisationTotals.length; level++) {
+			levelUtilisationTotals[level] = levelUtilisationTotals[level] + occupancy.getUtilisation(level);
+		}
+
+		queueLengthTotal = queueLengthTotal + queue.size();
+	}
+
+	// Return whether or not there are no cars queueing or parked
+	public boolean isEmpty() {
+		return queue.isEmpty() && parked.isEmpty();
+	}
+
+	// Return the analytics of this carpark
+	public Analytics getData() {
+		return data;
+	}
+
+	/**
+	 *
+	 * Write the state of the carpark to a checkpoint: analytics, charging, queue, parked cars and sampled averages
+	 *
+	 * @param DataOutputStream out [Where to write]
+	 * @throws IOException [If the state can't be written]
+	 */
+	public void save(DataOutputStream out) throws IOException {
+		data.save(out);
+		charging.save(out);
+
+		out.writeInt(queue.size());
+
+		for (Arrival arrival : queue) {
+			Checkpoint.writeArrival(out, arrival);
+		}
+
+		out.writeInt(parked.size());
+
+		for (ParkedCar car : parked) {
+			Checkpoint.writeArrival(out, car.arrival);
+			out.writeInt(car.bay);
+			out.writeLong(car.parkedTick);
+			out.writeInt(car.remaining);
+		}
+
+		out.writeLong(samples);
+		out.writeDouble(utilisationTotal);
+		out.writeLong(queueLengthTotal);
+		out.writeInt(levelUtilisationTotals.length);
+
+		for (double total : levelUtilisationTotals) {
+			out.writeDouble(total);
+		}
+	}
+
+	/**
+	 *
+	 * Carry on from the state written to a checkpoint, the carpark must be empty and have the same layout
+	 *
+	 * @param DataInputStream in [Where to read from]
+	 * @throws IOException [If the state can't be read]
+	 */
+	public void restore(DataInputStream in) throws IOException {
+		data.restore(in);
+		charging.restore(in);
+
+		for (int i = in.readInt(); i > 0; i--) {
+			queue.add(Checkpoint.readArrival(in));
+		}
+
+		// Occupy the parking bay of every parked car
+		for (int i = in.readInt(); i > 0; i--) {
+			ParkedCar car = new ParkedCar(Checkpoint.readArrival(in), in.readInt(), in.readLong());
+
+			car.remaining = in.readInt();
+			occupancy.occupy(car.bay);
+			park(car);
+		}
+
+		samples = in.readLong();
+		utilisationTotal = in.readDouble();
+		queueLengthTotal = in.readLong();
+
+		for (int level = 0, levels = in.readInt(); level < levels; level++) {
+			levelUtilisationTotals[level] = in.readDouble();
+		}
+	}
+
+	// Return the scheduler sharing power between the electric cars charging
+	public ChargingScheduler getCharging() {
+		return charging;
+	}
+
+	// Return the algorithm used to choose parking bays
+	public AllocationStrategy getStrategy() {
+		return strategy;
+	}
+
+	// Return the number of cars waiting to enter
+	public int getQueueLength() {
+		return queue.size();
+	}
+
+	// Return the average utilisation of the carpark as a percentage
+	public double getAverageUtilisation() {
+		return samples == 0 ? 0 : utilisationTotal / samples;
+	}
+
+	// Return the average utilisation of each level of the carpark as a percentage
+	public double[] getAverageLevelUtilisation() {
+		double[] averages = new double[levelUtilisationTotals.length];
+
+		for (int level = 0; level < averages.length; level++) {
+			averages[level] = samples == 0 ? 0 : levelUtilisationTotals[level] / samples;
+		}
+
+		return averages;
+	}
+
+	// Return the average number of cars waiting to enter
+	public double getAverageQueueLength() {
+		return samples == 0 ? 0 : (double) queueLengthTotal / samples;
+	}
+
+	/**
+	 *
+	 * A car parked in a parking bay
+	 *
+	 */
+	static class ParkedCar {
+		final Arrival arrival;
+		final int bay;
+		final long parkedTick; // when the car parked
+		int remaining; // how long the car has left to stay
+		long leftTick = Long.MAX_VALUE; // when the car left, Long.MAX_VALUE while it is parked
+
+		ParkedCar(Arrival arrival, int bay, long parkedTick) {
+			this.arrival = arrival;
+			this.bay = bay;
+			this.parkedTick = parkedTick;
+			// Durations are counted down 10 minutes at a time, so round to a multiple of 10, at least 10
+			this.remaining = Math.max(1, Math.round(arrival.getDuration() / 10.0f)) * 10;
+		}
+	}
+}
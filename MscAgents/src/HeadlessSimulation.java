@@ -0,0 +1,187 @@
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+/**
+ *
+ * Runs a simulation without agents or a user interface.
+ * Steps a model clock through the scenario's run time as fast as possible, so many simulations can be run in the time one agent simulation takes.
+ * Every simulation has its own layout, arrivals and analytics, so simulations can safely run side by side.
+ *
+ * A simulation can also shadow several allocation strategies at once. The same cars arrive at a separate carpark for each strategy,
+ * each with its own occupancy and analytics, so the strategies are compared on exactly the same arrivals for the cost of generating them once.
+ *
+ * A simulation can write a checkpoint of its state part way through, and carry on from a checkpoint instead of starting empty,
+ * so several simulations can be forked from one warmed-up steady state.
+ *
+ */
+
+public class HeadlessSimulation implements Callable<SimulationResult[]> {
+	private static final int DURATION_TICK = 1000; // how often parked cars count down their duration
+
+	private final Scenario scenario;
+	private final AllocationStrategy[] strategies; // the strategy of each carpark fed by the arrivals
+	private boolean recordStays = false; // whether each carpark records every car that parks
+	private HeadlessCarpark[] carparks; // the carparks of the last run
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param Scenario scenario [The simulation options]
+	 */
+	HeadlessSimulation(Scenario scenario) {
+		this(scenario, new AllocationStrategy[] { scenario.getStrategy() });
+	}
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param Scenario scenario [The simulation options]
+	 * @param AllocationStrategy[] strategies [The strategies to shadow on the same arrivals]
+	 */
+	HeadlessSimulation(Scenario scenario, AllocationStrategy[] strategies) {
+		this.scenario = scenario;
+		this.strategies = strategies;
+	}
+
+	// Run the simulation and return the results of each strategy, in the order they were given
+	public SimulationResult[] call() throws Exception {
+		long started = System.nanoTime();
+
+		// Carry on from a checkpoint if one was given
+		Checkpoint checkpoint = scenario.getRestore().isEmpty() ? null : Checkpoint.load(scenario.getRestore());
+
+		// Generate the layout and arrivals from the seed so the run can be repeated, a checkpoint brings its own layout
+		CarparkLayout layout = checkpoint != null ? checkpoint.getLayout() : CarparkLayout.generate(scenario.getWidth(), scenario.getLength(), scenario.getLevels(), scenario.getRampLength(), new Random(scenario.getSeed()));
+		ArrivalSource arrivals = ArrivalSource.forScenario(scenario, new Random(scenario.getSeed() + 1));
+
+		// A carpark for each strategy, sharing the layout
+		carparks = new HeadlessCarpark[strategies.length];
+
+		for (int i = 0; i < strategies.length; i++) {
+			carparks[i] = new HeadlessCarpark(layout, strategies[i], new Analytics(new HeadlessView()), scenario);
+
+			if (recordStays) {
+				carparks[i].recordStays();
+			}
+		}
+
+		// Step the clock by the largest interval that lands on every event
+		int modelSpeed = scenario.getModelSpeed();
+		int step = gcd(modelSpeed, DURATION_TICK);
+		long end = (long) scenario.getRunTime() * ArrivalSource.TICKS_PER_MINUTE;
+		long start = step;
+
+		// Restore the arrivals and carparks and start from the next step after the checkpoint
+		if (checkpoint != null) {
+			checkpoint.restore(arrivals);
+
+			for (HeadlessCarpark carpark : carparks) {
+				checkpoint.restore(carpark);
+			}
+
+			start = (checkpoint.getTick() / step + 1) * step;
+		}
+
+		// When to write a checkpoint, the end of the run unless a minute was given, -1 if disabled or already written
+		long checkpointTick = scenario.getCheckpoint().isEmpty() ? -1 : scenario.getCheckpointAt() > 0 ? (long) scenario.getCheckpointAt() * ArrivalSource.TICKS_PER_MINUTE : end;
+		long last = start - step; // the last step simulated
+
+		for (long tick = start; tick <= end; tick += step) {
+			last = tick;
+
+			Arrival arrival;
+
+			// Add every car due by now to the queue of every carpark
+			while ((arrival = arrivals.next(tick)) != null) {
+				for (HeadlessCarpark carpark : carparks) {
+					carpark.arrive(arrival);
+				}
+			}
+
+			for (HeadlessCarpark carpark : carparks) {
+				// Count down parked cars
+				if (tick % DURATION_TICK == 0) {
+					carpark.tickDurations(tick);
+				}
+
+				// Let the car at the front of the queue try to park
+				if (tick % modelSpeed == 0) {
+					carpark.attemptToPark(tick);
+				}
+
+				// Sample the averages once the gate has let any car through, so a car parking now isn't counted as queueing
+				if (tick % DURATION_TICK == 0) {
+					carpark.sample();
+				}
+			}
+
+			// Write the checkpoint once the clock reaches its time
+			if (checkpointTick >= 0 && tick >= checkpointTick) {
+				Checkpoint.save(scenario.getCheckpoint(), tick, layout, arrivals, carparks);
+				checkpointTick = -1;
+			}
+
+			// A replayed log has finished and every car has left
+			if (arrivals.isExhausted() && isEmpty(carparks)) {
+				break;
+			}
+		}
+
+		// The run ended before the checkpoint was due
+		if (checkpointTick >= 0) {
+			Checkpoint.save(scenario.getCheckpoint(), last, layout, arrivals, carparks);
+		}
+
+		arrivals.close();
+
+		long runMillis = (System.nanoTime() - started) / 1_000_000;
+		SimulationResult[] results = new SimulationResult[carparks.length];
+
+		for (int i = 0; i < carparks.length; i++) {
+			results[i] = new SimulationResult(carparks[i], runMillis);
+		}
+
+		return results;
+	}
+
+	// Record every car that parks in each carpark when the simulation runs
+	public void recordStays() {
+		recordStays = true;
+	}
+
+	// Return the carparks of the last run, in the order of their strategies, or null if the simulation hasn't run
+	public HeadlessCarpark[] getCarparks() {
+		return carparks;
+	}
+
+	/**
+	 *
+	 * Check whether every carpark has no cars queueing or parked
+	 *
+	 * @param HeadlessCarpark[] carparks [The carparks to check]
+	 * @return boolean [Whether or not every carpark is empty]
+	 */
+	private static boolean isEmpty(HeadlessCarpark[] carparks) {
+		for (HeadlessCarpark carpark : carparks) {
+			if (!carpark.isEmpty()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 *
+	 * Find the greatest common divisor of two numbers
+	 *
+	 * @param int a [The first number]
+	 * @param int b [The second number]
+	 * @return int [The greatest common divisor]
+	 */
+	private static int gcd(int a, int b) {
+		return b == 0 ? a : gcd(b, a % b);
+	}
+}
@@ -0,0 +1,45 @@
+/**
+ * 
+ * View for simulations run without a user interface.
+ * Ignores every update, results are read from the analytics once the simulation has finished.
+ * 
+ */
+
+public class HeadlessView implements SimulationView {
+	
+	public void updateCarsParkedCount(int count) {
+		
+	}
+	
+	public void updateTicksCount(int ticks) {
+		
+	}
+	
+	public void updateFuelUsed(double fuel) {
+		
+	}
+	
+	public void updateCO2Produced(double co2) {
+		
+	}
+	
+	public void updateChart(String graph, double x, double y) {
+		
+	}
+	
+	public void setEntrance(int level, int yCoord, int xCoord) {
+		
+	}
+	
+	public void setSpaceType(String type, int level, int y, int x) {
+		
+	}
+	
+	public void updateSpace(String type, int level, int y, int x, boolean available) {
+		
+	}
+	
+	public void updateLevelOccupancy(int level, int occupied, int capacity) {
+		
+	}
+}
@@ -0,0 +1,232 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * Fixed memory histogram of latencies, recorded without locks from any thread.
+ *
+ * Values are counted in log buckets, each split into 32 linear sub-buckets, in the style of HdrHistogram.
+ * Values below 32 are counted exactly and larger values to within about 3%, so any latency from 0 to Long.MAX_VALUE
+ * fits in 1888 counters no matter how many values are recorded.
+ * Histograms with the same layout can be added together, e.g. to combine the results of several simulations.
+ *
+ */
+
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // 32 linear sub-buckets per power of 2
+	private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final String name;
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param String name [What the histogram measures, used when printing]
+	 */
+	LatencyHistogram(String name) {
+		this.name = name;
+	}
+
+	/**
+	 *
+	 * Record a latency
+	 *
+	 * @param long value [The latency, negative values are recorded as 0]
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+
+		counts.incrementAndGet(index(value));
+		count.incrementAndGet();
+		total.addAndGet(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 *
+	 * Add the latencies recorded by another histogram to this histogram
+	 *
+	 * @param LatencyHistogram other [The histogram to add]
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			long n = other.counts.get(i);
+
+			if (n > 0) {
+				counts.addAndGet(i, n);
+			}
+		}
+
+		count.addAndGet(other.count.get());
+		total.addAndGet(other.total.get());
+		max.accumulateAndGet(other.max.get(), Math::max);
+	}
+
+	// Return what the histogram measures
+	public String getName() {
+		return name;
+	}
+
+	// Return the number of latencies recorded
+	public long getCount() {
+		return count.get();
+	}
+
+	// Return the largest latency recorded
+	public long getMax() {
+		return max.get();
+	}
+
+	// Return the sum of every latency recorded
+	public long getTotal() {
+		return total.get();
+	}
+
+	// Return the mean latency
+	public double getMean() {
+		long n = count.get();
+
+		return n == 0 ? 0 : (double) total.get() / n;
+	}
+
+	/**
+	 *
+	 * Find the latency below which the given percentage of latencies fall
+	 *
+	 * @param double percentile [The percentile e.g. 99]
+	 * @return long [The highest value in the bucket holding the percentile, no greater than the maximum recorded]
+	 */
+	public long getPercentile(double percentile) {
+		long n = count.get();
+
+		if (n == 0) {
+			return 0;
+		}
+
+		// The rank of the latency wanted, counting from 1
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+		long seen = 0;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			seen = seen + counts.get(i);
+
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+
+		return max.get();
+	}
+
+	/**
+	 *
+	 * Write the latencies recorded to a checkpoint, only the buckets that have been counted
+	 *
+	 * @param DataOutputStream out [Where to write]
+	 * @throws IOException [If the histogram can't be written]
+	 */
+	public void save(DataOutputStream out) throws IOException {
+		int used = 0;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			used = used + (counts.get(i) > 0 ? 1 : 0);
+		}
+
+		out.writeInt(used);
+
+		for (int i = 0; i < BUCKETS; i++) {
+			long n = counts.get(i);
+
+			if (n > 0) {
+				out.writeShort(i);
+				out.writeLong(n);
+			}
+		}
+
+		out.writeLong(count.get());
+		out.writeLong(total.get());
+		out.writeLong(max.get());
+	}
+
+	/**
+	 *
+	 * Replace the latencies recorded with those written to a checkpoint
+	 *
+	 * @param DataInputStream in [Where to read from]
+	 * @throws IOException [If the histogram can't be read]
+	 */
+	public void restore(DataInputStream in) throws IOException {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+
+		int used = in.readInt();
+
+		for (int i = 0; i < used; i++) {
+			int index = in.readUnsignedShort();
+
+			counts.set(index, in.readLong());
+		}
+
+		count.set(in.readLong());
+		total.set(in.readLong());
+		max.set(in.readLong());
+	}
+
+	// Return the histogram summarised as p50/p95/p99/max
+	public String toString() {
+		return name + ": n=" + getCount() + " p50=" + getPercentile(50) + " p95=" + getPercentile(95) + " p99=" + getPercentile(99) + " max=" + getMax();
+	}
+
+	/**
+	 *
+	 * Find the bucket a value is counted in
+	 * Step.1 - values below the number of sub-buckets have a bucket each
+	 * Step.2 - otherwise find the power of 2 below the value
+	 * Step.3 - then use the bits after the leading bit to pick the sub-bucket
+	 *
+	 * @param long value [The value]
+	 * @return int [The index of the bucket]
+	 */
+	private static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+
+		return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 *
+	 * Find the highest value counted in a bucket
+	 *
+	 * @param int index [The index of the bucket]
+	 * @return long [The highest value]
+	 */
+	private static long highestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+
+		int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+		long sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		long lowest = (SUB_BUCKETS + sub) << shift;
+
+		return lowest + (1L << shift) - 1;
+	}
+}
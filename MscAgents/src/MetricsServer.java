@@ -0,0 +1,255 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import jade.core.Agent;
+
+/**
+ *
+ * Embedded HTTP endpoint exposing the simulation's metrics in the Prometheus text format at /metrics.
+ *
+ * A background thread renders a snapshot of the analytics, queue, agents and JVM once a second,
+ * and requests are answered with the latest snapshot so scraping never waits on or slows down the agents.
+ *
+ */
+
+public class MetricsServer {
+	private static final long REFRESH_MILLIS = 1000; // how often the snapshot is rendered
+	private static final double[] QUANTILES = { 0.5, 0.95, 0.99 };
+
+	private final Analytics data;
+	private final IntSupplier queueLength;
+	private final HttpServer server;
+	private final ScheduledExecutorService refresher;
+	private volatile byte[] snapshot = new byte[0]; // the latest rendered metrics
+
+	/**
+	 *
+	 * Start serving the metrics of a simulation
+	 *
+	 * @param int port [The port to listen on, or 0 to disable the endpoint]
+	 * @param Analytics data [The analytics of the simulation]
+	 * @param IntSupplier queueLength [The number of cars waiting to enter]
+	 * @return MetricsServer [The running server, or null if disabled or it couldn't be started]
+	 */
+	public static MetricsServer start(int port, Analytics data, IntSupplier queueLength) {
+		if (port == 0) {
+			return null;
+		}
+
+		// Try to start listening
+		try {
+			MetricsServer metrics = new MetricsServer(port, data, queueLength);
+
+			System.out.println("Serving metrics on http://localhost:" + port + "/metrics");
+
+			return metrics;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param int port [The port to listen on]
+	 * @param Analytics data [The analytics of the simulation]
+	 * @param IntSupplier queueLength [The number of cars waiting to enter]
+	 * @throws IOException [If the port can't be bound]
+	 */
+	private MetricsServer(int port, Analytics data, IntSupplier queueLength) throws IOException {
+		this.data = data;
+		this.queueLength = queueLength;
+
+		refresh();
+
+		// Render a new snapshot every second on a daemon thread
+		refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "MetricsServer");
+
+			thread.setDaemon(true);
+
+			return thread;
+		});
+		refresher.scheduleAtFixedRate(this::refresh, REFRESH_MILLIS, REFRESH_MILLIS, TimeUnit.MILLISECONDS);
+
+		// Answer every request with the latest snapshot
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext("/metrics", this::handle);
+		server.start();
+	}
+
+	// Stop serving metrics
+	public void close() {
+		server.stop(0);
+		refresher.shutdownNow();
+	}
+
+	/**
+	 *
+	 * Send the latest snapshot
+	 *
+	 * @param HttpExchange exchange [The request being answered]
+	 * @throws IOException [If the response can't be sent]
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+		byte[] body = snapshot;
+
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+		exchange.sendResponseHeaders(200, body.length);
+
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	// Render a new snapshot, keeping the previous one if anything goes wrong
+	private void refresh() {
+		try {
+			snapshot = render().getBytes(StandardCharsets.UTF_8);
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Render the metrics in the Prometheus text format
+	private String render() {
+		StringBuilder out = new StringBuilder(4096);
+
+		// Analytics
+		gauge(out, "carpark_cars_created_total", "counter", "Cars created by the simulation", data.getCarsCreated());
+		gauge(out, "carpark_cars_parked_total", "counter", "Cars parked by the simulation", data.getCarsParked());
+		gauge(out, "carpark_cars_balked_total", "counter", "Cars that drove away on arrival because the queue was too long", data.getCarsBalked());
+		gauge(out, "carpark_cars_reneged_total", "counter", "Cars that drove away after queueing too long", data.getCarsReneged());
+		gauge(out, "carpark_fuel_litres_total", "counter", "Fuel used driving to and from parking bays", data.getFuel());
+		gauge(out, "carpark_co2_grams_total", "counter", "CO2 produced driving to and from parking bays", data.getCarbonEmissions());
+		gauge(out, "carpark_queue_time_ticks_total", "counter", "Time cars have spent queueing behind the front of the queue", data.getQueueTime());
+		gauge(out, "carpark_utilisation_percent", "gauge", "Parking bays in use", data.getUtilisation());
+		gauge(out, "carpark_queue_length", "gauge", "Cars waiting to enter", queueLength.getAsInt());
+
+		// Charging, if electric cars are charged
+		ChargingScheduler charging = data.getCharging();
+
+		if (charging != null) {
+			gauge(out, "carpark_charging_load_kw", "gauge", "Power drawn by chargers", charging.getLoad());
+			gauge(out, "carpark_charging_peak_kw", "gauge", "Most power drawn by chargers at once", charging.getPeakLoad());
+			gauge(out, "carpark_charging_cars", "gauge", "Electric cars drawing power", charging.getCharging());
+			gauge(out, "carpark_charging_delivered_kwh_total", "counter", "Energy given to electric cars", charging.getDelivered());
+			gauge(out, "carpark_charging_unmet_kwh_total", "counter", "Energy wanted but not given to electric cars that left", charging.getUnmet());
+		}
+
+		// Latencies
+		summary(out, "carpark_queue_wait_ticks", data.getQueueWait());
+		summary(out, "carpark_negotiation_ticks", data.getNegotiation());
+		summary(out, "carpark_confirmation_ticks", data.getConfirmation());
+		summary(out, "carpark_dwell_ticks", data.getDwell());
+
+		// Agents and their mailboxes, grouped by agent class
+		Map<String, int[]> agents = new TreeMap<String, int[]>();
+
+		for (Agent agent : data.getAgents()) {
+			int[] counts = agents.computeIfAbsent(agent.getClass().getSimpleName(), name -> new int[3]);
+			int depth = agent.getCurQueueSize();
+
+			counts[0]++;
+			counts[1] = counts[1] + depth;
+			counts[2] = Math.max(counts[2], depth);
+		}
+
+		header(out, "carpark_agents", "gauge", "Running agents");
+		for (Map.Entry<String, int[]> entry : agents.entrySet()) {
+			sample(out, "carpark_agents", "class", entry.getKey(), entry.getValue()[0]);
+		}
+
+		header(out, "carpark_mailbox_depth", "gauge", "Messages waiting in agent mailboxes");
+		for (Map.Entry<String, int[]> entry : agents.entrySet()) {
+			sample(out, "carpark_mailbox_depth", "class", entry.getKey(), entry.getValue()[1]);
+		}
+
+		header(out, "carpark_mailbox_depth_max", "gauge", "Most messages waiting in a single agent mailbox");
+		for (Map.Entry<String, int[]> entry : agents.entrySet()) {
+			sample(out, "carpark_mailbox_depth_max", "class", entry.getKey(), entry.getValue()[2]);
+		}
+
+		// JVM
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+
+		gauge(out, "jvm_heap_used_bytes", "gauge", "Heap in use", heap.getUsed());
+		gauge(out, "jvm_heap_committed_bytes", "gauge", "Heap committed", heap.getCommitted());
+		gauge(out, "jvm_threads", "gauge", "Live threads", ManagementFactory.getThreadMXBean().getThreadCount());
+		gauge(out, "jvm_uptime_seconds", "gauge", "Time since the JVM started", ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+
+		header(out, "jvm_gc_collections_total", "counter", "Garbage collections");
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			sample(out, "jvm_gc_collections_total", "gc", gc.getName(), gc.getCollectionCount());
+		}
+
+		header(out, "jvm_gc_seconds_total", "counter", "Time spent collecting garbage");
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			sample(out, "jvm_gc_seconds_total", "gc", gc.getName(), gc.getCollectionTime() / 1000.0);
+		}
+
+		return out.toString();
+	}
+
+	/**
+	 *
+	 * Render a latency histogram as a summary
+	 *
+	 * @param StringBuilder out [Where to render the metric]
+	 * @param String name [The name of the metric]
+	 * @param LatencyHistogram histogram [The latencies]
+	 */
+	private static void summary(StringBuilder out, String name, LatencyHistogram histogram) {
+		header(out, name, "summary", histogram.getName() + " latency");
+
+		for (double quantile : QUANTILES) {
+			sample(out, name, "quantile", Double.toString(quantile), histogram.getPercentile(quantile * 100));
+		}
+
+		out.append(name).append("_sum ").append(histogram.getTotal()).append('\n');
+		out.append(name).append("_count ").append(histogram.getCount()).append('\n');
+		gauge(out, name + "_max", "gauge", histogram.getName() + " longest latency", histogram.getMax());
+	}
+
+	/**
+	 *
+	 * Render a metric with a single value
+	 *
+	 * @param StringBuilder out [Where to render the metric]
+	 * @param String name [The name of the metric]
+	 * @param String type [The Prometheus type i.e. counter or gauge]
+	 * @param String help [What the metric measures]
+	 * @param double value [The value]
+	 */
+	private static void gauge(StringBuilder out, String name, String type, String help, double value) {
+		header(out, name, type, help);
+		out.append(name).append(' ').append(value).append('\n');
+	}
+
+	// Render the help and type lines of a metric
+	private static void header(StringBuilder out, String name, String type, String help) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	// Render a labelled value of a metric
+	private static void sample(StringBuilder out, String name, String label, String labelValue, double value) {
+		out.append(name).append('{').append(label).append("=\"").append(labelValue.replace("\"", "\\\"")).append("\"} ").append(value).append('\n');
+	}
+}
@@ -0,0 +1,391 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.lang.acl.UnreadableException;
+
+/**
+ *
+ * Checks how much memory cars, parking bays and bay groups allocate negotiating a parking bay, the messages every car sends the most of.
+ *
+ * Each parking bay and bay group answer is measured against building the same reply by hand, so the difference is the garbage the handler makes on top of the ACL message itself.
+ * A car's negotiation, calling for proposals, reading every reply and accepting the best, is run on a car that isn't started, with the replies posted to its mailbox.
+ * It is measured against an agent sending the same messages and receiving the same replies by hand.
+ * Bytes are counted with the JVM's count of memory allocated by the thread, the same count the JMH GC profiler reports as gc.alloc.rate.norm.
+ * Run without a flight recording, as recorded events are allocated on purpose. Exits with status 1 if any handler allocates more than its messages.
+ * Needs the JADE library on the class path, as agents that aren't started still build and queue real messages.
+ *
+ * java NegotiationAllocationBenchmark [messages] (default 1000000)
+ *
+ */
+
+public class NegotiationAllocationBenchmark {
+	private static final double TOLERANCE = 1; // bytes per message allowed on top of the messages, for one-off allocations spread over the run
+
+	// Agents aren't started on a platform, so their names are given in full
+	private static final String PLATFORM = "benchmark";
+
+	// The car negotiating
+	private static final String PLATE = "AB12 CDE";
+	private static final String MAKE_MODEL = "Ford Focus";
+	private static final double MPG = 50;
+	private static final double EMISSIONS = 120;
+
+	private static long checksum = 0; // sum of every reply's performative so no answer can be skipped
+	private static ACLMessage sink; // the last reply, so replies can't be optimised away
+
+	public static void main(String[] args) throws UnreadableException, IOException {
+		int messages = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+		// A carpark with most of its normal parking bays occupied
+		CarparkLayout layout = CarparkLayout.generate(20, 15, new Random(1));
+		CarparkOccupancy occupancy = new CarparkOccupancy(layout);
+		Random rand = new Random(2);
+		int[] normal = IntStream.range(0, layout.getCapacity()).filter(bay -> layout.getType(bay).equals("N")).toArray();
+
+		for (int bay : normal) {
+			if (rand.nextDouble() < 0.8) {
+				occupancy.occupy(bay);
+			}
+		}
+
+		// A free and an occupied parking bay
+		ParkingBayAgent free = newBay(layout, normal[0], null);
+		ParkingBayAgent occupied = newBay(layout, normal[1], "AB12 CDE");
+
+		// A group of the normal parking bays with some free, and a group of a single occupied one
+		BayGroupAgent group = newGroup(layout, occupancy, normal);
+		BayGroupAgent full = newGroup(layout, occupancy, new int[] { normal[1] });
+
+		occupancy.occupy(normal[1]);
+
+		ACLMessage cfp = newCall();
+		boolean passed = true;
+
+		System.out.println("handler,messages,handler_bytes,reply_bytes,extra_bytes");
+
+		// Run twice so the second run is measured with the code compiled
+		for (int run = 0; run < 2; run++) {
+			boolean print = run == 1;
+
+			passed = check("bay free", cfp, messages, print, () -> free.answerCall(cfp)) & passed;
+			passed = check("bay occupied", cfp, messages, print, () -> occupied.answerCall(cfp)) & passed;
+			passed = check("group free", cfp, messages, print, () -> group.answerCall(cfp)) & passed;
+			passed = check("group full", cfp, messages, print, () -> full.answerCall(cfp)) & passed;
+			passed = checkCar(layout, occupancy, normal, messages, print) & passed;
+		}
+
+		System.out.println("checksum " + checksum);
+
+		if (!passed) {
+			System.out.println("A handler allocates more than its messages");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 *
+	 * Measure the bytes a handler allocates per message against building its reply by hand
+	 *
+	 * @param String name [The name of the handler]
+	 * @param ACLMessage cfp [The call for proposal answered]
+	 * @param int messages [The number of messages to answer]
+	 * @param boolean print [Whether or not to print the results]
+	 * @param Answer handler [Answers a call for proposal]
+	 * @return boolean [Whether or not the handler allocates no more than the reply, always true if not printed]
+	 * @throws UnreadableException [If the car specification can't be read]
+	 */
+	private static boolean check(String name, ACLMessage cfp, int messages, boolean print, Answer handler) throws UnreadableException {
+		// Build the same reply as the handler by hand, from the strings the handler answers with
+		ACLMessage expected = handler.answer();
+		String content = expected.getContent();
+		String bay = expected.getUserDefinedParameter(ParkingBayAgent.BAY);
+		Answer baseline = () -> reply(cfp, expected.getPerformative(), content, bay);
+
+		double handlerBytes = bytesPerMessage(handler, messages);
+		double replyBytes = bytesPerMessage(baseline, messages);
+		double extra = handlerBytes - replyBytes;
+
+		if (!print) {
+			return true;
+		}
+
+		System.out.println(name + "," + messages + "," + String.format("%.1f", handlerBytes) + "," + String.format("%.1f", replyBytes) + "," + String.format("%.1f", extra));
+
+		return extra <= TOLERANCE;
+	}
+
+	/**
+	 *
+	 * Count the bytes allocated per message answering calls for proposal
+	 *
+	 * @param Answer answer [Answers a call for proposal]
+	 * @param int messages [The number of messages to answer]
+	 * @return double [The bytes allocated per message]
+	 * @throws UnreadableException [If the car specification can't be read]
+	 */
+	private static double bytesPerMessage(Answer answer, int messages) throws UnreadableException {
+		long before = allocatedBytes();
+
+		for (int i = 0; i < messages; i++) {
+			sink = answer.answer();
+			checksum = checksum + sink.getPerformative();
+		}
+
+		return (double) (allocatedBytes() - before) / messages;
+	}
+
+	/**
+	 *
+	 * Measure the bytes a car allocates per message negotiating a parking bay against sending and receiving its messages by hand
+	 * Step.1 - Call for proposals from every normal parking bay
+	 * Step.2 - Read the reply of every parking bay
+	 * Step.3 - Accept the best proposal
+	 *
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param CarparkOccupancy occupancy [Which parking bays are occupied]
+	 * @param int[] normal [The normal parking bays, asked for proposals]
+	 * @param int messages [The number of messages to send and receive]
+	 * @param boolean print [Whether or not to print the results]
+	 * @return boolean [Whether or not the car allocates no more than its messages, always true if not printed]
+	 * @throws IOException [If the car specification can't be serialised]
+	 */
+	private static boolean checkCar(CarparkLayout layout, CarparkOccupancy occupancy, int[] normal, int messages, boolean print) throws IOException {
+		AID[] receivers = new AID[layout.getCapacity()];
+
+		for (int bay : normal) {
+			receivers[bay] = new AID("ParkingBay-" + bay + "@" + PLATFORM, AID.ISGUID);
+		}
+
+		CarAgent car = newCar(layout, occupancy, normal, receivers);
+		Agent hand = new Agent();
+
+		// The replies of every normal parking bay, to the call the car makes, an agent that isn't started has no name
+		ACLMessage call = newCall();
+		call.setReplyWith("cfp-" + car.getLocalName());
+
+		ACLMessage[] replies = new ACLMessage[normal.length];
+
+		for (int i = 0; i < normal.length; i++) {
+			replies[i] = newBay(layout, normal[i], occupancy.isOccupied(normal[i]) ? "AB12 CDE" : null).answerCall(call);
+		}
+
+		// The messages sent and received by hand, with the same car specification the car sends once serialised
+		MessageTemplate proposals = MessageTemplate.and(MessageTemplate.MatchConversationId("request-park-car"), MessageTemplate.MatchInReplyTo(call.getReplyWith()));
+		ACLMessage serialised = new ACLMessage(ACLMessage.CFP);
+		serialised.setContentObject(newSpecification());
+		byte[] content = serialised.getByteSequenceContent();
+
+		String orderId = "order-" + car.getLocalName();
+		int rounds = Math.max(1, messages / (normal.length + 2));
+		long carBytes = 0;
+		long handBytes = 0;
+
+		for (int round = 0; round < rounds; round++) {
+			// Step.1 to Step.3 on the car, starting a new negotiation as its ticker does
+			CarAgent.AttemptToPark attempt = car.new AttemptToPark();
+			attempt.setAgent(car);
+			post(car, replies);
+
+			long before = allocatedBytes();
+
+			for (int step = 0; step < normal.length + 2; step++) {
+				attempt.action();
+			}
+
+			carBytes = carBytes + allocatedBytes() - before;
+
+			// The same messages by hand
+			post(hand, replies);
+			before = allocatedBytes();
+
+			ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+
+			for (int bay : normal) {
+				cfp.addReceiver(receivers[bay]);
+			}
+
+			cfp.setByteSequenceContent(content);
+			cfp.setConversationId("request-park-car");
+			cfp.setReplyWith(call.getReplyWith());
+			cfp.addUserDefinedParameter(ParkingBayAgent.FARTHEST, "false");
+			hand.send(cfp);
+
+			for (int i = 0; i < replies.length; i++) {
+				checksum = checksum + hand.receive(proposals).getPerformative();
+			}
+
+			ACLMessage order = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
+
+			order.addReceiver(receivers[normal[0]]);
+			order.setConversationId("park-car");
+			order.setReplyWith(orderId);
+			order.setByteSequenceContent(content);
+			hand.send(order);
+
+			handBytes = handBytes + allocatedBytes() - before;
+		}
+
+		double perCar = (double) carBytes / rounds / (normal.length + 2);
+		double perHand = (double) handBytes / rounds / (normal.length + 2);
+		double extra = perCar - perHand;
+
+		if (!print) {
+			return true;
+		}
+
+		System.out.println("car negotiation," + rounds * (normal.length + 2) + "," + String.format("%.1f", perCar) + "," + String.format("%.1f", perHand) + "," + String.format("%.1f", extra));
+
+		return extra <= TOLERANCE;
+	}
+
+	/**
+	 *
+	 * Post replies to the mailbox of an agent, as the platform does when they arrive
+	 *
+	 * @param Agent agent [The agent receiving the replies]
+	 * @param ACLMessage[] replies [The replies]
+	 */
+	private static void post(Agent agent, ACLMessage[] replies) {
+		for (ACLMessage reply : replies) {
+			agent.postMessage(reply);
+		}
+	}
+
+	// Return the bytes allocated by the current thread so far
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 *
+	 * Build a reply the way the handlers do
+	 *
+	 * @param ACLMessage cfp [The call for proposal]
+	 * @param int performative [The performative of the reply]
+	 * @param String content [The content of the reply]
+	 * @param String bay [The index of the parking bay proposed, or null if none]
+	 * @return ACLMessage reply [The reply]
+	 */
+	private static ACLMessage reply(ACLMessage cfp, int performative, String content, String bay) {
+		ACLMessage reply = cfp.createReply();
+
+		reply.setPerformative(performative);
+		reply.setContent(content);
+
+		if (bay != null) {
+			reply.addUserDefinedParameter(ParkingBayAgent.BAY, bay);
+		}
+
+		return reply;
+	}
+
+	// Create a call for proposal the way cars send them
+	private static ACLMessage newCall() {
+		ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+
+		cfp.setSender(new AID("Car-1@" + PLATFORM, AID.ISGUID));
+		cfp.setContent("AB12 CDE");
+		cfp.setConversationId("request-park-car");
+		cfp.setReplyWith("cfp-Car-1");
+		cfp.addUserDefinedParameter(ParkingBayAgent.FARTHEST, "false");
+
+		return cfp;
+	}
+
+	/**
+	 *
+	 * Create a parking bay without starting it, only to answer messages
+	 *
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param int index [The index of the parking bay in the layout]
+	 * @param String occupiedBy [The car occupying the parking bay, or null if free]
+	 * @return ParkingBayAgent bay [The parking bay]
+	 */
+	private static ParkingBayAgent newBay(CarparkLayout layout, int index, String occupiedBy) {
+		ParkingBayAgent bay = new ParkingBayAgent();
+
+		bay.bay = index;
+		bay.distanceFromEntrance = layout.getDistance(index);
+		bay.distanceContent = String.valueOf(bay.distanceFromEntrance);
+		bay.bayContent = String.valueOf(index);
+		bay.occupiedBy = occupiedBy;
+
+		return bay;
+	}
+
+	/**
+	 *
+	 * Create a car without starting it, only to negotiate, asking the normal parking bays in a single region
+	 *
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param CarparkOccupancy occupancy [Which parking bays are occupied]
+	 * @param int[] normal [The normal parking bays]
+	 * @param AID[] bayAgents [The agent of each parking bay by its index]
+	 * @return CarAgent car [The car]
+	 */
+	private static CarAgent newCar(CarparkLayout layout, CarparkOccupancy occupancy, int[] normal, AID[] bayAgents) {
+		Properties options = Scenario.defaults();
+		options.setProperty(Scenario.ALGORITHM, Scenario.FIRST_COME_FIRST_SERVED);
+
+		ArrayList<ArrayList<AID>> normalBays = new ArrayList<ArrayList<AID>>();
+		normalBays.add(new ArrayList<AID>());
+
+		for (int bay : normal) {
+			normalBays.get(0).add(bayAgents[bay]);
+		}
+
+		CarAgent car = new CarAgent();
+
+		car.setArguments(new Object[] {
+				new Arrival(PLATE, "N", MAKE_MODEL, MPG, EMISSIONS, 60, 0), new Analytics(new HeadlessView()), Scenario.fromProperties(options),
+				normalBays, new ArrayList<ArrayList<AID>>(), new ArrayList<ArrayList<AID>>(), new AID("Carpark@" + PLATFORM, AID.ISGUID),
+				null, System.currentTimeMillis(), occupancy, layout, bayAgents });
+		car.setup();
+
+		return car;
+	}
+
+	// Describe the car the way it describes itself to the parking bays
+	private static CarSpecification newSpecification() {
+		CarSpecification specification = new CarSpecification();
+
+		specification.setNumberPlate(PLATE);
+		specification.setType("N");
+		specification.setMpg(MPG);
+		specification.setCarbonEmissions(EMISSIONS);
+
+		return specification;
+	}
+
+	/**
+	 *
+	 * Create a bay group without starting it, only to answer messages
+	 *
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param CarparkOccupancy occupancy [Which parking bays are occupied]
+	 * @param int[] members [The parking bays of the group]
+	 * @return BayGroupAgent group [The bay group]
+	 */
+	private static BayGroupAgent newGroup(CarparkLayout layout, CarparkOccupancy occupancy, int[] members) {
+		BayGroupAgent group = new BayGroupAgent();
+
+		group.layout = layout;
+		group.occupancy = occupancy;
+		group.setBays(members);
+
+		return group;
+	}
+
+	// Answers a call for proposal
+	private interface Answer {
+		ACLMessage answer() throws UnreadableException;
+	}
+}
@@ -0,0 +1,595 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ *
+ * Offline baseline for the allocation strategies: the fuel or CO2 that could have been saved had every car's stay been known in advance.
+ *
+ * A headless simulation shadows every strategy on the same arrivals, recording when each car parked and left.
+ * Which cars park when, and in which type of parking bay, only depends on how many parking bays of each type are free,
+ * so every strategy sees the same stays and only where the cars park differs. The stays are then given parking bays offline,
+ * a batch of arrivals at a time. The cars of each type of parking bay are batched from the first unassigned one until the window ends
+ * or a car in the batch leaves, whichever is first, so every car in a batch is parked at once when the last one arrives and they need
+ * different parking bays. Each batch is assigned with the Hungarian algorithm to parking bays free when each car arrives,
+ * which includes parking bays left by cars of earlier batches, minimising the cost of the batch exactly given the batches before it.
+ * The number of cars parked at once never exceeds the parking bays of their type, so every batch can always be assigned.
+ *
+ * Each car only needs to be offered its k nearest free parking bays, where k is the number of cars being assigned,
+ * as a car given a farther parking bay could swap it for one of those the other cars didn't take for less.
+ * Electric cars cost nothing, so they are offered their k farthest free parking bays instead, keeping the near ones for later cars.
+ *
+ * Batches don't see past their window, so the offline assignment isn't always the best possible one, and an online strategy can beat it.
+ * The best possible cost is bounded from below by spreading each car's cost evenly over its stay: at every moment the cars parked
+ * can do no better than the heaviest taking the nearest parking bays, as if they could move as others leave.
+ * The best possible cost is between the lower bound and the cheapest assignment found, offline or online, so the gap of each strategy
+ * is reported from both, as a percentage. The true gap is between the two.
+ *
+ * java OfflineAssignment [options] window=minutes objective=fuel|co2
+ *
+ * Options are the same as the headless simulation, e.g. trace=log.csv to replay a recorded log of arrivals, and seed=n to repeat a run.
+ * window - the most minutes of arrivals assigned at once (default 30)
+ * objective - what the assignment minimises, fuel or co2 (default fuel)
+ *
+ */
+
+public class OfflineAssignment {
+	// Options that aren't simulation options
+	private static final String WINDOW = "window";
+	private static final String OBJECTIVE = "objective";
+
+	// Cost of a parking bay that isn't free when the car arrives
+	private static final double UNAVAILABLE = 1e12;
+
+	// Cost per metre of electric cars from the farthest parking bay, small enough to never outweigh a car that uses fuel
+	private static final double EPSILON = 1e-9;
+
+	private final CarparkLayout layout;
+	private final List<HeadlessCarpark.ParkedCar> stays; // every car that parked, in the order they parked
+	private final long windowTicks; // the most ticks of arrivals assigned at once
+	private final boolean carbon; // whether to minimise CO2 rather than fuel
+
+	private final int[][] pools; // the parking bays of each type, closest to the entrance first with ties in bay order
+	private final long[] freeAt; // when each parking bay is next free
+	private final int[] columnOf; // the column of each parking bay in the assignment being built, -1 if not offered
+	private final int[] assigned; // the parking bay given to each stay
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param List<HeadlessCarpark.ParkedCar> stays [Every car that parked, in the order they parked]
+	 * @param long windowTicks [The most ticks of arrivals assigned at once]
+	 * @param boolean carbon [Whether to minimise CO2 rather than fuel]
+	 */
+	OfflineAssignment(CarparkLayout layout, List<HeadlessCarpark.ParkedCar> stays, long windowTicks, boolean carbon) {
+		this.layout = layout;
+		this.stays = stays;
+		this.windowTicks = windowTicks;
+		this.carbon = carbon;
+
+		// Rank the parking bays of each type by distance
+		Integer[] order = new Integer[layout.getCapacity()];
+		int[] counts = new int[CarparkOccupancy.TYPES.length];
+
+		for (int bay = 0; bay < order.length; bay++) {
+			order[bay] = bay;
+			counts[CarparkOccupancy.typeIndex(layout.getType(bay))]++;
+		}
+
+		Arrays.sort(order, (a, b) -> layout.getDistance(a) != layout.getDistance(b) ? Integer.compare(layout.getDistance(a), layout.getDistance(b)) : Integer.compare(a, b));
+
+		pools = new int[counts.length][];
+
+		for (int pool = 0; pool < pools.length; pool++) {
+			pools[pool] = new int[counts[pool]];
+			counts[pool] = 0;
+		}
+
+		for (int bay : order) {
+			int pool = CarparkOccupancy.typeIndex(layout.getType(bay));
+
+			pools[pool][counts[pool]++] = bay;
+		}
+
+		freeAt = new long[order.length];
+		columnOf = new int[order.length];
+		assigned = new int[stays.size()];
+
+		Arrays.fill(columnOf, -1);
+	}
+
+	public static void main(String[] args) {
+		Properties options;
+
+		// Try to read the options
+		try {
+			options = Scenario.toProperties(args);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		int window = Integer.parseInt(options.getProperty(WINDOW, "30"));
+		boolean carbon = options.getProperty(OBJECTIVE, "fuel").equals("co2");
+
+		options.remove(WINDOW);
+		options.remove(OBJECTIVE);
+
+		if (window <= 0) {
+			System.out.println("Window must be greater than 0");
+			return;
+		}
+
+		// Try to validate the options
+		Scenario scenario;
+
+		try {
+			scenario = Scenario.fromProperties(options);
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+
+		// Step.1 - Run every strategy on the same arrivals, recording every stay
+		HeadlessSimulation simulation = new HeadlessSimulation(scenario, AllocationStrategy.values());
+
+		simulation.recordStays();
+
+		try {
+			simulation.call();
+		} catch (Exception e) {
+			e.printStackTrace();
+			return;
+		}
+
+		HeadlessCarpark[] carparks = simulation.getCarparks();
+		CarparkLayout layout = carparks[0].getLayout();
+		List<HeadlessCarpark.ParkedCar> stays = carparks[0].getStays();
+
+		// Step.2 - Assign the stays offline and bound the best possible cost
+		long started = System.nanoTime();
+		OfflineAssignment offline = new OfflineAssignment(layout, stays, (long) window * ArrivalSource.TICKS_PER_MINUTE, carbon);
+		int[] bays = offline.solve();
+		double bound = offline.lowerBound();
+		long solveMillis = (System.nanoTime() - started) / 1_000_000;
+
+		// Step.3 - Total every assignment, the cheapest found is the closest known to the best possible
+		double[] offlineTotals = totals(layout, stays, bays);
+		double[][] onlineTotals = new double[carparks.length][];
+		double cheapest = carbon ? offlineTotals[1] : offlineTotals[0];
+		String cheapestLabel = "Offline";
+
+		for (int i = 0; i < carparks.length; i++) {
+			if (!sameStays(layout, stays, carparks[i].getStays())) {
+				System.out.println(carparks[i].getStrategy().getLabel() + " parked different cars, so can't be compared");
+				continue;
+			}
+
+			onlineTotals[i] = totals(layout, carparks[i].getStays(), null);
+
+			if ((carbon ? onlineTotals[i][1] : onlineTotals[i][0]) < cheapest) {
+				cheapest = carbon ? onlineTotals[i][1] : onlineTotals[i][0];
+				cheapestLabel = carparks[i].getStrategy().getLabel();
+			}
+		}
+
+		// Step.4 - Report the gap of each assignment from the cheapest found and from the lower bound, the true gap is between the two
+		System.out.println("algorithm,cars_parked,fuel_l,co2_kg,gap_pct,gap_bound_pct");
+
+		for (int i = 0; i < carparks.length; i++) {
+			if (onlineTotals[i] != null) {
+				double cost = carbon ? onlineTotals[i][1] : onlineTotals[i][0];
+
+				System.out.println(carparks[i].getStrategy().getLabel() + "," + stays.size() + "," + onlineTotals[i][0] + "," + onlineTotals[i][1] / 1000 + "," + gap(cost, cheapest) + "," + gap(cost, bound));
+			}
+		}
+
+		double offlineCost = carbon ? offlineTotals[1] : offlineTotals[0];
+
+		System.out.println("Offline " + window + " minute windows," + stays.size() + "," + offlineTotals[0] + "," + offlineTotals[1] / 1000 + "," + gap(offlineCost, cheapest) + "," + gap(offlineCost, bound));
+		System.out.println("Lower bound," + stays.size() + "," + (carbon ? "" : bound) + "," + (carbon ? bound / 1000 : "") + ",,0.0");
+
+		// An online strategy beat the offline assignment, which can happen as batches don't see past their window
+		if (!cheapestLabel.equals("Offline")) {
+			System.out.println("Note: " + cheapestLabel + " beat the offline assignment, so gaps are measured from it, a longer window may do better");
+		}
+
+		System.out.println("Assigned " + stays.size() + " stays in " + solveMillis + "ms, seed " + scenario.getSeed());
+	}
+
+	/**
+	 *
+	 * Assign every stay a parking bay, a batch at a time
+	 *
+	 * @return int[] assigned [The parking bay given to each stay, in the order they parked]
+	 */
+	public int[] solve() {
+		// Stays of different types of parking bay never share parking bays, so each type is assigned on its own
+		for (int pool = 0; pool < pools.length; pool++) {
+			int[] cars = carsOf(pool);
+			int start = 0;
+
+			while (start < cars.length) {
+				// Step.1 - Batch the stays arriving before the window ends and before any car in the batch leaves
+				long limit = stays.get(cars[start]).parkedTick + windowTicks;
+				int end = start;
+
+				while (end < cars.length && stays.get(cars[end]).parkedTick < limit) {
+					limit = Math.min(limit, stays.get(cars[end]).leftTick);
+					end++;
+				}
+
+				// Step.2 - Assign every car of the batch a different parking bay
+				assign(Arrays.copyOfRange(cars, start, end), pool);
+				start = end;
+			}
+		}
+
+		return assigned;
+	}
+
+	/**
+	 *
+	 * Assign stays parked at the same time distinct parking bays of one type, at the least total cost
+	 * Step.1 - Offer each car its k best free parking bays
+	 * Step.2 - Price every car in every parking bay offered
+	 * Step.3 - Find the cheapest assignment
+	 *
+	 * @param int[] cars [The stays, in the order they parked]
+	 * @param int pool [The type of parking bay they parked in]
+	 */
+	private void assign(int[] cars, int pool) {
+		int[] bays = pools[pool];
+		int k = cars.length;
+		ArrayList<Integer> columns = new ArrayList<Integer>();
+
+		// Step.1 - Offer each car its k nearest free parking bays, or the k farthest if it costs nothing
+		for (int car : cars) {
+			boolean farthest = weight(car) == 0;
+			long tick = stays.get(car).parkedTick;
+			int offered = 0;
+
+			for (int rank = farthest ? bays.length - 1 : 0; offered < k && rank >= 0 && rank < bays.length; rank = farthest ? rank - 1 : rank + 1) {
+				int bay = bays[rank];
+
+				if (freeAt[bay] <= tick) {
+					if (columnOf[bay] < 0) {
+						columnOf[bay] = columns.size();
+						columns.add(bay);
+					}
+
+					offered++;
+				}
+			}
+		}
+
+		for (int bay : columns) {
+			columnOf[bay] = -1;
+		}
+
+		// The simulation parked the same cars at the same times, so there are always enough parking bays free
+		if (columns.size() < k) {
+			throw new IllegalStateException("Too few parking bays free for the cars that parked from tick " + stays.get(cars[0]).parkedTick);
+		}
+
+		// Step.2 - Price every car in every parking bay offered
+		double farthestDistance = layout.getDistance(bays[bays.length - 1]);
+		double[][] cost = new double[k][columns.size()];
+
+		for (int i = 0; i < k; i++) {
+			long tick = stays.get(cars[i]).parkedTick;
+			double weight = weight(cars[i]);
+
+			for (int j = 0; j < columns.size(); j++) {
+				int bay = columns.get(j);
+
+				if (freeAt[bay] > tick) {
+					cost[i][j] = UNAVAILABLE;
+				} else if (weight == 0) {
+					cost[i][j] = EPSILON * (farthestDistance - layout.getDistance(bay));
+				} else {
+					cost[i][j] = weight * layout.getDistance(bay);
+				}
+			}
+		}
+
+		// Step.3 - Find the cheapest assignment, every car getting a parking bay free when it arrives
+		int[] match = hungarian(cost);
+
+		for (int i = 0; i < k; i++) {
+			if (cost[i][match[i]] >= UNAVAILABLE) {
+				throw new IllegalStateException("No parking bay free for the car that parked at tick " + stays.get(cars[i]).parkedTick);
+			}
+
+			int bay = columns.get(match[i]);
+
+			assigned[cars[i]] = bay;
+			freeAt[bay] = stays.get(cars[i]).leftTick;
+		}
+	}
+
+	/**
+	 *
+	 * Find a lower bound on the cost of any assignment of the stays
+	 * Each car's cost is spread evenly over its stay, and at every moment the cars parked are matched heaviest first to the nearest parking bays
+	 *
+	 * @return double [The least the stays could cost, in litres of fuel or grams of CO2]
+	 */
+	public double lowerBound() {
+		// Cars still parked at the end of the run are counted as leaving then
+		long end = 0;
+
+		for (HeadlessCarpark.ParkedCar stay : stays) {
+			end = Math.max(end, stay.leftTick == Long.MAX_VALUE ? stay.parkedTick : stay.leftTick);
+		}
+
+		end++;
+
+		double bound = 0;
+
+		for (int pool = 0; pool < pools.length; pool++) {
+			bound = bound + lowerBound(pool, end);
+		}
+
+		return bound;
+	}
+
+	/**
+	 *
+	 * Find a lower bound on the cost of any assignment of the stays of one type of parking bay
+	 *
+	 * @param int pool [The type of parking bay]
+	 * @param long end [When cars still parked are counted as leaving]
+	 * @return double bound [The least the stays could cost]
+	 */
+	private double lowerBound(int pool, long end) {
+		int[] cars = carsOf(pool);
+		int[] bays = pools[pool];
+		long[][] events = new long[cars.length * 2][]; // when each car arrives and leaves, and which car
+
+		for (int i = 0; i < cars.length; i++) {
+			HeadlessCarpark.ParkedCar stay = stays.get(cars[i]);
+
+			events[2 * i] = new long[] { stay.parkedTick, 1, i };
+			events[2 * i + 1] = new long[] { Math.min(stay.leftTick, end), 0, i };
+		}
+
+		// Cars leave before others arrive at the same tick, as they do in the simulation
+		Arrays.sort(events, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+		double[] rate = new double[cars.length]; // the cost of each car per tick parked
+		double[] parked = new double[bays.length]; // the rates of the cars parked, heaviest first
+		int size = 0;
+		double bound = 0;
+
+		for (int i = 0; i < cars.length; i++) {
+			HeadlessCarpark.ParkedCar stay = stays.get(cars[i]);
+
+			rate[i] = weight(cars[i]) / (Math.min(stay.leftTick, end) - stay.parkedTick);
+		}
+
+		for (int e = 0; e < events.length; e++) {
+			double value = rate[(int) events[e][2]];
+			int rank = rankOf(parked, size, value);
+
+			// Step.1 - Add or remove the car, keeping the rates heaviest first
+			if (events[e][1] == 1) {
+				System.arraycopy(parked, rank, parked, rank + 1, size - rank);
+				parked[rank] = value;
+				size++;
+			} else {
+				System.arraycopy(parked, rank + 1, parked, rank, size - rank - 1);
+				size--;
+			}
+
+			// Step.2 - Until the next event, the cars parked cost at least the heaviest in the nearest parking bays
+			if (e + 1 < events.length && events[e + 1][0] > events[e][0]) {
+				double least = 0;
+
+				for (int r = 0; r < size; r++) {
+					least = least + parked[r] * layout.getDistance(bays[r]);
+				}
+
+				bound = bound + least * (events[e + 1][0] - events[e][0]);
+			}
+		}
+
+		return bound;
+	}
+
+	/**
+	 *
+	 * Find where a rate is, or belongs, among rates sorted heaviest first
+	 *
+	 * @param double[] rates [The rates, heaviest first]
+	 * @param int size [The number of rates]
+	 * @param double value [The rate to find]
+	 * @return int low [The first position whose rate isn't heavier than the value]
+	 */
+	private static int rankOf(double[] rates, int size, double value) {
+		int low = 0;
+		int high = size;
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+
+			if (rates[middle] > value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	// Return the stays that parked in a type of parking bay, in the order they parked
+	private int[] carsOf(int pool) {
+		ArrayList<Integer> cars = new ArrayList<Integer>();
+
+		for (int car = 0; car < stays.size(); car++) {
+			if (poolOf(car) == pool) {
+				cars.add(car);
+			}
+		}
+
+		return cars.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	// Return the type of parking bay a stay parked in
+	private int poolOf(int car) {
+		return CarparkOccupancy.typeIndex(layout.getType(stays.get(car).bay));
+	}
+
+	// Return the cost of a stay per metre from the entrance, electric cars use no fuel
+	private double weight(int car) {
+		Arrival arrival = stays.get(car).arrival;
+
+		if (arrival.getType().equals("E")) {
+			return 0;
+		}
+
+		return carbon ? Analytics.carbonProduced(1, arrival.getCarbonEmissions()) : Analytics.fuelUsed(1, arrival.getMpg());
+	}
+
+	/**
+	 *
+	 * Find the cheapest assignment of rows to distinct columns with the Hungarian algorithm, in O(rows * rows * columns)
+	 *
+	 * @param double[][] cost [The cost of each row in each column, with at least as many columns as rows]
+	 * @return int[] match [The column of each row]
+	 */
+	static int[] hungarian(double[][] cost) {
+		int n = cost.length;
+		int m = cost[0].length;
+		double[] u = new double[n + 1]; // potential of each row
+		double[] v = new double[m + 1]; // potential of each column
+		int[] p = new int[m + 1]; // the row matched to each column, column 0 holds the row being added
+		int[] way = new int[m + 1]; // the previous column on the shortest path to each column
+		double[] minv = new double[m + 1];
+		boolean[] used = new boolean[m + 1];
+
+		// Add each row in turn along the shortest augmenting path
+		for (int i = 1; i <= n; i++) {
+			int j0 = 0;
+
+			p[0] = i;
+			Arrays.fill(minv, Double.MAX_VALUE);
+			Arrays.fill(used, false);
+
+			do {
+				int i0 = p[j0];
+				int j1 = 0;
+				double delta = Double.MAX_VALUE;
+
+				used[j0] = true;
+
+				for (int j = 1; j <= m; j++) {
+					if (!used[j]) {
+						double reduced = cost[i0 - 1][j - 1] - u[i0] - v[j];
+
+						if (reduced < minv[j]) {
+							minv[j] = reduced;
+							way[j] = j0;
+						}
+
+						if (minv[j] < delta) {
+							delta = minv[j];
+							j1 = j;
+						}
+					}
+				}
+
+				for (int j = 0; j <= m; j++) {
+					if (used[j]) {
+						u[p[j]] = u[p[j]] + delta;
+						v[j] = v[j] - delta;
+					} else {
+						minv[j] = minv[j] - delta;
+					}
+				}
+
+				j0 = j1;
+			} while (p[j0] != 0);
+
+			// Flip the path so the new row is matched
+			do {
+				int j1 = way[j0];
+
+				p[j0] = p[j1];
+				j0 = j1;
+			} while (j0 != 0);
+		}
+
+		int[] match = new int[n];
+
+		for (int j = 1; j <= m; j++) {
+			if (p[j] != 0) {
+				match[p[j] - 1] = j - 1;
+			}
+		}
+
+		return match;
+	}
+
+	/**
+	 *
+	 * Total the fuel and CO2 of cars driving to their parking bays and back, electric cars use none
+	 *
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param List<HeadlessCarpark.ParkedCar> stays [Every car that parked]
+	 * @param int[] bays [The parking bay of each stay, or null for where they parked in the simulation]
+	 * @return double[] [Fuel used in litres and CO2 produced in grams]
+	 */
+	static double[] totals(CarparkLayout layout, List<HeadlessCarpark.ParkedCar> stays, int[] bays) {
+		double fuel = 0;
+		double co2 = 0;
+
+		for (int i = 0; i < stays.size(); i++) {
+			Arrival arrival = stays.get(i).arrival;
+			int distance = layout.getDistance(bays == null ? stays.get(i).bay : bays[i]);
+
+			if (!arrival.getType().equals("E")) {
+				fuel = fuel + Analytics.fuelUsed(distance, arrival.getMpg());
+				co2 = co2 + Analytics.carbonProduced(distance, arrival.getCarbonEmissions());
+			}
+		}
+
+		return new double[] { fuel, co2 };
+	}
+
+	// Return how much more a cost is than the best cost as a percentage
+	private static double gap(double cost, double best) {
+		return best == 0 ? 0 : 100 * (cost - best) / best;
+	}
+
+	/**
+	 *
+	 * Check whether two carparks parked the same cars at the same times in the same types of parking bay
+	 *
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param List<HeadlessCarpark.ParkedCar> a [The stays of one carpark]
+	 * @param List<HeadlessCarpark.ParkedCar> b [The stays of the other carpark]
+	 * @return boolean [Whether or not the stays match]
+	 */
+	private static boolean sameStays(CarparkLayout layout, List<HeadlessCarpark.ParkedCar> a, List<HeadlessCarpark.ParkedCar> b) {
+		if (a.size() != b.size()) {
+			return false;
+		}
+
+		for (int i = 0; i < a.size(); i++) {
+			HeadlessCarpark.ParkedCar first = a.get(i);
+			HeadlessCarpark.ParkedCar second = b.get(i);
+
+			if (first.arrival != second.arrival || first.parkedTick != second.parkedTick || first.leftTick != second.leftTick || !layout.getType(first.bay).equals(layout.getType(second.bay))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
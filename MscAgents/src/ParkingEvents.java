@@ -0,0 +1,172 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *
+ * Java Flight Recorder events for the parking protocol.
+ *
+ * Record a run with e.g. java -XX:StartFlightRecording=filename=carpark.jfr ... and open it in JDK Mission Control
+ * to see where time goes: calls for proposal, parking bay replies, message serialisation,
+ * agent creation, analytics updates or the JavaFX thread.
+ * Without a recording the events are never committed, so they cost next to nothing.
+ * Events timed for every message or car are only created while a recording has them enabled, so messages and analytics updates create no events otherwise.
+ *
+ */
+
+public final class ParkingEvents {
+	// Types of the events timed for every message or car, checked before creating one
+	private static final EventType ATTEMPT_TO_PARK = EventType.getEventType(AttemptToPark.class);
+	private static final EventType PARKING_BAY = EventType.getEventType(ParkingBay.class);
+	private static final EventType CONTENT = EventType.getEventType(Content.class);
+	private static final EventType ANALYTICS_UPDATE = EventType.getEventType(AnalyticsUpdate.class);
+
+	private ParkingEvents() {
+
+	}
+
+	// Begin timing a step of a car's negotiation, null if no recording has the event enabled
+	static AttemptToPark beginAttemptToPark() {
+		if (!ATTEMPT_TO_PARK.isEnabled()) {
+			return null;
+		}
+
+		AttemptToPark event = new AttemptToPark();
+		event.begin();
+
+		return event;
+	}
+
+	// Begin timing a parking bay handling a message, null if no recording has the event enabled
+	static ParkingBay beginParkingBay() {
+		if (!PARKING_BAY.isEnabled()) {
+			return null;
+		}
+
+		ParkingBay event = new ParkingBay();
+		event.begin();
+
+		return event;
+	}
+
+	// Begin timing the serialisation of a message's content, null if no recording has the event enabled
+	static Content beginContent() {
+		if (!CONTENT.isEnabled()) {
+			return null;
+		}
+
+		Content event = new Content();
+		event.begin();
+
+		return event;
+	}
+
+	// Begin timing an update to the analytics, null if no recording has the event enabled
+	static AnalyticsUpdate beginAnalyticsUpdate() {
+		if (!ANALYTICS_UPDATE.isEnabled()) {
+			return null;
+		}
+
+		AnalyticsUpdate event = new AnalyticsUpdate();
+		event.begin();
+
+		return event;
+	}
+
+	// A step of a car's negotiation to park
+	@Name("carpark.AttemptToPark")
+	@Label("Attempt To Park")
+	@Category({ "Carpark", "Car" })
+	@Description("A step of a car negotiating a parking bay: 0 call for proposals, 1 proposal received, 2 accept proposal, 3 parking bay reply")
+	@StackTrace(false)
+	public static class AttemptToPark extends Event {
+		@Label("Car")
+		String car;
+
+		@Label("Step")
+		int step;
+
+		@Label("Matching Type")
+		@Description("Whether the car is looking for a parking bay of its own type")
+		boolean typed;
+
+		@Label("Parking Bays")
+		@Description("The number of parking bays contacted")
+		int bays;
+	}
+
+	// A parking bay handling a message from a car
+	@Name("carpark.ParkingBay")
+	@Label("Parking Bay")
+	@Category({ "Carpark", "Parking Bay" })
+	@Description("A parking bay answering a call for proposal or an accepted proposal")
+	@StackTrace(false)
+	public static class ParkingBay extends Event {
+		@Label("Parking Bay")
+		String bay;
+
+		@Label("Car")
+		String car;
+
+		@Label("Message")
+		@Description("ParkingAvailability, ParkCar or GroupAvailability")
+		String handler;
+
+		@Label("Available")
+		boolean available;
+	}
+
+	// Serialising or deserialising the content of a message
+	@Name("carpark.Content")
+	@Label("Message Content")
+	@Category({ "Carpark", "Messaging" })
+	@Description("Java serialisation of a car specification into or out of a message")
+	@StackTrace(false)
+	public static class Content extends Event {
+		@Label("Agent")
+		String agent;
+
+		@Label("Serialise")
+		@Description("True when writing the content, false when reading it")
+		boolean serialise;
+	}
+
+	// Creating an agent
+	@Name("carpark.CreateAgent")
+	@Label("Create Agent")
+	@Category({ "Carpark", "Agents" })
+	@Description("ContainerController.createNewAgent and starting the agent")
+	@StackTrace(false)
+	public static class CreateAgent extends Event {
+		@Label("Agent")
+		String agent;
+
+		@Label("Agent Class")
+		String agentClass;
+	}
+
+	// Updating the analytics
+	@Name("carpark.Analytics")
+	@Label("Analytics Update")
+	@Category({ "Carpark", "Analytics" })
+	@StackTrace(false)
+	public static class AnalyticsUpdate extends Event {
+		@Label("Update")
+		String update;
+	}
+
+	// Work run on the JavaFX application thread
+	@Name("carpark.FxUpdate")
+	@Label("JavaFX Update")
+	@Category({ "Carpark", "User Interface" })
+	@Description("Work queued with Platform.runLater, timed on the JavaFX application thread")
+	@StackTrace(false)
+	public static class FxUpdate extends Event {
+		@Label("Update")
+		String update;
+	}
+}
@@ -0,0 +1,111 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ *
+ * Arrival source that generates cars at random as a Poisson process.
+ *
+ * The rate can change every hour of model time, repeating once every hour of the profile has passed,
+ * so a profile of 24 rates models a day with rush hours and a single rate models a constant rate.
+ * Cars are generated by thinning: candidate times are drawn at the highest rate in the profile
+ * and each is kept with probability rate at that time / highest rate, which follows the profile exactly.
+ *
+ */
+
+public class PoissonArrivals implements ArrivalSource {
+	// Number of ticks in an hour of model time
+	private static final long TICKS_PER_HOUR = 60L * TICKS_PER_MINUTE;
+
+	private Scenario scenario;
+	private CarGenerator generator;
+	private Random rand; // source of randomness for arrival times
+	private double[] rates; // cars per hour for each hour of the profile
+	private double maxRate; // the highest rate in the profile, used to draw candidate times
+	private double time = 0; // when the last candidate was drawn in ticks
+	private long nextTick; // when the next car arrives
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param Scenario scenario [The simulation options]
+	 * @param CarGenerator generator [Generates the details of each car]
+	 * @param Random rand [The source of randomness for arrival times]
+	 * @param double[] rates [Cars per hour for each hour of the profile, a single rate for a constant rate]
+	 */
+	PoissonArrivals(Scenario scenario, CarGenerator generator, Random rand, double[] rates) {
+		this.scenario = scenario;
+		this.generator = generator;
+		this.rand = rand;
+		this.rates = rates;
+
+		for (double rate : rates) {
+			maxRate = Math.max(maxRate, rate);
+		}
+
+		nextTick = nextArrival();
+	}
+
+	public Arrival next(long tick) {
+		// No car is due yet
+		if (tick < nextTick) {
+			return null;
+		}
+
+		// Generate the car that is due and schedule the next one
+		Arrival arrival = generator.newArrival(scenario, nextTick);
+		nextTick = nextArrival();
+
+		return arrival;
+	}
+
+	// Cars never run out unless every rate is 0
+	public boolean isExhausted() {
+		return nextTick == Long.MAX_VALUE;
+	}
+
+	public void close() {
+
+	}
+
+	public void save(DataOutputStream out) throws IOException {
+		generator.save(out);
+		Checkpoint.writeRandom(out, rand);
+		out.writeDouble(time);
+		out.writeLong(nextTick);
+	}
+
+	// Carry on with the rates of the new scenario
+	public void restore(DataInputStream in) throws IOException {
+		generator.restore(in);
+		rand = Checkpoint.readRandom(in);
+		time = in.readDouble();
+		nextTick = in.readLong();
+	}
+
+	/**
+	 *
+	 * Draw the time of the next car by thinning candidates drawn at the highest rate
+	 *
+	 * @return long [When the next car arrives, or Long.MAX_VALUE if no car ever will]
+	 */
+	private long nextArrival() {
+		if (maxRate <= 0) {
+			return Long.MAX_VALUE;
+		}
+
+		while (true) {
+			// Step.1 - Draw the gap to the next candidate from an exponential distribution at the highest rate
+			time = time - Math.log(1 - rand.nextDouble()) / maxRate * TICKS_PER_HOUR;
+
+			// Step.2 - Keep the candidate with probability rate at that time / highest rate
+			double rate = rates[(int) ((long) (time / TICKS_PER_HOUR) % rates.length)];
+
+			if (rand.nextDouble() * maxRate < rate) {
+				return (long) Math.ceil(time);
+			}
+		}
+	}
+}
@@ -0,0 +1,735 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ *
+ * Immutable set of options describing a single simulation run.
+ * Parsed and validated once, then shared by reference with every agent in the simulation.
+ * Derived values (duration bounds, probability thresholds) are calculated up front so agents don't have to.
+ *
+ * Can be created from the user interface inputs, a properties file or command line arguments in the form key=value.
+ *
+ */
+
+public final class Scenario {
+	// Supported allocation algorithms
+	public static final String OPTIMISED_EFFICIENCY = "Optimised Efficiency";
+	public static final String FIRST_COME_FIRST_SERVED = "First Come First Served";
+
+	// Supported arrival processes
+	public static final String FIXED_ARRIVALS = "fixed"; // one car every model speed ticks
+	public static final String POISSON_ARRIVALS = "poisson"; // random arrivals at a constant rate
+	public static final String PROFILE_ARRIVALS = "profile"; // random arrivals at a rate that changes every hour of the day
+
+	// Option keys used by properties files and command line arguments
+	public static final String LENGTH = "length";
+	public static final String WIDTH = "width";
+	public static final String LEVELS = "levels";
+	public static final String RAMP_LENGTH = "rampLength";
+	public static final String MIN_DURATION = "minDuration";
+	public static final String MAX_DURATION = "maxDuration";
+	public static final String EV_PERCENT = "evPercent";
+	public static final String DISABILITY_PERCENT = "disabilityPercent";
+	public static final String MODEL_SPEED = "modelSpeed";
+	public static final String ALGORITHM = "algorithm";
+	public static final String JOURNAL = "journal";
+	public static final String TRACE = "trace";
+	public static final String SEED = "seed";
+	public static final String RUN_TIME = "runTime";
+	public static final String METRICS_PORT = "metricsPort";
+	public static final String TIMELINE = "timeline";
+	public static final String ARRIVALS = "arrivals";
+	public static final String ARRIVAL_RATE = "arrivalRate";
+	public static final String RATE_PROFILE = "rateProfile";
+	public static final String BATCHES = "batches";
+	public static final String BALK_LENGTH = "balkLength";
+	public static final String RENEGE_TIME = "renegeTime";
+	public static final String CHARGER_POWER = "chargerPower";
+	public static final String CHARGING_BUDGET = "chargingBudget";
+	public static final String CHARGE_DEMAND = "chargeDemand";
+	public static final String CHECKPOINT = "checkpoint";
+	public static final String CHECKPOINT_AT = "checkpointAt";
+	public static final String RESTORE = "restore";
+	public static final String CONTAINERS = "containers";
+	public static final String GROUP_SIZE = "groupSize";
+	public static final String FILE = "file";
+
+	// Options
+	private final int length;
+	private final int width;
+	private final int levels; // floors of the carpark, each width by length
+	private final double rampLength; // metres driven up the ramp between each level and the one above
+	private final int minDuration;
+	private final int maxDuration;
+	private final double evPercent;
+	private final double disabilityPercent;
+	private final int modelSpeed;
+	private final String algorithm;
+	private final AllocationStrategy strategy;
+	private final String journal; // where to write the event journal, empty if disabled
+	private final String trace; // recorded log of arrivals to replay, empty to generate arrivals
+	private final long seed; // seed for the layout and generated cars, so runs can be repeated
+	private final int runTime; // how long a headless simulation runs for in minutes of model time
+	private final int metricsPort; // port to serve metrics on, 0 if disabled
+	private final String timeline; // where to write the timeline of every car, empty if disabled
+	private final String arrivals; // how generated cars arrive, fixed, poisson or profile
+	private final double arrivalRate; // cars per hour of model time for poisson arrivals
+	private final String rateProfile; // cars per hour for each hour of the day for profile arrivals, separated by /
+	private final String batches; // groups of cars arriving together as minute:cars:spread, separated by /
+	private final int balkLength; // cars arriving to find this many cars queueing drive away, 0 if the queue is unbounded
+	private final int renegeTime; // minutes a car queues before giving up and driving away, 0 if cars wait forever
+	private final String chargerPower; // rated kW of the chargers, given to the electric parking bays in turn, separated by /
+	private final double chargingBudget; // kW the site can draw for charging, 0 if unlimited
+	private final String chargeDemand; // the least and most kWh an electric car wants, separated by /
+	private final String checkpoint; // where a headless simulation writes a checkpoint of its state, empty if disabled
+	private final int checkpointAt; // the minute of model time the checkpoint is written, 0 for the end of the run
+	private final String restore; // checkpoint a headless simulation carries on from, empty to start empty, its layout replaces the generated one
+	private final int containers; // agent containers the parking bays are spread across by region
+	private final int groupSize; // parking bays of a type and region a bay group agent answers calls for proposal for, 0 if each answers for itself
+
+	// Derived values
+	private final int minDurationSteps; // the minimum duration in multiples of 10
+	private final int durationSteps; // the number of possible durations in multiples of 10
+	private final double evProbability; // the likelihood of a car being electric between 0 and 1
+	private final double disabilityProbability; // the likelihood of a driver requiring disabled parking between 0 and 1
+	private final double[] hourlyRates; // cars per hour for each hour of the day for profile arrivals
+	private final int[][] batchArrivals; // the minute, number of cars and spread in minutes of each batch
+	private final double[] chargerPowers; // rated kW of the chargers
+	private final double[] chargeDemands; // the least and most kWh an electric car wants
+
+	/**
+	 *
+	 * Class Constructor
+	 * Parses and validates the options, throwing an IllegalArgumentException describing the first invalid option.
+	 * Missing options fall back to the user interface defaults.
+	 *
+	 * @param Properties options [The options keyed by name]
+	 */
+	private Scenario(Properties options) {
+		// Ensure all inputs are numbers before validating their values
+		this.length = parseInt(option(options, LENGTH), "Length");
+		this.width = parseInt(option(options, WIDTH), "Width");
+		this.levels = parseInt(option(options, LEVELS), "Levels");
+		this.rampLength = parseDouble(option(options, RAMP_LENGTH), "Ramp Length");
+		this.minDuration = parseInt(option(options, MIN_DURATION), "Min Duration");
+		this.maxDuration = parseInt(option(options, MAX_DURATION), "Max Duration");
+		this.evPercent = parseDouble(option(options, EV_PERCENT), "EV %");
+		this.disabilityPercent = parseDouble(option(options, DISABILITY_PERCENT), "Disability %");
+		this.modelSpeed = parseInt(option(options, MODEL_SPEED), "Model Speed");
+		this.algorithm = option(options, ALGORITHM);
+		this.journal = option(options, JOURNAL);
+		this.trace = option(options, TRACE);
+		this.seed = option(options, SEED).isEmpty() ? System.nanoTime() : parseLong(option(options, SEED), "Seed");
+		this.runTime = parseInt(option(options, RUN_TIME), "Run Time");
+		this.metricsPort = parseInt(option(options, METRICS_PORT), "Metrics Port");
+		this.timeline = option(options, TIMELINE);
+		this.arrivals = option(options, ARRIVALS);
+		this.arrivalRate = parseDouble(option(options, ARRIVAL_RATE), "Arrival Rate");
+		this.rateProfile = option(options, RATE_PROFILE);
+		this.batches = option(options, BATCHES);
+		this.balkLength = parseInt(option(options, BALK_LENGTH), "Balk Length");
+		this.renegeTime = parseInt(option(options, RENEGE_TIME), "Renege Time");
+		this.chargerPower = option(options, CHARGER_POWER);
+		this.chargingBudget = parseDouble(option(options, CHARGING_BUDGET), "Charging Budget");
+		this.chargeDemand = option(options, CHARGE_DEMAND);
+		this.checkpoint = option(options, CHECKPOINT);
+		this.checkpointAt = parseInt(option(options, CHECKPOINT_AT), "Checkpoint At");
+		this.restore = option(options, RESTORE);
+		this.containers = parseInt(option(options, CONTAINERS), "Containers");
+		this.groupSize = parseInt(option(options, GROUP_SIZE), "Group Size");
+		
+		// Ensure all needed inputs are non-zero
+		require(length > 0, "Length must be greater than 0");
+		require(width > 0, "Width must be greater than 0");
+		require(levels > 0, "Levels must be greater than 0");
+		require(rampLength >= 0, "Ramp Length can't be less than 0");
+		require(minDuration >= 10, "Min Duration must be at least 10");
+		require(maxDuration >= 10, "Max Duration must be at least 10");
+		require(evPercent >= 0, "EV % can't be less than 0");
+		require(disabilityPercent >= 0, "Disability % can't be less than 0");
+		require(modelSpeed > 0, "Model Speed must be greater than 0");
+		require(runTime > 0, "Run Time must be greater than 0");
+		require(metricsPort >= 0 && metricsPort <= 65535, "Metrics Port must be between 0 and 65535");
+		require(arrivalRate >= 0, "Arrival Rate can't be less than 0");
+		require(balkLength >= 0, "Balk Length can't be less than 0");
+		require(renegeTime >= 0, "Renege Time can't be less than 0");
+		require(chargingBudget >= 0, "Charging Budget can't be less than 0");
+		require(checkpointAt >= 0, "Checkpoint At can't be less than 0");
+		require(containers > 0, "Containers must be greater than 0");
+		require(groupSize >= 0, "Group Size can't be less than 0");
+
+		// Ensure Max Duration can't be smaller than Min Duration
+		require(minDuration <= maxDuration, "Max Duration can't be less than Min Duration");
+
+		// Ensure percentages are within range
+		require(evPercent <= 100, "EV % can't be greater than 100");
+		require(disabilityPercent <= 100, "Disability % can't be greater than 100");
+
+		// Ensure the algorithm is known
+		this.strategy = AllocationStrategy.forLabel(algorithm);
+		require(strategy != null, "Unknown algorithm: " + algorithm);
+
+		// Ensure the arrival process is known
+		require(arrivals.equals(FIXED_ARRIVALS) || arrivals.equals(POISSON_ARRIVALS) || arrivals.equals(PROFILE_ARRIVALS), "Unknown arrival process: " + arrivals);
+
+		this.hourlyRates = parseRateProfile(rateProfile);
+		this.batchArrivals = parseBatches(batches);
+		this.chargerPowers = parseChargerPower(chargerPower);
+		this.chargeDemands = parseChargeDemand(chargeDemand);
+
+		// Divide by 10 to ensure durations will be a multiple of 10
+		this.minDurationSteps = minDuration / 10;
+		this.durationSteps = maxDuration / 10;
+
+		// Divide by 100 to get a number between 0 and 1
+		this.evProbability = evPercent / 100;
+		this.disabilityProbability = disabilityPercent / 100;
+	}
+
+	/**
+	 *
+	 * Create a scenario from a set of properties, falling back to the user interface defaults for missing options
+	 *
+	 * @param Properties options [The options keyed by name]
+	 * @return Scenario [The validated scenario]
+	 */
+	public static Scenario fromProperties(Properties options) {
+		return new Scenario(options);
+	}
+
+	/**
+	 *
+	 * Create a scenario from a properties file
+	 *
+	 * @param String path [The location of the properties file]
+	 * @return Scenario [The validated scenario]
+	 * @throws IOException [If the file can't be read]
+	 */
+	public static Scenario fromFile(String path) throws IOException {
+		return fromProperties(load(new Properties(), path));
+	}
+
+	/**
+	 *
+	 * Create a scenario from command line arguments in the form key=value
+	 * A file=path argument loads a properties file first, which later arguments can then override
+	 *
+	 * @param String[] args [The command line arguments]
+	 * @return Scenario [The validated scenario]
+	 * @throws IOException [If a given file can't be read]
+	 */
+	public static Scenario fromArgs(String[] args) throws IOException {
+		return fromProperties(toProperties(args));
+	}
+
+	/**
+	 *
+	 * Convert command line arguments in the form key=value into properties
+	 *
+	 * @param String[] args [The command line arguments]
+	 * @return Properties options [The options keyed by name]
+	 * @throws IOException [If a given file can't be read]
+	 */
+	public static Properties toProperties(String[] args) throws IOException {
+		Properties options = new Properties();
+
+		for (String arg : args) {
+			int split = arg.indexOf('=');
+
+			// Ignore anything that isn't an option
+			if (split <= 0) {
+				continue;
+			}
+
+			String key = arg.substring(0, split).trim();
+			String value = arg.substring(split + 1).trim();
+
+			// Load the file in place so that following arguments override it
+			if (key.equals(FILE)) {
+				load(options, value);
+			} else {
+				options.setProperty(key, value);
+			}
+		}
+
+		return options;
+	}
+
+	// Return the options as properties so the scenario can be saved or amended
+	public Properties toProperties() {
+		Properties options = new Properties();
+
+		options.setProperty(LENGTH, Integer.toString(length));
+		options.setProperty(WIDTH, Integer.toString(width));
+		options.setProperty(LEVELS, Integer.toString(levels));
+		options.setProperty(RAMP_LENGTH, Double.toString(rampLength));
+		options.setProperty(MIN_DURATION, Integer.toString(minDuration));
+		options.setProperty(MAX_DURATION, Integer.toString(maxDuration));
+		options.setProperty(EV_PERCENT, Double.toString(evPercent));
+		options.setProperty(DISABILITY_PERCENT, Double.toString(disabilityPercent));
+		options.setProperty(MODEL_SPEED, Integer.toString(modelSpeed));
+		options.setProperty(ALGORITHM, algorithm);
+		options.setProperty(JOURNAL, journal);
+		options.setProperty(TRACE, trace);
+		options.setProperty(SEED, Long.toString(seed));
+		options.setProperty(RUN_TIME, Integer.toString(runTime));
+		options.setProperty(METRICS_PORT, Integer.toString(metricsPort));
+		options.setProperty(TIMELINE, timeline);
+		options.setProperty(ARRIVALS, arrivals);
+		options.setProperty(ARRIVAL_RATE, Double.toString(arrivalRate));
+		options.setProperty(RATE_PROFILE, rateProfile);
+		options.setProperty(BATCHES, batches);
+		options.setProperty(BALK_LENGTH, Integer.toString(balkLength));
+		options.setProperty(RENEGE_TIME, Integer.toString(renegeTime));
+		options.setProperty(CHARGER_POWER, chargerPower);
+		options.setProperty(CHARGING_BUDGET, Double.toString(chargingBudget));
+		options.setProperty(CHARGE_DEMAND, chargeDemand);
+		options.setProperty(CHECKPOINT, checkpoint);
+		options.setProperty(CHECKPOINT_AT, Integer.toString(checkpointAt));
+		options.setProperty(RESTORE, restore);
+		options.setProperty(CONTAINERS, Integer.toString(containers));
+		options.setProperty(GROUP_SIZE, Integer.toString(groupSize));
+
+		return options;
+	}
+
+	// Return the default options, matching the defaults shown in the user interface
+	public static Properties defaults() {
+		Properties defaults = new Properties();
+
+		defaults.setProperty(LENGTH, "10");
+		defaults.setProperty(WIDTH, "10");
+		defaults.setProperty(LEVELS, "1");
+		defaults.setProperty(RAMP_LENGTH, "30");
+		defaults.setProperty(MIN_DURATION, "10");
+		defaults.setProperty(MAX_DURATION, "100");
+		defaults.setProperty(EV_PERCENT, "6.1");
+		defaults.setProperty(DISABILITY_PERCENT, "4.1");
+		defaults.setProperty(MODEL_SPEED, "50");
+		defaults.setProperty(ALGORITHM, OPTIMISED_EFFICIENCY);
+		defaults.setProperty(JOURNAL, "");
+		defaults.setProperty(TRACE, "");
+		defaults.setProperty(SEED, ""); // a new seed every run
+		defaults.setProperty(RUN_TIME, "1440"); // a day
+		defaults.setProperty(METRICS_PORT, "0"); // disabled
+		defaults.setProperty(TIMELINE, "");
+		defaults.setProperty(ARRIVALS, FIXED_ARRIVALS);
+		defaults.setProperty(ARRIVAL_RATE, "60");
+		defaults.setProperty(RATE_PROFILE, "5/3/2/2/3/10/40/120/160/90/60/60/70/60/55/60/80/130/110/60/35/25/15/8"); // a weekday with morning and evening peaks
+		defaults.setProperty(BATCHES, ""); // none
+		defaults.setProperty(BALK_LENGTH, "0"); // unbounded
+		defaults.setProperty(RENEGE_TIME, "0"); // wait forever
+		defaults.setProperty(CHARGER_POWER, "7/22"); // home style and fast public chargers
+		defaults.setProperty(CHARGING_BUDGET, "0"); // unlimited
+		defaults.setProperty(CHARGE_DEMAND, "5/40");
+		defaults.setProperty(CHECKPOINT, ""); // disabled
+		defaults.setProperty(CHECKPOINT_AT, "0"); // the end of the run
+		defaults.setProperty(RESTORE, ""); // start empty
+		defaults.setProperty(CONTAINERS, "1"); // every parking bay in the carpark's container
+		defaults.setProperty(GROUP_SIZE, "0"); // every parking bay answers for itself
+
+		return defaults;
+	}
+
+	// Return the length of the carpark
+	public int getLength() {
+		return length;
+	}
+
+	// Return the width of the carpark
+	public int getWidth() {
+		return width;
+	}
+
+	// Return the number of levels of the carpark
+	public int getLevels() {
+		return levels;
+	}
+
+	// Return how far a car drives up the ramp between each level and the one above in metres
+	public double getRampLength() {
+		return rampLength;
+	}
+
+	// Return the minimum duration a car can be parked for
+	public int getMinDuration() {
+		return minDuration;
+	}
+
+	// Return the maximum duration a car can be parked for
+	public int getMaxDuration() {
+		return maxDuration;
+	}
+
+	// Return the likelihood a car is electric as a percentage
+	public double getEvPercent() {
+		return evPercent;
+	}
+
+	// Return the likelihood a driver requires disabled parking as a percentage
+	public double getDisabilityPercent() {
+		return disabilityPercent;
+	}
+
+	// Return how often a new car arrives in microseconds
+	public int getModelSpeed() {
+		return modelSpeed;
+	}
+
+	// Return the allocation algorithm being used
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	// Return where to write the event journal, empty if disabled
+	public String getJournal() {
+		return journal;
+	}
+
+	// Return the recorded log of arrivals to replay, empty to generate arrivals
+	public String getTrace() {
+		return trace;
+	}
+
+	// Return the seed for the layout and generated cars
+	public long getSeed() {
+		return seed;
+	}
+
+	// Return how long a headless simulation runs for in minutes of model time
+	public int getRunTime() {
+		return runTime;
+	}
+
+	// Return the port to serve metrics on, 0 if disabled
+	public int getMetricsPort() {
+		return metricsPort;
+	}
+
+	// Return where to write the timeline of every car, empty if disabled
+	public String getTimeline() {
+		return timeline;
+	}
+
+	// Return how generated cars arrive, fixed, poisson or profile
+	public String getArrivals() {
+		return arrivals;
+	}
+
+	// Return the cars per hour of model time for poisson arrivals
+	public double getArrivalRate() {
+		return arrivalRate;
+	}
+
+	// Return the cars per hour for each hour of the day for profile arrivals
+	public double[] getHourlyRates() {
+		return hourlyRates.clone();
+	}
+
+	// Return the minute, number of cars and spread in minutes of each batch of cars arriving together
+	public int[][] getBatches() {
+		int[][] copy = new int[batchArrivals.length][];
+
+		for (int i = 0; i < batchArrivals.length; i++) {
+			copy[i] = batchArrivals[i].clone();
+		}
+
+		return copy;
+	}
+
+	// Return the number of cars queueing that makes arriving cars drive away, 0 if the queue is unbounded
+	public int getBalkLength() {
+		return balkLength;
+	}
+
+	// Return the minutes a car queues before driving away, 0 if cars wait forever
+	public int getRenegeTime() {
+		return renegeTime;
+	}
+
+	// Return where a headless simulation writes a checkpoint of its state, empty if disabled
+	public String getCheckpoint() {
+		return checkpoint;
+	}
+
+	// Return the minute of model time the checkpoint is written, 0 for the end of the run
+	public int getCheckpointAt() {
+		return checkpointAt;
+	}
+
+	// Return the checkpoint a headless simulation carries on from, empty to start empty
+	public String getRestore() {
+		return restore;
+	}
+
+	// Return the number of agent containers the parking bays are spread across, one region of the carpark each
+	public int getContainers() {
+		return containers;
+	}
+
+	// Return how many parking bays each bay group agent answers for, 0 if each parking bay answers for itself
+	public int getGroupSize() {
+		return groupSize;
+	}
+
+	// Return the rated kW of the chargers, given to the electric parking bays in turn
+	public double[] getChargerPowers() {
+		return chargerPowers.clone();
+	}
+
+	// Return the kW the site can draw for charging, 0 if unlimited
+	public double getChargingBudget() {
+		return chargingBudget;
+	}
+
+	// Return the least kWh an electric car wants
+	public double getMinChargeDemand() {
+		return chargeDemands[0];
+	}
+
+	// Return the most kWh an electric car wants
+	public double getMaxChargeDemand() {
+		return chargeDemands[1];
+	}
+
+	/**
+	 *
+	 * Check whether an arriving car drives away rather than join the queue
+	 *
+	 * @param int queueLength [The number of cars already queueing]
+	 * @return boolean [Whether or not the car balks]
+	 */
+	public boolean balks(int queueLength) {
+		return balkLength > 0 && queueLength >= balkLength;
+	}
+
+	/**
+	 *
+	 * Check whether a queueing car has waited long enough to give up and drive away
+	 *
+	 * @param long waited [How long the car has queued in ticks]
+	 * @return boolean [Whether or not the car reneges]
+	 */
+	public boolean reneges(long waited) {
+		return renegeTime > 0 && waited >= (long) renegeTime * ArrivalSource.TICKS_PER_MINUTE;
+	}
+
+	// Return the allocation algorithm being used
+	public AllocationStrategy getStrategy() {
+		return strategy;
+	}
+
+	// Return the minimum duration in multiples of 10
+	public int getMinDurationSteps() {
+		return minDurationSteps;
+	}
+
+	// Return the number of possible durations in multiples of 10
+	public int getDurationSteps() {
+		return durationSteps;
+	}
+
+	// Return the likelihood a car is electric between 0 and 1
+	public double getEvProbability() {
+		return evProbability;
+	}
+
+	// Return the likelihood a driver requires disabled parking between 0 and 1
+	public double getDisabilityProbability() {
+		return disabilityProbability;
+	}
+
+	/**
+	 *
+	 * Load a properties file into the given properties
+	 *
+	 * @param Properties options [The properties to load into]
+	 * @param String path [The location of the properties file]
+	 * @return Properties options [The loaded properties]
+	 * @throws IOException [If the file can't be read]
+	 */
+	private static Properties load(Properties options, String path) throws IOException {
+		try (InputStream in = new FileInputStream(path)) {
+			options.load(in);
+		}
+
+		return options;
+	}
+
+	/**
+	 *
+	 * Get an option, falling back to its default
+	 *
+	 * @param Properties options [The options keyed by name]
+	 * @param String key [The name of the option]
+	 * @return String [The raw value]
+	 */
+	private static String option(Properties options, String key) {
+		String value = options.getProperty(key);
+
+		// Fall back to the default if the option is missing
+		if (value == null) {
+			value = defaults().getProperty(key);
+		}
+
+		return value.trim();
+	}
+
+	/**
+	 *
+	 * Parse an integer option
+	 *
+	 * @param String value [The raw value]
+	 * @param String label [The name of the option shown in error messages]
+	 * @return int [The parsed value]
+	 */
+	private static int parseInt(String value, String label) {
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException | NullPointerException e) {
+			throw new IllegalArgumentException(label + " must be an integer");
+		}
+	}
+
+	/**
+	 *
+	 * Parse a long integer option
+	 *
+	 * @param String value [The raw value]
+	 * @param String label [The name of the option shown in error messages]
+	 * @return long [The parsed value]
+	 */
+	private static long parseLong(String value, String label) {
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException | NullPointerException e) {
+			throw new IllegalArgumentException(label + " must be an integer");
+		}
+	}
+
+	/**
+	 *
+	 * Parse the cars per hour for each hour of the day, separated by /
+	 *
+	 * @param String value [The raw value]
+	 * @return double[] rates [The cars per hour for each hour]
+	 */
+	private static double[] parseRateProfile(String value) {
+		String[] hours = value.split("/");
+		double[] rates = new double[hours.length];
+
+		require(!value.isEmpty() && hours.length <= 24, "Rate Profile must have between 1 and 24 hourly rates separated by /");
+
+		for (int i = 0; i < hours.length; i++) {
+			rates[i] = parseDouble(hours[i], "Rate Profile");
+			require(rates[i] >= 0, "Rate Profile can't be less than 0");
+		}
+
+		return rates;
+	}
+
+	/**
+	 *
+	 * Parse the rated kW of the chargers, separated by /
+	 *
+	 * @param String value [The raw value]
+	 * @return double[] powers [The rated kW of each kind of charger]
+	 */
+	private static double[] parseChargerPower(String value) {
+		String[] parts = value.split("/");
+		double[] powers = new double[parts.length];
+
+		require(!value.isEmpty(), "Charger Power must have at least one rating separated by /");
+
+		for (int i = 0; i < parts.length; i++) {
+			powers[i] = parseDouble(parts[i], "Charger Power");
+			require(powers[i] > 0, "Charger Power must be greater than 0");
+		}
+
+		return powers;
+	}
+
+	/**
+	 *
+	 * Parse the least and most kWh an electric car wants, as min/max or a single value
+	 *
+	 * @param String value [The raw value]
+	 * @return double[] [The least and most kWh]
+	 */
+	private static double[] parseChargeDemand(String value) {
+		String[] parts = value.split("/");
+
+		require(parts.length == 1 || parts.length == 2, "Charge Demand must be min/max");
+
+		double min = parseDouble(parts[0], "Charge Demand");
+		double max = parts.length == 2 ? parseDouble(parts[1], "Charge Demand") : min;
+
+		require(min >= 0, "Charge Demand can't be less than 0");
+		require(min <= max, "Charge Demand max can't be less than min");
+
+		return new double[] { min, max };
+	}
+
+	/**
+	 *
+	 * Parse the batches of cars arriving together, each minute:cars or minute:cars:spread, separated by /
+	 *
+	 * @param String value [The raw value]
+	 * @return int[][] batches [The minute, number of cars and spread in minutes of each batch]
+	 */
+	private static int[][] parseBatches(String value) {
+		if (value.isEmpty()) {
+			return new int[0][];
+		}
+
+		String[] groups = value.split("/");
+		int[][] batches = new int[groups.length][];
+
+		for (int i = 0; i < groups.length; i++) {
+			String[] parts = groups[i].split(":");
+
+			require(parts.length == 2 || parts.length == 3, "Batches must be minute:cars or minute:cars:spread separated by /");
+
+			int minute = parseInt(parts[0], "Batch minute");
+			int cars = parseInt(parts[1], "Batch cars");
+			int spread = parts.length == 3 ? parseInt(parts[2], "Batch spread") : 0;
+
+			require(minute >= 0 && cars >= 0 && spread >= 0, "Batches can't be less than 0");
+
+			batches[i] = new int[] { minute, cars, spread };
+		}
+
+		return batches;
+	}
+
+	/**
+	 *
+	 * Parse a decimal option
+	 *
+	 * @param String value [The raw value]
+	 * @param String label [The name of the option shown in error messages]
+	 * @return double [The parsed value]
+	 */
+	private static double parseDouble(String value, String label) {
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException | NullPointerException e) {
+			throw new IllegalArgumentException(label + " must be a number");
+		}
+	}
+
+	/**
+	 *
+	 * Throw an IllegalArgumentException with the given message if the condition is false
+	 *
+	 * @param boolean condition [The condition that must hold]
+	 * @param String message [The error message]
+	 */
+	private static void require(boolean condition, String message) {
+		if (!condition) {
+			throw new IllegalArgumentException(message);
+		}
+	}
+}
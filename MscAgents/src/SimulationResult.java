@@ -0,0 +1,183 @@
+/**
+ *
+ * Immutable results of a finished headless simulation.
+ *
+ */
+
+public final class SimulationResult {
+	// Column names matching toCsv
+	public static final String CSV_HEADER = "algorithm,cars_created,cars_parked,cars_balked,cars_reneged,fuel_l,co2_kg,avg_queue_time,avg_utilisation,level_utilisation,avg_queue_length,final_queue_length,queue_wait_p50,queue_wait_p95,queue_wait_p99,queue_wait_max,charge_demand_kwh,charge_delivered_kwh,charge_unmet_kwh,charge_peak_kw,run_ms";
+
+	private final AllocationStrategy strategy;
+	private final int carsCreated;
+	private final int carsParked;
+	private final int carsBalked;
+	private final int carsReneged;
+	private final double fuel;
+	private final double carbonEmissions;
+	private final double averageQueueTime;
+	private final double averageUtilisation;
+	private final double[] averageLevelUtilisation; // average utilisation of each level
+	private final double averageQueueLength;
+	private final int finalQueueLength;
+	private final long queueWaitP50;
+	private final long queueWaitP95;
+	private final long queueWaitP99;
+	private final long queueWaitMax;
+	private final double chargeDemanded; // kWh wanted by electric cars that plugged in
+	private final double chargeDelivered; // kWh given to electric cars
+	private final double chargeUnmet; // kWh wanted but not given to electric cars that left
+	private final double chargePeakLoad; // the most kW drawn by chargers at once
+	private final long runMillis;
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param HeadlessCarpark carpark [The carpark at the end of the simulation]
+	 * @param long runMillis [How long the simulation took to run in milliseconds]
+	 */
+	SimulationResult(HeadlessCarpark carpark, long runMillis) {
+		Analytics data = carpark.getData();
+
+		this.strategy = carpark.getStrategy();
+		this.carsCreated = data.getCarsCreated();
+		this.carsParked = data.getCarsParked();
+		this.carsBalked = data.getCarsBalked();
+		this.carsReneged = data.getCarsReneged();
+		this.fuel = data.getFuel();
+		this.carbonEmissions = data.getCarbonEmissions() / 1000;
+		this.averageQueueTime = carsCreated == 0 ? 0 : (double) data.getQueueTime() / carsCreated;
+		this.averageUtilisation = carpark.getAverageUtilisation();
+		this.averageLevelUtilisation = carpark.getAverageLevelUtilisation();
+		this.averageQueueLength = carpark.getAverageQueueLength();
+		this.finalQueueLength = carpark.getQueueLength();
+		this.queueWaitP50 = data.getQueueWait().getPercentile(50);
+		this.queueWaitP95 = data.getQueueWait().getPercentile(95);
+		this.queueWaitP99 = data.getQueueWait().getPercentile(99);
+		this.queueWaitMax = data.getQueueWait().getMax();
+		this.chargeDemanded = carpark.getCharging().getDemanded();
+		this.chargeDelivered = carpark.getCharging().getDelivered();
+		this.chargeUnmet = carpark.getCharging().getUnmet();
+		this.chargePeakLoad = carpark.getCharging().getPeakLoad();
+		this.runMillis = runMillis;
+	}
+
+	// Return the algorithm used to choose parking bays
+	public AllocationStrategy getStrategy() {
+		return strategy;
+	}
+
+	// Return the number of cars created
+	public int getCarsCreated() {
+		return carsCreated;
+	}
+
+	// Return the number of cars parked
+	public int getCarsParked() {
+		return carsParked;
+	}
+
+	// Return the number of cars that drove away on arrival because the queue was too long
+	public int getCarsBalked() {
+		return carsBalked;
+	}
+
+	// Return the number of cars that drove away after queueing too long
+	public int getCarsReneged() {
+		return carsReneged;
+	}
+
+	// Return the fuel used in litres
+	public double getFuel() {
+		return fuel;
+	}
+
+	// Return the CO2 produced in kilograms
+	public double getCarbonEmissions() {
+		return carbonEmissions;
+	}
+
+	// Return the average time each car spent queueing in ticks
+	public double getAverageQueueTime() {
+		return averageQueueTime;
+	}
+
+	// Return the average utilisation of the carpark as a percentage
+	public double getAverageUtilisation() {
+		return averageUtilisation;
+	}
+
+	// Return the average utilisation of each level of the carpark as a percentage
+	public double[] getAverageLevelUtilisation() {
+		return averageLevelUtilisation.clone();
+	}
+
+	// Return the average number of cars queueing
+	public double getAverageQueueLength() {
+		return averageQueueLength;
+	}
+
+	// Return the number of cars still queueing at the end of the simulation
+	public int getFinalQueueLength() {
+		return finalQueueLength;
+	}
+
+	// Return the median time cars waited from joining the queue until they parked, in ticks
+	public long getQueueWaitP50() {
+		return queueWaitP50;
+	}
+
+	// Return the 95th percentile time cars waited from joining the queue until they parked, in ticks
+	public long getQueueWaitP95() {
+		return queueWaitP95;
+	}
+
+	// Return the 99th percentile time cars waited from joining the queue until they parked, in ticks
+	public long getQueueWaitP99() {
+		return queueWaitP99;
+	}
+
+	// Return the longest time a car waited from joining the queue until it parked, in ticks
+	public long getQueueWaitMax() {
+		return queueWaitMax;
+	}
+
+	// Return the kWh wanted by electric cars that plugged in
+	public double getChargeDemanded() {
+		return chargeDemanded;
+	}
+
+	// Return the kWh given to electric cars
+	public double getChargeDelivered() {
+		return chargeDelivered;
+	}
+
+	// Return the kWh wanted but not given to electric cars that left
+	public double getChargeUnmet() {
+		return chargeUnmet;
+	}
+
+	// Return the most kW drawn by chargers at once
+	public double getChargePeakLoad() {
+		return chargePeakLoad;
+	}
+
+	// Return how long the simulation took to run in milliseconds
+	public long getRunMillis() {
+		return runMillis;
+	}
+
+	// Return the results as a CSV row matching CSV_HEADER, with the utilisation of each level separated by /
+	public String toCsv() {
+		StringBuilder levels = new StringBuilder();
+
+		for (int level = 0; level < averageLevelUtilisation.length; level++) {
+			levels.append(level == 0 ? "" : "/").append(averageLevelUtilisation[level]);
+		}
+
+		return strategy.getLabel() + "," + carsCreated + "," + carsParked + "," + carsBalked + "," + carsReneged + "," + fuel + "," + carbonEmissions + "," + averageQueueTime + ","
+				+ averageUtilisation + "," + levels + "," + averageQueueLength + "," + finalQueueLength + "," + queueWaitP50 + "," + queueWaitP95 + "," + queueWaitP99 + "," + queueWaitMax + ","
+				+ chargeDemanded + "," + chargeDelivered + "," + chargeUnmet + "," + chargePeakLoad + "," + runMillis;
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * 
+ * Display of a running simulation.
+ * Implemented by the JavaFX user interface, and by a headless view when simulations are run without one.
+ * 
+ */
+
+public interface SimulationView {
+	
+	/**
+	 * 
+	 * Update the number of cars parked
+	 * 
+	 * @param int count [The number of cars parked by the simulation]
+	 */
+	void updateCarsParkedCount(int count);
+	
+	/**
+	 * 
+	 * Update the number of ticks passed
+	 * 
+	 * @param int ticks [How long the model has been running for]
+	 */
+	void updateTicksCount(int ticks);
+	
+	/**
+	 * 
+	 * Update the amount of fuel used
+	 * 
+	 * @param double fuel [The amount of fuel used]
+	 */
+	void updateFuelUsed(double fuel);
+	
+	/**
+	 * 
+	 * Update the amount of co2 produced
+	 * 
+	 * @param double co2 [The amount of CO2 produced]
+	 */
+	void updateCO2Produced(double co2);
+	
+	/**
+	 * 
+	 * Update a graph with a new point
+	 * 
+	 * @param String graph [The name of the graph to be updated]
+	 * @param double x [The x value of the point]
+	 * @param double y [The y value of the point]
+	 */
+	void updateChart(String graph, double x, double y);
+	
+	/**
+	 * 
+	 * Set the entrance to a level of the carpark, the top of the ramp above the ground level
+	 * 
+	 * @param int level [The level of the carpark]
+	 * @param int yCoord [The Y coordinate of the entrance]
+	 * @param int xCoord [The X coordinate of the entrance]
+	 */
+	void setEntrance(int level, int yCoord, int xCoord);
+	
+	/**
+	 * 
+	 * Set the type of a parking bay
+	 * 
+	 * @param String type [The character that represents the parking bay's type i.e. N, D or E]
+	 * @param int level [The level of the parking bay]
+	 * @param int y [The Y coordinate of the parking bay]
+	 * @param int x [The X coordinate of the parking bay]
+	 */
+	void setSpaceType(String type, int level, int y, int x);
+	
+	/**
+	 * 
+	 * Update the type and availability of a parking bay
+	 * 
+	 * @param String type [The character that represents the parking bay's type i.e. N, D or E]
+	 * @param int level [The level of the parking bay]
+	 * @param int y [The Y coordinate of the parking bay]
+	 * @param int x [The X coordinate of the parking bay]
+	 * @param boolean available [Whether or not the parking bay is available]
+	 */
+	void updateSpace(String type, int level, int y, int x, boolean available);
+	
+	/**
+	 * 
+	 * Update how many parking bays are occupied on a level
+	 * 
+	 * @param int level [The level of the carpark]
+	 * @param int occupied [The number of occupied parking bays on the level]
+	 * @param int capacity [The number of parking bays on the level]
+	 */
+	void updateLevelOccupancy(int level, int occupied, int capacity);
+}
@@ -0,0 +1,328 @@
+import java.util.Arrays;
+
+/**
+ *
+ * Grid bucket index of a set of parking bays on one level, such as the free parking bays of one type, for queries from any point on that level.
+ *
+ * The carpark is divided into cells of roughly 16 parking bays, about as wide as they are long in metres.
+ * Each cell holds the parking bays in it that are in the set, so adding and removing a parking bay is constant time.
+ * Nearest queries search rings of cells outwards from the point and stop once no unsearched cell can hold anything closer.
+ *
+ * Points are given in the coordinates of the carpark layout, where parking bay X, Y is at x = X, y = Y and
+ * the entrance is at its own X and Y. Distances are in metres, travelling straight along the rows and columns
+ * as in CarparkLayout.calculateDistance, but not rounded.
+ *
+ * Not thread safe, callers that share an index must synchronise on it.
+ *
+ */
+
+public class SpatialIndex {
+	// Target number of parking bays in a cell
+	private static final int BAYS_PER_CELL = 16;
+
+	private final CarparkLayout layout;
+	private final int firstBay; // the first parking bay on the level
+
+	// Grid
+	private final int cellWidth; // parking bays across a cell
+	private final int cellLength; // parking bays down a cell
+	private final int columns; // cells across the carpark
+	private final int rows; // cells down the carpark
+	private final int cellCapacity; // most parking bays a cell can hold
+	private final double ringDistance; // the least distance crossed moving one cell further away
+
+	// Contents
+	private final int[] bays; // the parking bays in each cell, cell c holds counts[c] bays from c * cellCapacity
+	private final int[] counts; // the number of parking bays in each cell
+	private final int[] slots; // the position of each parking bay in its cell, -1 if it isn't in the set
+	private int size = 0;
+
+	/**
+	 *
+	 * Class Constructor
+	 * The index starts empty
+	 *
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 */
+	SpatialIndex(CarparkLayout layout) {
+		this(layout, 0);
+	}
+
+	/**
+	 *
+	 * Class Constructor
+	 * The index starts empty
+	 *
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param int level [The level of the carpark the parking bays are on]
+	 */
+	SpatialIndex(CarparkLayout layout, int level) {
+		this.layout = layout;
+		this.firstBay = level * layout.getLevelCapacity();
+
+		// Make cells about as wide as they are long in metres
+		cellLength = Math.max(1, (int) Math.round(Math.sqrt(BAYS_PER_CELL * CarparkLayout.BAY_WIDTH / CarparkLayout.BAY_LENGTH)));
+		cellWidth = Math.max(1, Math.round((float) BAYS_PER_CELL / cellLength));
+		columns = (layout.getWidth() + cellWidth - 1) / cellWidth;
+		rows = (layout.getLength() + cellLength - 1) / cellLength;
+		cellCapacity = cellWidth * cellLength;
+		ringDistance = Math.min(cellWidth * CarparkLayout.BAY_WIDTH, cellLength * CarparkLayout.BAY_LENGTH);
+
+		bays = new int[columns * rows * cellCapacity];
+		counts = new int[columns * rows];
+		slots = new int[layout.getLevelCapacity()];
+
+		Arrays.fill(slots, -1);
+	}
+
+	/**
+	 *
+	 * Add a parking bay to the set
+	 *
+	 * @param int bay [The index of the parking bay in the layout, on the level of the index]
+	 * @return boolean [Whether or not the parking bay wasn't already in the set]
+	 */
+	public boolean add(int bay) {
+		if (slots[bay - firstBay] >= 0) {
+			return false;
+		}
+
+		int cell = cellOf(bay);
+
+		slots[bay - firstBay] = counts[cell];
+		bays[cell * cellCapacity + counts[cell]] = bay;
+		counts[cell]++;
+		size++;
+
+		return true;
+	}
+
+	/**
+	 *
+	 * Remove a parking bay from the set, moving the last parking bay in its cell into its place
+	 *
+	 * @param int bay [The index of the parking bay in the layout, on the level of the index]
+	 * @return boolean [Whether or not the parking bay was in the set]
+	 */
+	public boolean remove(int bay) {
+		int slot = slots[bay - firstBay];
+
+		if (slot < 0) {
+			return false;
+		}
+
+		int cell = cellOf(bay);
+		int last = bays[cell * cellCapacity + counts[cell] - 1];
+
+		bays[cell * cellCapacity + slot] = last;
+		slots[last - firstBay] = slot;
+		slots[bay - firstBay] = -1;
+		counts[cell]--;
+		size--;
+
+		return true;
+	}
+
+	// Return whether or not a parking bay is in the set
+	public boolean contains(int bay) {
+		int slot = bay - firstBay;
+
+		return slot >= 0 && slot < slots.length && slots[slot] >= 0;
+	}
+
+	// Return the number of parking bays in the set
+	public int size() {
+		return size;
+	}
+
+	/**
+	 *
+	 * Find the parking bays in the set closest to a point, closest first
+	 * Of parking bays the same distance away, the first in bay order comes first
+	 *
+	 * @param double x [The X coordinate of the point]
+	 * @param double y [The Y coordinate of the point]
+	 * @param int k [The most parking bays to find]
+	 * @return int[] [Up to k parking bays, closest first]
+	 */
+	public int[] nearest(double x, double y, int k) {
+		k = Math.min(k, size);
+
+		if (k <= 0) {
+			return new int[0];
+		}
+
+		// The k closest found so far, as a max heap on distance then bay
+		int[] heap = new int[k];
+		double[] heapDistances = new double[k];
+		int found = 0;
+
+		int column = clamp((int) Math.floor(x / cellWidth), columns);
+		int row = clamp((int) Math.floor(y / cellLength), rows);
+		int rings = Math.max(Math.max(column, columns - 1 - column), Math.max(row, rows - 1 - row));
+
+		for (int ring = 0; ring <= rings; ring++) {
+			// Step.1 - Visit every cell in the ring, the top and bottom rows then the sides
+			for (int dx = -ring; dx <= ring; dx++) {
+				for (int dy = -ring; dy <= ring; dy = dy + (Math.abs(dx) == ring ? 1 : Math.max(1, 2 * ring))) {
+					int c = column + dx;
+					int r = row + dy;
+
+					if (c < 0 || c >= columns || r < 0 || r >= rows) {
+						continue;
+					}
+
+					int cell = r * columns + c;
+					int start = cell * cellCapacity;
+
+					// Step.2 - Keep any parking bay closer than the farthest kept so far
+					for (int i = start; i < start + counts[cell]; i++) {
+						int bay = bays[i];
+						double distance = distance(bay, x, y);
+
+						if (found < k) {
+							heap[found] = bay;
+							heapDistances[found] = distance;
+							siftUp(heap, heapDistances, found++);
+						} else if (isCloser(distance, bay, heapDistances[0], heap[0])) {
+							heap[0] = bay;
+							heapDistances[0] = distance;
+							siftDown(heap, heapDistances, k);
+						}
+					}
+				}
+			}
+
+			// Step.3 - Stop once every cell in the next ring is farther than everything kept
+			if (found == k && heapDistances[0] < ring * ringDistance) {
+				break;
+			}
+		}
+
+		// Step.4 - Empty the heap farthest first to put the parking bays in order
+		int[] nearest = new int[found];
+
+		for (int i = found - 1; i >= 0; i--) {
+			nearest[i] = heap[0];
+			heap[0] = heap[i];
+			heapDistances[0] = heapDistances[i];
+			siftDown(heap, heapDistances, i);
+		}
+
+		return nearest;
+	}
+
+	/**
+	 *
+	 * Find every parking bay in the set within a distance of a point, in no particular order
+	 *
+	 * @param double x [The X coordinate of the point]
+	 * @param double y [The Y coordinate of the point]
+	 * @param double radius [The greatest distance in metres]
+	 * @return int[] [The parking bays within the distance]
+	 */
+	public int[] within(double x, double y, double radius) {
+		int[] found = new int[16];
+		int count = 0;
+
+		// Only the cells the distance reaches along each axis can hold anything
+		int firstColumn = clamp((int) Math.floor((x - radius / CarparkLayout.BAY_WIDTH) / cellWidth), columns);
+		int lastColumn = clamp((int) Math.floor((x + radius / CarparkLayout.BAY_WIDTH) / cellWidth), columns);
+		int firstRow = clamp((int) Math.floor((y - radius / CarparkLayout.BAY_LENGTH) / cellLength), rows);
+		int lastRow = clamp((int) Math.floor((y + radius / CarparkLayout.BAY_LENGTH) / cellLength), rows);
+
+		for (int r = firstRow; r <= lastRow; r++) {
+			for (int c = firstColumn; c <= lastColumn; c++) {
+				int cell = r * columns + c;
+				int start = cell * cellCapacity;
+
+				for (int i = start; i < start + counts[cell]; i++) {
+					if (distance(bays[i], x, y) <= radius) {
+						if (count == found.length) {
+							found = Arrays.copyOf(found, count * 2);
+						}
+
+						found[count++] = bays[i];
+					}
+				}
+			}
+		}
+
+		return Arrays.copyOf(found, count);
+	}
+
+	/**
+	 *
+	 * Calculate how far a parking bay is from a point, travelling straight along the rows and columns
+	 *
+	 * @param int bay [The index of the parking bay in the layout]
+	 * @param double x [The X coordinate of the point]
+	 * @param double y [The Y coordinate of the point]
+	 * @return double [The distance in metres]
+	 */
+	public double distance(int bay, double x, double y) {
+		return Math.abs(layout.getX(bay) - x) * CarparkLayout.BAY_WIDTH + Math.abs(layout.getY(bay) - y) * CarparkLayout.BAY_LENGTH;
+	}
+
+	// Return the cell a parking bay is in
+	private int cellOf(int bay) {
+		return (layout.getY(bay) / cellLength) * columns + layout.getX(bay) / cellWidth;
+	}
+
+	// Return a cell coordinate kept within the grid
+	private static int clamp(int value, int cells) {
+		return Math.max(0, Math.min(cells - 1, value));
+	}
+
+	// Return whether or not one parking bay is closer than another, the first in bay order if they are the same distance away
+	private static boolean isCloser(double distance, int bay, double otherDistance, int other) {
+		return distance < otherDistance || (distance == otherDistance && bay < other);
+	}
+
+	// Move a new entry up the max heap until its parent is farther
+	private static void siftUp(int[] heap, double[] distances, int i) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+
+			if (!isCloser(distances[parent], heap[parent], distances[i], heap[i])) {
+				return;
+			}
+
+			swap(heap, distances, i, parent);
+			i = parent;
+		}
+	}
+
+	// Move the top entry down the max heap until both children are closer
+	private static void siftDown(int[] heap, double[] distances, int size) {
+		int i = 0;
+
+		while (true) {
+			int farthest = i;
+
+			for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+				if (isCloser(distances[farthest], heap[farthest], distances[child], heap[child])) {
+					farthest = child;
+				}
+			}
+
+			if (farthest == i) {
+				return;
+			}
+
+			swap(heap, distances, i, farthest);
+			i = farthest;
+		}
+	}
+
+	// Swap two entries of the heap
+	private static void swap(int[] heap, double[] distances, int i, int j) {
+		int bay = heap[i];
+		double distance = distances[i];
+
+		heap[i] = heap[j];
+		distances[i] = distances[j];
+		heap[j] = bay;
+		distances[j] = distance;
+	}
+}
@@ -0,0 +1,166 @@
+import java.util.Random;
+
+/**
+ *
+ * Benchmarks the spatial index against scanning every parking bay, for carparks of up to a million parking bays.
+ *
+ * For each size a square carpark is generated and most of its parking bays are occupied at random, then random points are queried
+ * for the nearest free parking bay, the 10 nearest and every free parking bay within 50 metres. Cars parking and leaving are timed too.
+ * Every index answer is checked against the scan on a sample of the points.
+ *
+ * java SpatialIndexBenchmark [bays...] (default 1000 10000 100000 1000000)
+ *
+ */
+
+public class SpatialIndexBenchmark {
+	private static final int QUERIES = 100_000; // queries timed for each size
+	private static final int SCANS = 200; // scans timed for each size, fewer as each visits every parking bay
+	private static final double OCCUPIED = 0.8; // the share of parking bays occupied
+	private static final double RADIUS = 50; // metres for within queries
+
+	private static long checksum = 0; // sum of every answer so no query can be skipped
+
+	public static void main(String[] args) {
+		int[] sizes = { 1_000, 10_000, 100_000, 1_000_000 };
+
+		if (args.length > 0) {
+			sizes = new int[args.length];
+
+			for (int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		System.out.println("bays,build_ms,nearest_ns,nearest10_ns,within50_ns,scan_ns,update_ns,checked");
+
+		for (int bays : sizes) {
+			// Run twice so the second run is measured with the code compiled
+			run(bays, false);
+			run(bays, true);
+		}
+
+		System.out.println("checksum " + checksum);
+	}
+
+	/**
+	 *
+	 * Benchmark a carpark of the given size
+	 *
+	 * @param int bays [The number of parking bays, rounded to a square]
+	 * @param boolean print [Whether or not to print the results]
+	 */
+	private static void run(int bays, boolean print) {
+		Random rand = new Random(bays);
+		int side = Math.max(1, (int) Math.round(Math.sqrt(bays)));
+		CarparkLayout layout = CarparkLayout.generate(side, side, rand);
+
+		// Step.1 - Build an index of every parking bay and occupy most of them
+		long started = System.nanoTime();
+		SpatialIndex index = new SpatialIndex(layout);
+
+		for (int bay = 0; bay < layout.getCapacity(); bay++) {
+			index.add(bay);
+		}
+
+		long buildMillis = (System.nanoTime() - started) / 1_000_000;
+
+		for (int bay = 0; bay < layout.getCapacity(); bay++) {
+			if (rand.nextDouble() < OCCUPIED) {
+				index.remove(bay);
+			}
+		}
+
+		// Step.2 - Time each kind of query from random points
+		double[] xs = new double[QUERIES];
+		double[] ys = new double[QUERIES];
+
+		for (int i = 0; i < QUERIES; i++) {
+			xs[i] = rand.nextDouble() * side;
+			ys[i] = rand.nextDouble() * side;
+		}
+
+		started = System.nanoTime();
+
+		for (int i = 0; i < QUERIES; i++) {
+			checksum += index.nearest(xs[i], ys[i], 1)[0];
+		}
+
+		long nearest = (System.nanoTime() - started) / QUERIES;
+		started = System.nanoTime();
+
+		for (int i = 0; i < QUERIES; i++) {
+			checksum += index.nearest(xs[i], ys[i], 10)[0];
+		}
+
+		long nearest10 = (System.nanoTime() - started) / QUERIES;
+		started = System.nanoTime();
+
+		for (int i = 0; i < QUERIES; i++) {
+			checksum += index.within(xs[i], ys[i], RADIUS).length;
+		}
+
+		long within = (System.nanoTime() - started) / QUERIES;
+		started = System.nanoTime();
+
+		for (int i = 0; i < SCANS; i++) {
+			checksum += scanNearest(index, layout, xs[i], ys[i]);
+		}
+
+		long scan = (System.nanoTime() - started) / SCANS;
+
+		// Step.3 - Time cars parking in the nearest free parking bay and leaving again
+		started = System.nanoTime();
+
+		for (int i = 0; i < QUERIES; i++) {
+			int bay = index.nearest(xs[i], ys[i], 1)[0];
+
+			index.remove(bay);
+			index.add(bay);
+		}
+
+		long update = (System.nanoTime() - started) / QUERIES;
+
+		// Step.4 - Check the index agrees with the scan
+		int checked = 0;
+
+		for (int i = 0; i < SCANS; i++) {
+			if (index.nearest(xs[i], ys[i], 1)[0] != scanNearest(index, layout, xs[i], ys[i])) {
+				throw new IllegalStateException("Nearest parking bay to " + xs[i] + ", " + ys[i] + " doesn't match the scan");
+			}
+
+			checked++;
+		}
+
+		if (print) {
+			System.out.println(layout.getCapacity() + "," + buildMillis + "," + nearest + "," + nearest10 + "," + within + "," + scan + "," + update + "," + checked);
+		}
+	}
+
+	/**
+	 *
+	 * Find the nearest parking bay in the index by checking every parking bay
+	 *
+	 * @param SpatialIndex index [The index]
+	 * @param CarparkLayout layout [The layout of the carpark]
+	 * @param double x [The X coordinate of the point]
+	 * @param double y [The Y coordinate of the point]
+	 * @return int best [The nearest parking bay, the first in bay order if several are the same distance away]
+	 */
+	private static int scanNearest(SpatialIndex index, CarparkLayout layout, double x, double y) {
+		int best = -1;
+		double bestDistance = Double.MAX_VALUE;
+
+		for (int bay = 0; bay < layout.getCapacity(); bay++) {
+			if (index.contains(bay)) {
+				double distance = index.distance(bay, x, y);
+
+				if (distance < bestDistance) {
+					best = bay;
+					bestDistance = distance;
+				}
+			}
+		}
+
+		return best;
+	}
+}
@@ -0,0 +1,221 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ *
+ * Runs a parameter sweep of headless simulations in parallel across every core.
+ *
+ * Options are given as key=value arguments, the same as the agents, and file=path loads a properties file.
+ * Any option given as a comma separated list is swept, running every combination of the swept options, e.g.
+ * java SweepRunner width=10,15,20 algorithm="Optimised Efficiency,First Come First Served" runs=10
+ *
+ * runs - how many times each combination is run, each with a different seed (default 1)
+ * threads - how many simulations run at once (default every core)
+ * out - where to write the results as CSV (default the console)
+ * shadow - true to run every algorithm on the same arrivals in one simulation instead of sweeping it (default false)
+ *          With no algorithm list every algorithm is shadowed. Shadowed rows share a seed and are directly paired.
+ *
+ * Run r of every combination uses seed + r, so every combination sees the same layouts and cars and differences come from the options alone.
+ *
+ */
+
+public class SweepRunner {
+	// Sweep options that aren't simulation options
+	private static final String RUNS = "runs";
+	private static final String THREADS = "threads";
+	private static final String OUT = "out";
+	private static final String SHADOW = "shadow";
+
+	public static void main(String[] args) {
+		Properties options;
+
+		// Try to read the options
+		try {
+			options = Scenario.toProperties(args);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		int runs = Integer.parseInt(options.getProperty(RUNS, "1"));
+		int threads = Integer.parseInt(options.getProperty(THREADS, Integer.toString(Runtime.getRuntime().availableProcessors())));
+		String out = options.getProperty(OUT, "");
+		long seed = Long.parseLong(options.getProperty(Scenario.SEED, "1"));
+		boolean shadow = Boolean.parseBoolean(options.getProperty(SHADOW, "false"));
+
+		options.remove(RUNS);
+		options.remove(THREADS);
+		options.remove(OUT);
+		options.remove(SHADOW);
+
+		// Shadowed algorithms share one simulation rather than being swept
+		AllocationStrategy[] strategies = null;
+
+		if (shadow) {
+			strategies = shadowedStrategies(options.getProperty(Scenario.ALGORITHM, ""));
+
+			if (strategies == null) {
+				return;
+			}
+
+			options.setProperty(Scenario.ALGORITHM, strategies[0].getLabel());
+		}
+
+		// Find the swept options
+		List<String> axes = new ArrayList<String>();
+
+		for (String key : options.stringPropertyNames()) {
+			if (options.getProperty(key).indexOf(',') >= 0) {
+				axes.add(key);
+			}
+		}
+
+		axes.sort(null);
+
+		// Build a scenario for every combination and run
+		List<Properties> combinations = combinations(options, axes);
+		List<HeadlessSimulation> simulations = new ArrayList<HeadlessSimulation>();
+		List<String> labels = new ArrayList<String>();
+
+		for (Properties combination : combinations) {
+			for (int run = 0; run < runs; run++) {
+				combination.setProperty(Scenario.SEED, Long.toString(seed + run));
+
+				// Try to validate the combination
+				try {
+					Scenario scenario = Scenario.fromProperties(combination);
+
+					simulations.add(shadow ? new HeadlessSimulation(scenario, strategies) : new HeadlessSimulation(scenario));
+				} catch (IllegalArgumentException e) {
+					System.out.println(e.getMessage() + " " + combination);
+					return;
+				}
+
+				labels.add(label(combination, axes));
+			}
+		}
+
+		System.out.println("Running " + simulations.size() + " simulations on " + threads + " threads");
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		long started = System.currentTimeMillis();
+
+		// Try to run every simulation and write the results in order, closing only a results file so the console stays open
+		try (PrintWriter file = out.isEmpty() ? null : new PrintWriter(new FileWriter(out))) {
+			PrintWriter writer = file != null ? file : new PrintWriter(System.out);
+			List<Future<SimulationResult[]>> results = pool.invokeAll(simulations);
+
+			writer.println(header(axes));
+
+			// One row per strategy of each simulation
+			for (int i = 0; i < results.size(); i++) {
+				for (SimulationResult result : results.get(i).get()) {
+					writer.println(labels.get(i) + result.toCsv());
+				}
+			}
+
+			writer.flush();
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			pool.shutdown();
+		}
+
+		System.out.println("Finished in " + (System.currentTimeMillis() - started) + "ms");
+	}
+
+	/**
+	 *
+	 * Find the algorithms to shadow
+	 *
+	 * @param String algorithms [Comma separated algorithm names, or empty for every algorithm]
+	 * @return AllocationStrategy[] strategies [The algorithms, or null if any are unknown]
+	 */
+	private static AllocationStrategy[] shadowedStrategies(String algorithms) {
+		if (algorithms.trim().isEmpty()) {
+			return AllocationStrategy.values();
+		}
+
+		String[] labels = algorithms.split(",");
+		AllocationStrategy[] strategies = new AllocationStrategy[labels.length];
+
+		for (int i = 0; i < labels.length; i++) {
+			strategies[i] = AllocationStrategy.forLabel(labels[i].trim());
+
+			if (strategies[i] == null) {
+				System.out.println("Unknown algorithm: " + labels[i].trim());
+				return null;
+			}
+		}
+
+		return strategies;
+	}
+
+	/**
+	 *
+	 * Expand the swept options into every combination of their values
+	 *
+	 * @param Properties options [The options, with swept options as comma separated lists]
+	 * @param List<String> axes [The swept options]
+	 * @return List<Properties> combinations [The options for every combination]
+	 */
+	private static List<Properties> combinations(Properties options, List<String> axes) {
+		List<Properties> combinations = new ArrayList<Properties>();
+		Properties base = new Properties();
+
+		base.putAll(options);
+		combinations.add(base);
+
+		// Multiply the combinations so far by each value of the next axis
+		for (String axis : axes) {
+			List<Properties> expanded = new ArrayList<Properties>();
+
+			for (Properties combination : combinations) {
+				for (String value : options.getProperty(axis).split(",")) {
+					Properties next = new Properties();
+
+					next.putAll(combination);
+					next.setProperty(axis, value.trim());
+					expanded.add(next);
+				}
+			}
+
+			combinations = expanded;
+		}
+
+		return combinations;
+	}
+
+	// Return the CSV header for the swept options, seed and results
+	private static String header(List<String> axes) {
+		StringBuilder header = new StringBuilder();
+
+		for (String axis : axes) {
+			// The algorithm is already a result column
+			if (!axis.equals(Scenario.ALGORITHM)) {
+				header.append(axis).append(',');
+			}
+		}
+
+		return header.append(Scenario.SEED).append(',').append(SimulationResult.CSV_HEADER).toString();
+	}
+
+	// Return the CSV columns of the swept options and seed of a combination
+	private static String label(Properties combination, List<String> axes) {
+		StringBuilder label = new StringBuilder();
+
+		for (String axis : axes) {
+			if (!axis.equals(Scenario.ALGORITHM)) {
+				label.append(combination.getProperty(axis)).append(',');
+			}
+		}
+
+		return label.append(combination.getProperty(Scenario.SEED)).append(',').toString();
+	}
+}
@@ -0,0 +1,61 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ *
+ * Arrival source that generates a new car at a fixed interval.
+ * One car arrives every model speed ticks, matching the original carpark spawner.
+ *
+ */
+
+public class SyntheticArrivals implements ArrivalSource {
+	private Scenario scenario;
+	private CarGenerator generator;
+	private long nextTick; // when the next car arrives
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param Scenario scenario [The simulation options]
+	 * @param CarGenerator generator [Generates the details of each car]
+	 */
+	SyntheticArrivals(Scenario scenario, CarGenerator generator) {
+		this.scenario = scenario;
+		this.generator = generator;
+		this.nextTick = scenario.getModelSpeed();
+	}
+
+	public Arrival next(long tick) {
+		// No car is due yet
+		if (tick < nextTick) {
+			return null;
+		}
+
+		// Generate the car that is due and schedule the next one
+		Arrival arrival = generator.newArrival(scenario, nextTick);
+		nextTick = nextTick + scenario.getModelSpeed();
+
+		return arrival;
+	}
+
+	// Generated cars never run out
+	public boolean isExhausted() {
+		return false;
+	}
+
+	public void close() {
+
+	}
+
+	public void save(DataOutputStream out) throws IOException {
+		generator.save(out);
+		out.writeLong(nextTick);
+	}
+
+	public void restore(DataInputStream in) throws IOException {
+		generator.restore(in);
+		nextTick = in.readLong();
+	}
+}
@@ -0,0 +1,121 @@
+import java.util.Arrays;
+
+/**
+ *
+ * Growable time series of points held in primitive arrays.
+ *
+ * Keeps the whole history of a chart without boxing, and downsamples it to a fixed number of points for display using
+ * Largest-Triangle-Three-Buckets (Steinarsson, 2013), which keeps the peaks and troughs that make the shape of the series.
+ * Points are appended by the simulation and read by the user interface, so every method is synchronized.
+ *
+ */
+
+public class TimeSeries {
+	private double[] xs = new double[1024];
+	private double[] ys = new double[1024];
+	private int size = 0;
+
+	/**
+	 *
+	 * Add a point to the end of the series
+	 *
+	 * @param double x [The x value, no smaller than the previous point's]
+	 * @param double y [The y value]
+	 */
+	public synchronized void append(double x, double y) {
+		// Double the capacity when full
+		if (size == xs.length) {
+			xs = Arrays.copyOf(xs, size * 2);
+			ys = Arrays.copyOf(ys, size * 2);
+		}
+
+		xs[size] = x;
+		ys[size] = y;
+		size++;
+	}
+
+	// Return the number of points in the series
+	public synchronized int size() {
+		return size;
+	}
+
+	// Remove every point
+	public synchronized void clear() {
+		size = 0;
+	}
+
+	/**
+	 *
+	 * Downsample the series using Largest-Triangle-Three-Buckets
+	 * Step.1 - keep the first and last points
+	 * Step.2 - split the points between them into equal buckets, one per point wanted
+	 * Step.3 - from each bucket keep the point making the largest triangle with the point kept from the previous bucket
+	 *          and the average of the next bucket
+	 *
+	 * @param int threshold [The most points wanted, at least 3]
+	 * @param double[] outX [Where to write the x values, at least threshold long]
+	 * @param double[] outY [Where to write the y values, at least threshold long]
+	 * @return int [The number of points written]
+	 */
+	public synchronized int downsample(int threshold, double[] outX, double[] outY) {
+		// Few enough points to keep them all
+		if (size <= threshold || threshold < 3) {
+			int n = Math.min(size, threshold);
+
+			System.arraycopy(xs, 0, outX, 0, n);
+			System.arraycopy(ys, 0, outY, 0, n);
+
+			return n;
+		}
+
+		double every = (double) (size - 2) / (threshold - 2);
+		int a = 0; // the point kept from the previous bucket
+		int written = 0;
+
+		outX[written] = xs[0];
+		outY[written] = ys[0];
+		written++;
+
+		for (int bucket = 0; bucket < threshold - 2; bucket++) {
+			// Average of the next bucket
+			int nextStart = (int) ((bucket + 1) * every) + 1;
+			int nextEnd = Math.min((int) ((bucket + 2) * every) + 1, size);
+			double averageX = 0;
+			double averageY = 0;
+
+			for (int i = nextStart; i < nextEnd; i++) {
+				averageX = averageX + xs[i];
+				averageY = averageY + ys[i];
+			}
+
+			averageX = averageX / (nextEnd - nextStart);
+			averageY = averageY / (nextEnd - nextStart);
+
+			// Point of this bucket making the largest triangle
+			int start = (int) (bucket * every) + 1;
+			int end = (int) ((bucket + 1) * every) + 1;
+			double largest = -1;
+			int kept = start;
+
+			for (int i = start; i < end; i++) {
+				double area = Math.abs((xs[a] - averageX) * (ys[i] - ys[a]) - (xs[a] - xs[i]) * (averageY - ys[a]));
+
+				if (area > largest) {
+					largest = area;
+					kept = i;
+				}
+			}
+
+			outX[written] = xs[kept];
+			outY[written] = ys[kept];
+			written++;
+			a = kept;
+		}
+
+		outX[written] = xs[size - 1];
+		outY[written] = ys[size - 1];
+		written++;
+
+		return written;
+	}
+}
@@ -0,0 +1,187 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ *
+ * Writes the traces of finished cars as a timeline in the Chrome trace event format,
+ * which can be opened in chrome://tracing or https://ui.perfetto.dev
+ *
+ * Each car is a row of the timeline, named after its number plate, showing how long it spent queueing, having its agent spawned at the front of the queue,
+ * starting up, in each call for proposals, waiting between calls, confirming and parked.
+ * Cars that leave the queue before their agent is spawned show only queueing until they left.
+ * Traces are streamed to the file as cars finish, so runs of any number of cars only hold the cars still in the carpark in memory.
+ *
+ */
+
+public class TimelineExporter {
+	private final String path;
+	private final BufferedWriter out;
+	private final long startNanos = System.nanoTime(); // time 0 of the timeline
+	private int cars = 0; // cars written so far, also used as each car's row
+	private boolean closed = false;
+	private final StringBuilder line = new StringBuilder(256);
+
+	/**
+	 *
+	 * Open a timeline
+	 *
+	 * @param String path [Where to write the timeline, or empty to disable it]
+	 * @return TimelineExporter [The timeline, or null if disabled or it couldn't be opened]
+	 */
+	public static TimelineExporter open(String path) {
+		if (path == null || path.isEmpty()) {
+			return null;
+		}
+
+		// Try to create the file
+		try {
+			TimelineExporter timeline = new TimelineExporter(path);
+
+			System.out.println("Writing car timelines to " + path);
+
+			return timeline;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param String path [Where to write the timeline]
+	 * @throws IOException [If the file can't be created]
+	 */
+	private TimelineExporter(String path) throws IOException {
+		this.path = path;
+		this.out = new BufferedWriter(new FileWriter(path), 1 << 16);
+
+		// The JSON array format, which the viewers accept without the closing bracket if a run is cut short
+		out.write("[\n");
+		out.write("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":1,\"args\":{\"name\":\"Carpark\"}}");
+	}
+
+	// Return the time a System.nanoTime() value is shown at, in microseconds
+	private long micros(long nanos) {
+		return (nanos - startNanos) / 1000;
+	}
+
+	/**
+	 *
+	 * Write the timeline of a car
+	 *
+	 * @param CarTrace trace [The trace of the car]
+	 */
+	public synchronized void write(CarTrace trace) {
+		// Cars still parked when the simulation ends can finish after the timeline is closed
+		if (closed) {
+			return;
+		}
+
+		int row = ++cars;
+
+		line.setLength(0);
+		line.append(",\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(row).append(",\"args\":{\"name\":\"").append(escape(trace.getNumberPlate())).append("\"}}");
+
+		// Milestones before negotiating, a car that left the queue queued until it left
+		long spawned = trace.getSpawned() != 0 || trace.getSize() == 0 ? trace.getSpawned() : trace.getTime(0);
+
+		span(row, "queueing", trace.getQueued(), spawned, null);
+		span(row, "spawning", trace.getSpawned(), trace.getHead(), null);
+		span(row, "front of queue", trace.getHead(), trace.getFirstCall(), null);
+
+		// Older stages were overwritten while negotiating, so cover them with a single span
+		if (trace.getDropped() > 0) {
+			span(row, "negotiating", trace.getFirstCall(), trace.getTime(0), "\"dropped\":" + trace.getDropped());
+		}
+
+		// Each stage lasts until the next one
+		for (int i = 0; i < trace.getSize(); i++) {
+			long start = trace.getTime(i);
+			long next = i + 1 < trace.getSize() ? trace.getTime(i + 1) : 0;
+			int argument = trace.getArgument(i);
+
+			switch (trace.getStage(i)) {
+				case CarTrace.CFP:
+					span(row, trace.getFlag(i) ? "cfp matching type" : "cfp normal bays", start, next, "\"bays\":" + argument);
+					break;
+				case CarTrace.NO_SPACE:
+					span(row, "waiting for space", start, next, null);
+					break;
+				case CarTrace.ACCEPTED:
+					span(row, "confirming", start, next, "\"distance\":" + argument);
+					break;
+				case CarTrace.PARKED:
+					span(row, "parked", start, next, null);
+					break;
+				case CarTrace.LEFT:
+					instant(row, "left", start);
+					break;
+			}
+		}
+
+		// Try to write the car
+		try {
+			out.append(line);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Finish and close the timeline
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+
+		// Try to close the file
+		try {
+			out.write("\n]\n");
+			out.close();
+
+			System.out.println(cars + " car timelines written to " + path);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 *
+	 * Add a complete event, skipped if the stage was never started or finished
+	 *
+	 * @param int row [The row of the car]
+	 * @param String name [The name of the stage]
+	 * @param long start [When the stage started]
+	 * @param long end [When the stage ended]
+	 * @param String args [Extra JSON fields describing the stage, or null]
+	 */
+	private void span(int row, String name, long start, long end, String args) {
+		if (start == 0 || end == 0) {
+			return;
+		}
+
+		line.append(",\n{\"name\":\"").append(name).append("\",\"ph\":\"X\",\"pid\":1,\"tid\":").append(row)
+			.append(",\"ts\":").append(micros(start)).append(",\"dur\":").append(Math.max(0, (end - start) / 1000));
+
+		if (args != null) {
+			line.append(",\"args\":{").append(args).append('}');
+		}
+
+		line.append('}');
+	}
+
+	// Add an instant event
+	private void instant(int row, String name, long time) {
+		line.append(",\n{\"name\":\"").append(name).append("\",\"ph\":\"i\",\"s\":\"t\",\"pid\":1,\"tid\":").append(row)
+			.append(",\"ts\":").append(micros(time)).append('}');
+	}
+
+	// Escape text for a JSON string
+	private static String escape(String text) {
+		return text.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+}
@@ -0,0 +1,168 @@
+import java.util.function.Consumer;
+
+/**
+ *
+ * Hierarchical timing wheel for scheduling items to expire at a given tick of the model clock.
+ *
+ * Time is divided into slots of a fixed resolution. Level 0 holds 64 slots of one resolution each,
+ * level 1 holds 64 slots of 64 resolutions each, and so on, so any deadline fits in one of the levels.
+ * An item is filed on the level of the highest 6 bits where its deadline differs from the current time,
+ * and is moved down a level each time the wheel reaches the start of its slot, until it expires from level 0.
+ * Scheduling and expiring an item are both constant time, however many items are waiting.
+ *
+ * Not thread safe, the owner schedules and advances the wheel from one thread.
+ *
+ * @param <T> [The type of item scheduled]
+ */
+
+public class TimingWheel<T> {
+	// Each level has 2^6 = 64 slots
+	private static final int BITS = 6;
+	private static final int SLOTS = 1 << BITS;
+	private static final int MASK = SLOTS - 1;
+
+	// Enough levels to hold any non-negative long deadline
+	private static final int LEVELS = (Long.SIZE + BITS - 1) / BITS;
+
+	private final long resolution; // ticks per slot
+	private final Node<T>[][] wheels; // head of the list of items in each slot of each level
+	private long current = 0; // the last slot expired
+	private int size = 0; // number of items waiting
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param long resolution [The number of ticks in a slot, items expire at the first slot boundary at or after their deadline]
+	 */
+	TimingWheel(long resolution) {
+		if (resolution <= 0) {
+			throw new IllegalArgumentException("resolution must be positive: " + resolution);
+		}
+
+		// Generic arrays can't be created directly, the cast is safe as only Node<T> are ever stored in the slots
+		@SuppressWarnings("unchecked")
+		Node<T>[][] wheels = (Node<T>[][]) new Node<?>[LEVELS][SLOTS];
+
+		this.resolution = resolution;
+		this.wheels = wheels;
+	}
+
+	/**
+	 *
+	 * Schedule an item to expire at the given tick
+	 * Deadlines that have already passed expire on the next call to advance
+	 *
+	 * @param long tick [When the item expires]
+	 * @param T item [The item to expire]
+	 */
+	public void schedule(long tick, T item) {
+		// Round the deadline up to a slot so the item never expires early
+		long slot = Math.max(Math.floorDiv(tick + resolution - 1, resolution), current + 1);
+
+		file(new Node<T>(slot, item));
+		size++;
+	}
+
+	/**
+	 *
+	 * Advance the wheel to the given tick, expiring every item due by then, slot by slot
+	 *
+	 * @param long tick [The current time]
+	 * @param Consumer<T> expired [Called with each item that expires]
+	 */
+	public void advance(long tick, Consumer<T> expired) {
+		long target = Math.floorDiv(tick, resolution);
+
+		while (current < target) {
+			current++;
+
+			// Step.1 - Move items down from every higher level whose slot starts now
+			for (int level = LEVELS - 1; level > 0; level--) {
+				if ((current & ((1L << (BITS * level)) - 1)) == 0) {
+					cascade(level, (int) ((current >>> (BITS * level)) & MASK));
+				}
+			}
+
+			// Step.2 - Expire the items in the current slot of level 0
+			int index = (int) (current & MASK);
+			Node<T> node = wheels[0][index];
+
+			wheels[0][index] = null;
+
+			while (node != null) {
+				Node<T> next = node.next;
+
+				size--;
+				expired.accept(node.item);
+				node = next;
+			}
+
+			// Nothing left to expire, so jump straight to the target
+			if (size == 0) {
+				current = target;
+			}
+		}
+	}
+
+	// Return the number of items waiting to expire
+	public int size() {
+		return size;
+	}
+
+	// Return whether or not no items are waiting to expire
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 *
+	 * Re-file every item in a slot of a higher level onto the lower levels
+	 *
+	 * @param int level [The level of the slot]
+	 * @param int index [The index of the slot]
+	 */
+	private void cascade(int level, int index) {
+		Node<T> node = wheels[level][index];
+
+		wheels[level][index] = null;
+
+		while (node != null) {
+			Node<T> next = node.next;
+
+			file(node);
+			node = next;
+		}
+	}
+
+	/**
+	 *
+	 * File an item in the slot for its deadline
+	 *
+	 * @param Node<T> node [The item and its deadline]
+	 */
+	private void file(Node<T> node) {
+		// The highest group of 6 bits that differs between the deadline and the current time decides the level
+		int level = node.slot == current ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(node.slot ^ current)) / BITS;
+		int index = (int) ((node.slot >>> (BITS * level)) & MASK);
+
+		node.next = wheels[level][index];
+		wheels[level][index] = node;
+	}
+
+	/**
+	 *
+	 * An item waiting in a slot
+	 *
+	 */
+	private static class Node<T> {
+		final long slot; // the slot the item expires in
+		final T item;
+		Node<T> next; // the next item in the same slot
+
+		Node(long slot, T item) {
+			this.slot = slot;
+			this.item = item;
+		}
+	}
+}
@@ -0,0 +1,310 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ *
+ * Arrival source that replays recorded entry/exit logs, such as ANPR gate logs.
+ *
+ * The log is a CSV file with one car per line: plate,type,arrival,stay
+ * plate - the number plate of the car
+ * type - N (normal), D (disabled) or E (electric), only the first letter is used
+ * arrival - either a date and time (2020-08-17 08:15:00) or minutes since the start of the log
+ * stay - how long the car stayed in minutes
+ *
+ * Lines starting with # and a header line starting with "plate" are ignored.
+ * Lines are expected in arrival order; a line that is out of order arrives as soon as it is read.
+ *
+ * The file is streamed through a memory-mapped window so logs of any size can be replayed without loading them into memory.
+ * The make, model, fuel economy and emissions of each car aren't in the log so they are generated from its type.
+ *
+ */
+
+public class TraceArrivals implements ArrivalSource {
+	private static final long WINDOW_SIZE = 64L << 20; // map 64MB of the log at a time
+	private static final int MAX_LINE = 4096; // longest line that will be read in full
+	private static final int MAX_WARNINGS = 10; // number of skipped lines to report individually
+
+	// File
+	private final String path;
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final long size;
+	private MappedByteBuffer window;
+	private long windowStart;
+	private long position = 0; // position of the next unread byte
+	private final byte[] line = new byte[MAX_LINE];
+	private long lineNumber = 0;
+	private long skipped = 0;
+
+	// Replay
+	private CarGenerator generator;
+	private Arrival pending; // the next car read from the log that isn't due yet
+	private double firstMinute = Double.NaN; // arrival time of the first car, which becomes tick 0
+	private boolean exhausted = false;
+
+	/**
+	 *
+	 * Class Constructor
+	 *
+	 * @param String path [The location of the log]
+	 * @param CarGenerator generator [Generates the details of each car that aren't in the log]
+	 * @throws IOException [If the log can't be opened]
+	 */
+	TraceArrivals(String path, CarGenerator generator) throws IOException {
+		this.path = path;
+		this.generator = generator;
+
+		file = new RandomAccessFile(path, "r");
+		channel = file.getChannel();
+		size = channel.size();
+	}
+
+	public Arrival next(long tick) {
+		// Read ahead one car
+		if (pending == null) {
+			pending = read();
+		}
+
+		// No car is due yet
+		if (pending == null || pending.getTick() > tick) {
+			return null;
+		}
+
+		Arrival arrival = pending;
+		pending = null;
+
+		return arrival;
+	}
+
+	public boolean isExhausted() {
+		return exhausted && pending == null;
+	}
+
+	public void close() {
+		// Report any lines that couldn't be replayed
+		if (skipped > 0) {
+			System.out.println(skipped + " lines of " + path + " skipped");
+		}
+
+		// Try to close the log
+		try {
+			channel.close();
+			file.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Save how far through the log the replay has got, the log itself isn't copied
+	public void save(DataOutputStream out) throws IOException {
+		generator.save(out);
+		out.writeLong(position);
+		out.writeLong(lineNumber);
+		out.writeLong(skipped);
+		Checkpoint.writeArrival(out, pending);
+		out.writeDouble(firstMinute);
+		out.writeBoolean(exhausted);
+	}
+
+	public void restore(DataInputStream in) throws IOException {
+		generator.restore(in);
+		position = in.readLong();
+		lineNumber = in.readLong();
+		skipped = in.readLong();
+		pending = Checkpoint.readArrival(in);
+		firstMinute = in.readDouble();
+		exhausted = in.readBoolean();
+
+		// Map the window at the restored position on the next read
+		window = null;
+	}
+
+	// Read the next valid car from the log, or return null at the end of the log
+	private Arrival read() {
+		int length;
+
+		// Try to read lines until one is a valid car
+		try {
+			while ((length = readLine()) >= 0) {
+				lineNumber++;
+
+				Arrival arrival = parse(new String(line, 0, length, StandardCharsets.US_ASCII).trim());
+
+				if (arrival != null) {
+					return arrival;
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		exhausted = true;
+
+		return null;
+	}
+
+	/**
+	 *
+	 * Copy the next line of the log into the line buffer
+	 * Lines longer than the buffer are cut short
+	 *
+	 * @return int length [The length of the line, or -1 at the end of the log]
+	 * @throws IOException [If the log can't be mapped]
+	 */
+	private int readLine() throws IOException {
+		// End of the log
+		if (position >= size) {
+			return -1;
+		}
+
+		int length = 0;
+
+		while (position < size) {
+			// Map the next window of the log once the current one has been read
+			if (window == null || position >= windowStart + window.limit()) {
+				windowStart = position;
+				window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, size - windowStart));
+			}
+
+			byte b = window.get((int) (position - windowStart));
+			position++;
+
+			// End of the line
+			if (b == '\n') {
+				break;
+			}
+
+			if (b != '\r' && length < MAX_LINE) {
+				line[length++] = b;
+			}
+		}
+
+		return length;
+	}
+
+	/**
+	 *
+	 * Turn a line of the log into a car
+	 *
+	 * @param String text [The line of the log]
+	 * @return Arrival [The car, or null if the line isn't a car]
+	 */
+	private Arrival parse(String text) {
+		// Ignore blank lines and comments
+		if (text.isEmpty() || text.charAt(0) == '#') {
+			return null;
+		}
+
+		String[] fields = text.split(",");
+
+		// Ignore the header
+		if (fields[0].trim().equalsIgnoreCase("plate")) {
+			return null;
+		}
+
+		if (fields.length < 4) {
+			return skip("expected plate,type,arrival,stay");
+		}
+
+		String plate = fields[0].trim();
+		String type = parseType(fields[1].trim());
+
+		if (plate.isEmpty()) {
+			return skip("missing number plate");
+		}
+
+		if (type == null) {
+			return skip("unknown type " + fields[1].trim());
+		}
+
+		double minute;
+		int stay;
+
+		// Try to parse the arrival time and stay
+		try {
+			minute = parseMinute(fields[2].trim());
+			stay = (int) Math.round(Double.parseDouble(fields[3].trim()));
+		} catch (NumberFormatException | DateTimeParseException e) {
+			return skip("invalid time " + fields[2].trim() + " or stay " + fields[3].trim());
+		}
+
+		if (stay <= 0) {
+			return skip("stay must be greater than 0");
+		}
+
+		// The first car arrives at tick 0
+		if (Double.isNaN(firstMinute)) {
+			firstMinute = minute;
+		}
+
+		long tick = Math.max(0, Math.round((minute - firstMinute) * TICKS_PER_MINUTE));
+
+		return generator.newArrival(plate, type, stay, tick);
+	}
+
+	/**
+	 *
+	 * Parse the type of a car
+	 *
+	 * @param String text [The type e.g. N, Disabled or electric]
+	 * @return String type [The character representation of the vehicle type i.e. N, D or E, or null if unknown]
+	 */
+	private static String parseType(String text) {
+		if (text.isEmpty()) {
+			return null;
+		}
+
+		switch (Character.toUpperCase(text.charAt(0))) {
+			case 'N':
+				return "N";
+			case 'D':
+				return "D";
+			case 'E':
+				return "E";
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 *
+	 * Parse an arrival time into minutes
+	 *
+	 * @param String text [Either a date and time or a number of minutes]
+	 * @return double minute [The arrival time in minutes]
+	 */
+	private static double parseMinute(String text) {
+		// Date and time e.g. 2020-08-17 08:15:00 or 2020-08-17T08:15
+		if (text.indexOf(':') >= 0) {
+			return LocalDateTime.parse(text.replace(' ', 'T')).toEpochSecond(ZoneOffset.UTC) / 60.0;
+		}
+
+		// Minutes since the start of the log
+		return Double.parseDouble(text);
+	}
+
+	/**
+	 *
+	 * Report a line that can't be replayed
+	 *
+	 * @param String reason [Why the line can't be replayed]
+	 * @return Arrival [Always null]
+	 */
+	private Arrival skip(String reason) {
+		skipped++;
+
+		if (skipped <= MAX_WARNINGS) {
+			System.out.println("Skipping line " + lineNumber + " of " + path + ": " + reason);
+		}
+
+		return null;
+	}
+}